@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.benchmark;
+
+import io.github.pnoker.common.entity.driver.AttributeInfo;
+import io.github.pnoker.common.entity.driver.DriverMetadata;
+import io.github.pnoker.common.enums.AttributeTypeFlagEnum;
+import io.github.pnoker.common.enums.PointTypeFlagEnum;
+import io.github.pnoker.common.model.Device;
+import io.github.pnoker.common.model.Point;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基准测试数据构造
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public class BenchmarkFixture {
+
+    /**
+     * 每个设备（模板）的位号数量
+     */
+    public static final int POINTS_PER_DEVICE = 100;
+
+    private BenchmarkFixture() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * 构造驱动元数据，每个设备关联一个独立模板，每个模板包含 {@link #POINTS_PER_DEVICE} 个位号
+     *
+     * @param points 位号总数
+     * @return DriverMetadata
+     */
+    public static DriverMetadata metadata(int points) {
+        DriverMetadata metadata = new DriverMetadata();
+        int devices = Math.max(points / POINTS_PER_DEVICE, 1);
+        for (int d = 0; d < devices; d++) {
+            String deviceId = deviceId(d);
+            String profileId = "profile-" + d;
+
+            Device device = new Device();
+            device.setId(deviceId);
+            device.setDeviceName("device-" + d);
+            device.setProfileIds(Collections.singleton(profileId));
+            metadata.getDeviceMap().put(deviceId, device);
+
+            Map<String, AttributeInfo> driverInfo = new HashMap<>(4);
+            driverInfo.put("host", new AttributeInfo("127.0.0.1", AttributeTypeFlagEnum.STRING));
+            metadata.getDriverInfoMap().put(deviceId, driverInfo);
+
+            Map<String, Point> pointMap = new HashMap<>(POINTS_PER_DEVICE * 2);
+            Map<String, Map<String, AttributeInfo>> pointInfoMap = new HashMap<>(POINTS_PER_DEVICE * 2);
+            for (int p = 0; p < POINTS_PER_DEVICE; p++) {
+                Point point = point(pointId(p), profileId, PointTypeFlagEnum.DOUBLE, true);
+                pointMap.put(point.getId(), point);
+
+                Map<String, AttributeInfo> pointInfo = new HashMap<>(4);
+                pointInfo.put("address", new AttributeInfo(String.valueOf(p), AttributeTypeFlagEnum.STRING));
+                pointInfoMap.put(point.getId(), pointInfo);
+            }
+            metadata.getProfilePointMap().put(profileId, pointMap);
+            metadata.getPointInfoMap().put(deviceId, pointInfoMap);
+        }
+        return metadata;
+    }
+
+    /**
+     * 构造位号
+     *
+     * @param id        位号ID
+     * @param profileId 模板ID
+     * @param type      位号类型
+     * @param scaled    是否配置基值和倍数
+     * @return Point
+     */
+    public static Point point(String id, String profileId, PointTypeFlagEnum type, boolean scaled) {
+        Point point = new Point();
+        point.setId(id);
+        point.setProfileId(profileId);
+        point.setPointTypeFlag(type);
+        point.setBaseValue(scaled ? new BigDecimal("2") : BigDecimal.ZERO);
+        point.setMultiple(scaled ? new BigDecimal("3") : BigDecimal.ONE);
+        point.setValueDecimal((byte) 3);
+        return point;
+    }
+
+    public static String deviceId(int index) {
+        return "device-" + index;
+    }
+
+    public static String pointId(int index) {
+        return "point-" + index;
+    }
+
+    /**
+     * 通过反射注入字段，用于在不启动 Spring 的情况下装配服务
+     *
+     * @param target 目标对象
+     * @param name   字段名称
+     * @param value  字段值
+     */
+    public static void inject(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to inject field " + name, e);
+        }
+    }
+}
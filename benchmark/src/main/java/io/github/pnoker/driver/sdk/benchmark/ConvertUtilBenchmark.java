@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.benchmark;
+
+import io.github.pnoker.common.enums.PointTypeFlagEnum;
+import io.github.pnoker.common.model.Point;
+import io.github.pnoker.driver.sdk.utils.ConvertUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConvertUtil.convertValue 基准测试，覆盖全部位号类型，以及是否配置基值和倍数两种情况
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertUtilBenchmark {
+
+    /**
+     * 未指定取值，JMH 使用全部枚举值
+     */
+    @Param
+    private PointTypeFlagEnum type;
+
+    @Param({"false", "true"})
+    private boolean scaled;
+
+    private Point point;
+    private String rawValue;
+
+    @Setup
+    public void setup() {
+        point = BenchmarkFixture.point("point-0", "profile-0", type, scaled);
+        switch (type) {
+            case BYTE:
+                rawValue = "12";
+                break;
+            case SHORT:
+            case INT:
+            case LONG:
+                rawValue = "1234";
+                break;
+            case FLOAT:
+            case DOUBLE:
+                rawValue = "1234.5678";
+                break;
+            case BOOLEAN:
+                rawValue = "true";
+                break;
+            default:
+                rawValue = "running";
+                break;
+        }
+    }
+
+    @Benchmark
+    public String convertValue() {
+        return ConvertUtil.convertValue(point, rawValue);
+    }
+}
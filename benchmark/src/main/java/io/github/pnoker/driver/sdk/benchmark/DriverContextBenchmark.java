@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.benchmark;
+
+import io.github.pnoker.common.entity.driver.AttributeInfo;
+import io.github.pnoker.common.model.Device;
+import io.github.pnoker.common.model.Point;
+import io.github.pnoker.driver.sdk.DriverContext;
+import io.github.pnoker.driver.sdk.entity.read.ReadPlan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DriverContext 查找基准测试，位号规模分别为 1k、10k 和 100k
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DriverContextBenchmark {
+
+    private static final int KEYS = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    private int points;
+
+    private DriverContext driverContext;
+    private String[] deviceIds;
+    private String[] pointIds;
+    private int index;
+
+    @Setup
+    public void setup() {
+        driverContext = new DriverContext();
+        driverContext.setDriverMetadata(BenchmarkFixture.metadata(points));
+
+        // Pre-generated random keys keep string building out of the measurement
+        int devices = Math.max(points / BenchmarkFixture.POINTS_PER_DEVICE, 1);
+        Random random = new Random(points);
+        deviceIds = new String[KEYS];
+        pointIds = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            deviceIds[i] = BenchmarkFixture.deviceId(random.nextInt(devices));
+            pointIds[i] = BenchmarkFixture.pointId(random.nextInt(BenchmarkFixture.POINTS_PER_DEVICE));
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (KEYS - 1);
+        return index;
+    }
+
+    @Benchmark
+    public Device getDeviceByDeviceId() {
+        return driverContext.getDeviceByDeviceId(deviceIds[next()]);
+    }
+
+    @Benchmark
+    public Point getPointByDeviceIdAndPointId() {
+        int i = next();
+        return driverContext.getPointByDeviceIdAndPointId(deviceIds[i], pointIds[i]);
+    }
+
+    @Benchmark
+    public List<Point> getPointByDeviceId() {
+        return driverContext.getPointByDeviceId(deviceIds[next()]);
+    }
+
+    @Benchmark
+    public Map<String, AttributeInfo> getDriverInfoByDeviceId() {
+        return driverContext.getDriverInfoByDeviceId(deviceIds[next()]);
+    }
+
+    @Benchmark
+    public Map<String, AttributeInfo> getPointInfoByDeviceIdAndPointId() {
+        int i = next();
+        return driverContext.getPointInfoByDeviceIdAndPointId(deviceIds[i], pointIds[i]);
+    }
+
+    @Benchmark
+    public ReadPlan getReadPlan() {
+        return driverContext.getReadPlan();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.benchmark;
+
+import io.github.pnoker.driver.sdk.enums.ByteOrderEnum;
+import io.github.pnoker.driver.sdk.utils.CodecUtil;
+import io.github.pnoker.driver.sdk.utils.DriverUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DriverUtil 字节编解码基准测试
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DriverUtilBenchmark {
+
+    private byte[] intBytes;
+    private byte[] frame;
+    private byte[] bcdBytes;
+    private String decimalString;
+    private ByteBuffer directFrame;
+
+    @Setup
+    public void setup() {
+        intBytes = new byte[]{0x12, 0x34, 0x56, 0x78};
+        frame = new byte[64];
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = (byte) (i * 31);
+        }
+        decimalString = "20230405123456";
+        bcdBytes = DriverUtil.strToBcdBytes(decimalString);
+        directFrame = ByteBuffer.allocateDirect(frame.length);
+        directFrame.put(frame);
+    }
+
+    @Benchmark
+    public int bytesToInt() {
+        return DriverUtil.bytesToInt(intBytes);
+    }
+
+    @Benchmark
+    public int bytesToIntLE() {
+        return DriverUtil.bytesToIntLE(intBytes);
+    }
+
+    @Benchmark
+    public String bytesToHex() {
+        return DriverUtil.bytesToHex(frame);
+    }
+
+    @Benchmark
+    public String bytesToAscii() {
+        return DriverUtil.bytesToAscii(frame);
+    }
+
+    @Benchmark
+    public byte[] byteReverse() {
+        return DriverUtil.byteReverse(frame);
+    }
+
+    @Benchmark
+    public String bcdBytesToString() {
+        return DriverUtil.bcdBytesToString(bcdBytes);
+    }
+
+    @Benchmark
+    public byte[] strToBcdBytes() {
+        return DriverUtil.strToBcdBytes(decimalString);
+    }
+
+    @Benchmark
+    public byte xorBytes() {
+        return DriverUtil.xorBytes(frame);
+    }
+
+    @Benchmark
+    public byte sumBytes() {
+        return DriverUtil.sumBytes(frame);
+    }
+
+    @Benchmark
+    public int getInt32CDAB() {
+        return CodecUtil.getInt32(frame, 4, ByteOrderEnum.CDAB);
+    }
+
+    @Benchmark
+    public float getFloat32BADC() {
+        return CodecUtil.getFloat32(frame, 8, ByteOrderEnum.BADC);
+    }
+
+    @Benchmark
+    public double getFloat64DCBA() {
+        return CodecUtil.getFloat64(frame, 16, ByteOrderEnum.DCBA);
+    }
+
+    @Benchmark
+    public long getInt64Direct() {
+        return CodecUtil.getInt64(directFrame, 16, ByteOrderEnum.ABCD);
+    }
+
+    @Benchmark
+    public byte[] putFloat32CDAB() {
+        CodecUtil.putFloat32(frame, 32, 3.1415926F, ByteOrderEnum.CDAB);
+        return frame;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.benchmark;
+
+import io.github.pnoker.common.dto.DriverEventDTO;
+import io.github.pnoker.common.entity.DeviceEvent;
+import io.github.pnoker.common.entity.driver.AttributeInfo;
+import io.github.pnoker.common.entity.point.PointValue;
+import io.github.pnoker.common.enums.DeviceStatusEnum;
+import io.github.pnoker.common.enums.DriverStatusEnum;
+import io.github.pnoker.common.model.Device;
+import io.github.pnoker.common.model.Point;
+import io.github.pnoker.driver.sdk.DriverContext;
+import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
+import io.github.pnoker.driver.sdk.entity.read.ReadGroup;
+import io.github.pnoker.driver.sdk.entity.read.ReadTarget;
+import io.github.pnoker.driver.sdk.service.DriverCustomService;
+import io.github.pnoker.driver.sdk.service.DriverSenderService;
+import io.github.pnoker.driver.sdk.service.impl.DriverCommandServiceImpl;
+import io.github.pnoker.driver.sdk.service.impl.DriverValueCacheServiceImpl;
+import io.github.pnoker.driver.sdk.support.DeadbandFilter;
+import io.github.pnoker.driver.sdk.support.DriverMeterBinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整读取路径基准测试：读取、转换、缓存、死区过滤和发送，设备读取和消息发送均为桩实现
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    private DriverCommandServiceImpl driverCommandService;
+    private ReadTarget target;
+    private ReadGroup group;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        DriverContext driverContext = new DriverContext();
+        driverContext.setDriverMetadata(BenchmarkFixture.metadata(BenchmarkFixture.POINTS_PER_DEVICE));
+
+        driverCommandService = new DriverCommandServiceImpl();
+        BenchmarkFixture.inject(driverCommandService, "driverContext", driverContext);
+        BenchmarkFixture.inject(driverCommandService, "driverSenderService", new StubSenderService(blackhole));
+        BenchmarkFixture.inject(driverCommandService, "driverCustomService", new StubCustomService());
+        BenchmarkFixture.inject(driverCommandService, "driverProperty", new DriverProperty());
+        BenchmarkFixture.inject(driverCommandService, "deadbandFilter", new DeadbandFilter());
+        BenchmarkFixture.inject(driverCommandService, "driverValueCacheService", new DriverValueCacheServiceImpl());
+        // Unbound meter binder, recording is a no-op without a registry
+        BenchmarkFixture.inject(driverCommandService, "driverMeterBinder", new DriverMeterBinder());
+
+        group = driverContext.getReadPlan().getGroup(BenchmarkFixture.deviceId(0));
+        target = group.getTargets().get(0);
+    }
+
+    @Benchmark
+    public PointValue readPoint() {
+        return driverCommandService.read(target);
+    }
+
+    @Benchmark
+    public List<PointValue> readGroup() {
+        return driverCommandService.read(group);
+    }
+
+    /**
+     * 桩设备读取，按位号返回固定值
+     */
+    private static class StubCustomService implements DriverCustomService {
+        private long counter;
+
+        @Override
+        public void initial() {
+            // nothing to initialize
+        }
+
+        @Override
+        public void schedule() {
+            // nothing to schedule
+        }
+
+        @Override
+        public String read(Map<String, AttributeInfo> driverInfo, Map<String, AttributeInfo> pointInfo, Device device, Point point) {
+            counter++;
+            return (counter & 1) == 0 ? "1234.5678" : "1234.9876";
+        }
+
+        @Override
+        public Boolean write(Map<String, AttributeInfo> driverInfo, Map<String, AttributeInfo> pointInfo, Device device, AttributeInfo value) {
+            return true;
+        }
+    }
+
+    /**
+     * 桩消息发送，消息交给 Blackhole 以免被优化掉
+     */
+    private static class StubSenderService implements DriverSenderService {
+        private final Blackhole blackhole;
+
+        private StubSenderService(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void driverEventSender(DriverEventDTO entityDTO) {
+            blackhole.consume(entityDTO);
+        }
+
+        @Override
+        public void driverStatusSender(String driverId, DriverStatusEnum status) {
+            blackhole.consume(status);
+        }
+
+        @Override
+        public void deviceEventSender(DeviceEvent deviceEvent) {
+            blackhole.consume(deviceEvent);
+        }
+
+        @Override
+        public void deviceStatusSender(String deviceId, DeviceStatusEnum status) {
+            blackhole.consume(status);
+        }
+
+        @Override
+        public void pointValueSender(PointValue pointValue) {
+            blackhole.consume(pointValue);
+        }
+
+        @Override
+        public void pointValueSender(List<PointValue> pointValues) {
+            blackhole.consume(pointValues);
+        }
+    }
+}
@@ -23,16 +23,29 @@ import io.github.pnoker.common.enums.DriverStatusEnum;
 import io.github.pnoker.common.exception.NotFoundException;
 import io.github.pnoker.common.model.Device;
 import io.github.pnoker.common.model.Point;
+import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
+import io.github.pnoker.driver.sdk.entity.property.ScheduleProperty;
+import io.github.pnoker.driver.sdk.entity.property.SenderProperty;
+import io.github.pnoker.driver.sdk.entity.read.ReadPlan;
+import io.github.pnoker.driver.sdk.support.MetadataDraft;
+import io.github.pnoker.driver.sdk.support.MetadataSnapshot;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Resource;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * @author pnoker
@@ -45,15 +58,183 @@ import java.util.Optional;
 @AllArgsConstructor
 public class DriverContext {
 
+    @Resource
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private DriverProperty driverProperty;
+
+    /**
+     * 驱动 状态，由 Rabbit 监听线程写入
+     */
+    private volatile DriverStatusEnum driverStatus = DriverStatusEnum.OFFLINE;
+
+    /**
+     * 驱动 元数据及其索引，当且仅当驱动注册成功之后由 Manager 返回
+     * <p>
+     * 已发布的元数据快照不可变，元数据与索引在写锁内一起构建，以一次原子替换发布，读取方无需加锁即可获得一致视图
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicReference<MetadataSnapshot> metadataSnapshot = new AtomicReference<>(MetadataDraft.freeze(new DriverMetadata(), 0L, 0L, 0L));
+
+    /**
+     * 元数据写锁，写入方串行构建新快照
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Object metadataWriteLock = new Object();
+
+    /**
+     * 读计划，元数据快照版本变化后在下一次读取时重新构建
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile ReadPlan readPlan = ReadPlan.EMPTY;
+
+    /**
+     * 获取当前元数据快照，同一快照内的元数据与索引属于同一版本
+     *
+     * @return MetadataSnapshot
+     */
+    public MetadataSnapshot getMetadataSnapshot() {
+        return this.metadataSnapshot.get();
+    }
+
+    /**
+     * 获取当前驱动元数据快照，快照不可变
+     *
+     * @return DriverMetadata
+     */
+    public DriverMetadata getDriverMetadata() {
+        return getMetadataSnapshot().getDriverMetadata();
+    }
+
+    /**
+     * 获取元数据全量替换次数
+     *
+     * @return 全量替换次数
+     */
+    public long getMetadataGeneration() {
+        return getMetadataSnapshot().getGeneration();
+    }
+
+    /**
+     * 获取已应用的平台端元数据版本，0 表示未知，驱动注册时据此请求增量同步
+     *
+     * @return 版本
+     */
+    public long getMetadataSyncVersion() {
+        return getMetadataSnapshot().getSyncVersion();
+    }
+
+    /**
+     * 设置已应用的平台端元数据版本，元数据保持不变
+     *
+     * @param metadataSyncVersion 版本
+     */
+    public void setMetadataSyncVersion(long metadataSyncVersion) {
+        updateDriverMetadata(draft -> draft.setSyncVersion(metadataSyncVersion));
+    }
+
+    /**
+     * 全量替换驱动元数据，并重建全部索引，已应用的平台端元数据版本保持不变
+     *
+     * @param driverMetadata DriverMetadata
+     */
+    public void setDriverMetadata(DriverMetadata driverMetadata) {
+        synchronized (this.metadataWriteLock) {
+            setDriverMetadata(driverMetadata, this.metadataSnapshot.get().getSyncVersion());
+        }
+    }
+
+    /**
+     * 全量替换驱动元数据及已应用的平台端元数据版本，并重建全部索引
+     *
+     * @param driverMetadata      DriverMetadata
+     * @param metadataSyncVersion 已应用的平台端元数据版本
+     */
+    public void setDriverMetadata(DriverMetadata driverMetadata, long metadataSyncVersion) {
+        synchronized (this.metadataWriteLock) {
+            MetadataSnapshot current = this.metadataSnapshot.get();
+            this.metadataSnapshot.set(MetadataDraft.freeze(driverMetadata, current.getVersion() + 1, current.getGeneration() + 1, metadataSyncVersion));
+        }
+    }
+
     /**
-     * 驱动 状态
+     * 修改驱动元数据，草稿同时维护索引，修改完成后以一次原子替换发布新快照
+     * <p>
+     * 修改在元数据写锁内执行，可在草稿内检查并推进已应用的平台端元数据版本
+     *
+     * @param changes 元数据修改
      */
-    private DriverStatusEnum driverStatus = DriverStatusEnum.OFFLINE;
+    public void updateDriverMetadata(Consumer<MetadataDraft> changes) {
+        synchronized (this.metadataWriteLock) {
+            MetadataSnapshot current = this.metadataSnapshot.get();
+            MetadataDraft draft = new MetadataDraft(current);
+            changes.accept(draft);
+            MetadataSnapshot next = draft.build();
+            if (next != current) {
+                this.metadataSnapshot.set(next);
+            }
+        }
+    }
 
     /**
-     * 驱动 元数据，当且仅当驱动注册成功之后由 Manager 返回
+     * 获取读计划，元数据快照未变更时直接返回已构建的读计划
+     *
+     * @return ReadPlan
+     */
+    public ReadPlan getReadPlan() {
+        ReadPlan plan = this.readPlan;
+        if (plan.getVersion() == getMetadataSnapshot().getVersion()) {
+            return plan;
+        }
+
+        synchronized (this.metadataSnapshot) {
+            MetadataSnapshot snapshot = getMetadataSnapshot();
+            plan = this.readPlan;
+            if (plan.getVersion() != snapshot.getVersion()) {
+                plan = ReadPlan.build(snapshot.getVersion(), snapshot.getDriverMetadata(), snapshot.getDevicePointMap(), getIntervalAttribute(), getDeadbandConfig());
+                this.readPlan = plan;
+                log.debug("Rebuild read plan, version: {}, targets: {}", snapshot.getVersion(), plan.getTargets().length);
+            }
+            return plan;
+        }
+    }
+
+    /**
+     * 获取采集周期位号属性名称，未启用位号独立采集周期时返回 null
+     *
+     * @return 位号属性名称
      */
-    private DriverMetadata driverMetadata = new DriverMetadata();
+    private String getIntervalAttribute() {
+        if (ObjectUtil.isNull(this.driverProperty) || ObjectUtil.isNull(this.driverProperty.getSchedule())) {
+            return null;
+        }
+
+        ScheduleProperty.IntervalConfig interval = this.driverProperty.getSchedule().getInterval();
+        if (ObjectUtil.isNull(interval) || !Boolean.TRUE.equals(interval.getEnable())) {
+            return null;
+        }
+        return interval.getAttribute();
+    }
+
+    /**
+     * 获取死区过滤配置，未启用死区过滤时返回 null
+     *
+     * @return 死区过滤配置
+     */
+    private SenderProperty.DeadbandConfig getDeadbandConfig() {
+        if (ObjectUtil.isNull(this.driverProperty) || ObjectUtil.isNull(this.driverProperty.getSender())) {
+            return null;
+        }
+
+        SenderProperty.DeadbandConfig deadband = this.driverProperty.getSender().getDeadband();
+        if (ObjectUtil.isNull(deadband) || !Boolean.TRUE.equals(deadband.getEnable())) {
+            return null;
+        }
+        return deadband;
+    }
 
     /**
      * 根据 设备Id 获取连接设备的驱动配置信息
@@ -62,7 +243,7 @@ public class DriverContext {
      * @return Map String:AttributeInfo
      */
     public Map<String, AttributeInfo> getDriverInfoByDeviceId(String deviceId) {
-        return this.driverMetadata.getDriverInfoMap().get(deviceId);
+        return getDriverMetadata().getDriverInfoMap().get(deviceId);
     }
 
     /**
@@ -72,7 +253,7 @@ public class DriverContext {
      * @return Map String:(Map String:AttributeInfo)
      */
     public Map<String, Map<String, AttributeInfo>> getPointInfoByDeviceId(String deviceId) {
-        Map<String, Map<String, AttributeInfo>> tmpMap = this.driverMetadata.getPointInfoMap().get(deviceId);
+        Map<String, Map<String, AttributeInfo>> tmpMap = getDriverMetadata().getPointInfoMap().get(deviceId);
         if (ObjectUtil.isNull(tmpMap) || tmpMap.size() < 1) {
             throw new NotFoundException("Device({}) does not exist", deviceId);
         }
@@ -101,7 +282,7 @@ public class DriverContext {
      * @return Device
      */
     public Device getDeviceByDeviceId(String deviceId) {
-        Device device = this.driverMetadata.getDeviceMap().get(deviceId);
+        Device device = getDriverMetadata().getDeviceMap().get(deviceId);
         if (ObjectUtil.isNull(device)) {
             throw new NotFoundException("Device({}) does not exist", deviceId);
         }
@@ -115,14 +296,12 @@ public class DriverContext {
      * @return Point Array
      */
     public List<Point> getPointByDeviceId(String deviceId) {
-        Device device = getDeviceByDeviceId(deviceId);
-        return this.driverMetadata.getProfilePointMap().entrySet().stream()
-                .filter(entry -> device.getProfileIds().contains(entry.getKey()))
-                .map(entry -> new ArrayList<>(entry.getValue().values()))
-                .reduce(new ArrayList<>(), (total, temp) -> {
-                    total.addAll(temp);
-                    return total;
-                });
+        Map<String, Point> pointMap = getMetadataSnapshot().getDevicePointMap().get(deviceId);
+        if (ObjectUtil.isNull(pointMap)) {
+            getDeviceByDeviceId(deviceId);
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(pointMap.values());
     }
 
     /**
@@ -133,19 +312,63 @@ public class DriverContext {
      * @return Point
      */
     public Point getPointByDeviceIdAndPointId(String deviceId, String pointId) {
-        // TODO 当设备量很大的时候，建议用本地数据库来存储设备数据，弄个热数据缓存，仅仅把经常使用的数据放到内存中来
-        Device device = getDeviceByDeviceId(deviceId);
-        Optional<Map<String, Point>> optional = this.driverMetadata.getProfilePointMap().entrySet().stream()
-                .filter(entry -> device.getProfileIds().contains(entry.getKey()))
-                .map(Map.Entry::getValue)
-                .filter(entry -> entry.containsKey(pointId))
-                .findFirst();
+        Map<String, Point> pointMap = getMetadataSnapshot().getDevicePointMap().get(deviceId);
+        if (ObjectUtil.isNull(pointMap)) {
+            getDeviceByDeviceId(deviceId);
+            throw new NotFoundException("Point({}) info does not exist", pointId);
+        }
+
+        Point point = pointMap.get(pointId);
+        if (ObjectUtil.isNull(point)) {
+            throw new NotFoundException("Point({}) info does not exist", pointId);
+        }
+        return point;
+    }
 
-        if (optional.isPresent()) {
-            return optional.get().get(pointId);
+    /**
+     * 获取设备位号索引中的位号总数
+     *
+     * @return 位号总数
+     */
+    public int getDevicePointCount() {
+        int count = 0;
+        for (Map<String, Point> pointMap : getMetadataSnapshot().getDevicePointMap().values()) {
+            count += pointMap.size();
         }
+        return count;
+    }
+
+    /**
+     * 根据 模板Id 获取引用该模板的设备ID集合
+     *
+     * @param profileId 模板ID
+     * @return 设备ID集合，不可变
+     */
+    public Set<String> getDeviceIdsByProfileId(String profileId) {
+        Set<String> deviceIds = getMetadataSnapshot().getProfileDeviceMap().get(profileId);
+        return ObjectUtil.isNull(deviceIds) ? Collections.emptySet() : deviceIds;
+    }
+
+    /**
+     * 根据 驱动属性Id 获取配置了该属性的设备ID集合
+     *
+     * @param attributeId 驱动属性ID
+     * @return 设备ID集合，不可变
+     */
+    public Set<String> getDeviceIdsByDriverAttributeId(String attributeId) {
+        Set<String> deviceIds = getMetadataSnapshot().getDriverAttributeConfigMap().get(attributeId);
+        return ObjectUtil.isNull(deviceIds) ? Collections.emptySet() : deviceIds;
+    }
 
-        throw new NotFoundException("Point({}) info does not exist", pointId);
+    /**
+     * 根据 位号属性Id 获取配置了该属性的设备和位号
+     *
+     * @param attributeId 位号属性ID
+     * @return Map deviceId:(pointId 集合)，不可变
+     */
+    public Map<String, Set<String>> getDevicePointIdsByPointAttributeId(String attributeId) {
+        Map<String, Set<String>> devicePointIds = getMetadataSnapshot().getPointAttributeConfigMap().get(attributeId);
+        return ObjectUtil.isNull(devicePointIds) ? Collections.emptyMap() : devicePointIds;
     }
 
 }
@@ -0,0 +1,432 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.codec;
+
+import io.github.pnoker.common.dto.DriverEventDTO;
+import io.github.pnoker.common.entity.DeviceEvent;
+import io.github.pnoker.common.entity.point.PointValue;
+import io.github.pnoker.common.enums.DriverEventTypeEnum;
+import io.github.pnoker.common.enums.DriverStatusEnum;
+import io.github.pnoker.driver.sdk.entity.event.DriverStatusEvent;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 二进制消息编解码器
+ * <p>
+ * 消息以魔数、版本号和记录类型开头，字符串使用变长长度前缀的 UTF-8 编码，
+ * 位号值中的整数和小数分别编码为 ZigZag 变长整数和 (非标度值, 标度)，解码后与原字符串完全一致，
+ * 采集时间和创建时间编码为毫秒时间戳；版本 1 的消息不含时间，仍可解码
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Component
+public class BinaryWireCodec implements WireCodec {
+
+    public static final String NAME = "binary";
+    public static final int VERSION = 2;
+    public static final String CONTENT_TYPE = "application/x-dc3-binary;version=" + VERSION;
+
+    private static final byte MAGIC = (byte) 0xDC;
+    private static final int VERSION_WITHOUT_TIME = 1;
+
+    private static final byte RECORD_POINT_VALUE = 1;
+    private static final byte RECORD_POINT_VALUE_BATCH = 2;
+    private static final byte RECORD_DEVICE_EVENT = 3;
+    private static final byte RECORD_DRIVER_EVENT = 4;
+    private static final byte RECORD_DRIVER_STATUS = 5;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_LONG = 2;
+    private static final byte VALUE_DECIMAL = 3;
+    private static final byte VALUE_TRUE = 4;
+    private static final byte VALUE_FALSE = 5;
+
+    private static final int MAX_DIGITS = 18;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public boolean supports(Object payload) {
+        if (payload instanceof PointValue || payload instanceof DriverEventDTO || payload instanceof DriverStatusEvent) {
+            return true;
+        }
+        if (payload instanceof DeviceEvent) {
+            Object content = ((DeviceEvent) payload).getContent();
+            return content == null || content instanceof CharSequence || content instanceof Enum
+                    || content instanceof Number || content instanceof Boolean;
+        }
+        if (payload instanceof List) {
+            for (Object item : (List<?>) payload) {
+                if (!(item instanceof PointValue)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public byte[] encode(Object payload) {
+        Output output = new Output(128);
+        output.writeByte(MAGIC);
+        output.writeByte(VERSION);
+        if (payload instanceof PointValue) {
+            output.writeByte(RECORD_POINT_VALUE);
+            writePointValue(output, (PointValue) payload);
+        } else if (payload instanceof List) {
+            List<?> pointValues = (List<?>) payload;
+            output.writeByte(RECORD_POINT_VALUE_BATCH);
+            output.writeVarInt(pointValues.size());
+            for (Object pointValue : pointValues) {
+                writePointValue(output, (PointValue) pointValue);
+            }
+        } else if (payload instanceof DeviceEvent) {
+            DeviceEvent deviceEvent = (DeviceEvent) payload;
+            output.writeByte(RECORD_DEVICE_EVENT);
+            output.writeString(deviceEvent.getDeviceId());
+            output.writeString(deviceEvent.getType());
+            Object content = deviceEvent.getContent();
+            writeValue(output, content instanceof Enum ? ((Enum<?>) content).name() : content == null ? null : content.toString());
+        } else if (payload instanceof DriverEventDTO) {
+            DriverEventDTO driverEventDTO = (DriverEventDTO) payload;
+            output.writeByte(RECORD_DRIVER_EVENT);
+            output.writeString(driverEventDTO.getType() == null ? null : driverEventDTO.getType().name());
+            output.writeString(driverEventDTO.getContent());
+        } else if (payload instanceof DriverStatusEvent) {
+            DriverStatusEvent driverStatusEvent = (DriverStatusEvent) payload;
+            output.writeByte(RECORD_DRIVER_STATUS);
+            output.writeString(driverStatusEvent.getDriverId());
+            output.writeString(driverStatusEvent.getStatus() == null ? null : driverStatusEvent.getStatus().name());
+        } else {
+            throw new IllegalArgumentException("Unsupported payload type: " + (payload == null ? null : payload.getClass().getName()));
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] body) {
+        Input input = new Input(body);
+        if (input.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Invalid binary message magic");
+        }
+        int version = input.readByte();
+        if (version != VERSION && version != VERSION_WITHOUT_TIME) {
+            throw new IllegalArgumentException("Unsupported binary message version: " + version);
+        }
+
+        byte record = input.readByte();
+        switch (record) {
+            case RECORD_POINT_VALUE:
+                return readPointValue(input, version);
+            case RECORD_POINT_VALUE_BATCH:
+                int size = input.readVarInt();
+                List<PointValue> pointValues = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    pointValues.add(readPointValue(input, version));
+                }
+                return pointValues;
+            case RECORD_DEVICE_EVENT:
+                return new DeviceEvent(input.readString(), input.readString(), readValue(input));
+            case RECORD_DRIVER_EVENT:
+                String type = input.readString();
+                return new DriverEventDTO(type == null ? null : DriverEventTypeEnum.valueOf(type), input.readString());
+            case RECORD_DRIVER_STATUS:
+                String driverId = input.readString();
+                String status = input.readString();
+                return new DriverStatusEvent(driverId, status == null ? null : DriverStatusEnum.valueOf(status));
+            default:
+                throw new IllegalArgumentException("Unsupported binary message record: " + record);
+        }
+    }
+
+    private void writePointValue(Output output, PointValue pointValue) {
+        output.writeString(pointValue.getDeviceId());
+        output.writeString(pointValue.getPointId());
+        writeValue(output, pointValue.getRawValue());
+        writeValue(output, pointValue.getValue());
+        writeTime(output, pointValue.getOriginTime());
+        writeTime(output, pointValue.getCreateTime());
+    }
+
+    private PointValue readPointValue(Input input, int version) {
+        String deviceId = input.readString();
+        String pointId = input.readString();
+        String rawValue = readValue(input);
+        String value = readValue(input);
+        PointValue pointValue = new PointValue(deviceId, pointId, rawValue, value);
+        if (version != VERSION_WITHOUT_TIME) {
+            pointValue.setOriginTime(readTime(input));
+            pointValue.setCreateTime(readTime(input));
+        }
+        return pointValue;
+    }
+
+    /**
+     * 写入时间，毫秒时间戳的 ZigZag 编码加一，0 表示 null
+     *
+     * @param output Output
+     * @param time   时间
+     */
+    private void writeTime(Output output, Date time) {
+        output.writeVarLong(time == null ? 0 : zigZag(time.getTime()) + 1);
+    }
+
+    private Date readTime(Input input) {
+        long time = input.readVarLong();
+        return time == 0 ? null : new Date(unZigZag(time - 1));
+    }
+
+    /**
+     * 按类型写入值，整数和小数写为数值，其余写为字符串
+     *
+     * @param output Output
+     * @param value  值
+     */
+    private void writeValue(Output output, String value) {
+        if (value == null) {
+            output.writeByte(VALUE_NULL);
+        } else if ("true".equals(value)) {
+            output.writeByte(VALUE_TRUE);
+        } else if ("false".equals(value)) {
+            output.writeByte(VALUE_FALSE);
+        } else if (!writeNumber(output, value)) {
+            output.writeByte(VALUE_STRING);
+            output.writeString(value);
+        }
+    }
+
+    /**
+     * 写入可以无损还原为原字符串的十进制数，包括前导零、负零、无整数位和末尾小数点在内的其他格式均返回 false
+     *
+     * @param output Output
+     * @param value  值
+     * @return 是否已写入
+     */
+    private boolean writeNumber(Output output, String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+
+        int length = value.length();
+        int start = value.charAt(0) == '-' ? 1 : 0;
+        if (length == start || length > MAX_DIGITS + 2) {
+            return false;
+        }
+
+        long unscaled = 0;
+        int scale = -1;
+        int digits = 0;
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (scale >= 0 || i == start) {
+                    return false;
+                }
+                scale = 0;
+                continue;
+            }
+            if (c < '0' || c > '9' || ++digits > MAX_DIGITS) {
+                return false;
+            }
+            unscaled = unscaled * 10 + (c - '0');
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+
+        boolean leadingZero = value.charAt(start) == '0' && length > start + 1 && value.charAt(start + 1) != '.';
+        if (scale == 0 || leadingZero || (start == 1 && unscaled == 0)) {
+            return false;
+        }
+
+        long signed = start == 1 ? -unscaled : unscaled;
+        if (scale < 0) {
+            output.writeByte(VALUE_LONG);
+            output.writeVarLong(zigZag(signed));
+        } else {
+            output.writeByte(VALUE_DECIMAL);
+            output.writeVarLong(zigZag(signed));
+            output.writeByte(scale);
+        }
+        return true;
+    }
+
+    private String readValue(Input input) {
+        byte type = input.readByte();
+        switch (type) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_TRUE:
+                return "true";
+            case VALUE_FALSE:
+                return "false";
+            case VALUE_STRING:
+                return input.readString();
+            case VALUE_LONG:
+                return Long.toString(unZigZag(input.readVarLong()));
+            case VALUE_DECIMAL:
+                long unscaled = unZigZag(input.readVarLong());
+                return decimal(unscaled, input.readByte());
+            default:
+                throw new IllegalArgumentException("Unsupported binary value type: " + type);
+        }
+    }
+
+    private String decimal(long unscaled, int scale) {
+        String digits = Long.toString(Math.abs(unscaled));
+        StringBuilder builder = new StringBuilder(digits.length() + scale + 3);
+        if (unscaled < 0) {
+            builder.append('-');
+        }
+        for (int i = digits.length(); i <= scale; i++) {
+            builder.append('0');
+        }
+        builder.append(digits);
+        builder.insert(builder.length() - scale, '.');
+        return builder.toString();
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 可扩容的字节输出
+     */
+    private static final class Output {
+        private byte[] buffer;
+        private int position;
+
+        private Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void ensure(int size) {
+            if (position + size > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + size));
+            }
+        }
+
+        private void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        /**
+         * 写入字符串，长度前缀为 UTF-8 字节数加一，0 表示 null
+         *
+         * @param value 字符串
+         */
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    /**
+     * 字节输入
+     */
+    private static final class Input {
+        private final byte[] buffer;
+        private int position;
+
+        private Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private byte readByte() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Unexpected end of binary message");
+            }
+            return buffer[position++];
+        }
+
+        private int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed binary message varint");
+        }
+
+        private String readString() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > buffer.length - position) {
+                throw new IllegalArgumentException("Unexpected end of binary message");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.codec;
+
+/**
+ * 消息编解码器
+ * <p>
+ * 通过 Content-Type 区分不同编码，注册为 Spring Bean 后可通过 driver.sender.codec 按名称选用，
+ * 不支持的消息内容仍使用默认的 JSON 编码
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public interface WireCodec {
+
+    /**
+     * 编码名称，对应 driver.sender.codec 配置
+     *
+     * @return 名称
+     */
+    String getName();
+
+    /**
+     * 编码对应的 Content-Type，包含编码版本
+     *
+     * @return Content-Type
+     */
+    String getContentType();
+
+    /**
+     * 是否支持编码该消息内容
+     *
+     * @param payload 消息内容
+     * @return boolean
+     */
+    boolean supports(Object payload);
+
+    /**
+     * 编码
+     *
+     * @param payload 消息内容
+     * @return 字节数组
+     */
+    byte[] encode(Object payload);
+
+    /**
+     * 解码
+     *
+     * @param body 字节数组
+     * @return 消息内容
+     */
+    Object decode(byte[] body);
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.codec;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * 按 Content-Type 选择编解码器的消息转换器
+ * <p>
+ * 编解码器支持的消息内容使用编解码器编码，其余消息内容以及其他 Content-Type 的消息交由默认转换器处理
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public class WireMessageConverter implements MessageConverter {
+
+    private final WireCodec codec;
+    private final MessageConverter delegate;
+
+    public WireMessageConverter(WireCodec codec, MessageConverter delegate) {
+        this.codec = codec;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        if (!codec.supports(object)) {
+            return delegate.toMessage(object, messageProperties);
+        }
+
+        byte[] body;
+        try {
+            body = codec.encode(object);
+        } catch (RuntimeException e) {
+            throw new MessageConversionException("Failed to encode message with " + codec.getName() + " codec", e);
+        }
+        messageProperties.setContentType(codec.getContentType());
+        messageProperties.setContentLength(body.length);
+        return new Message(body, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        // Compare without parameters, older encoding versions are still decoded by the codec
+        if (!mimeType(codec.getContentType()).equals(mimeType(message.getMessageProperties().getContentType()))) {
+            return delegate.fromMessage(message);
+        }
+
+        try {
+            return codec.decode(message.getBody());
+        } catch (RuntimeException e) {
+            throw new MessageConversionException("Failed to decode message with " + codec.getName() + " codec", e);
+        }
+    }
+
+    private static String mimeType(String contentType) {
+        if (contentType == null) {
+            return "";
+        }
+        int index = contentType.indexOf(';');
+        return (index < 0 ? contentType : contentType.substring(0, index)).trim();
+    }
+}
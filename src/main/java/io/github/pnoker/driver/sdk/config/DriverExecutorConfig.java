@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.config;
+
+import cn.hutool.core.thread.ThreadUtil;
+import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
+import io.github.pnoker.driver.sdk.entity.property.ExecutorProperty;
+import io.github.pnoker.driver.sdk.support.CountingRejectedHandler;
+import io.github.pnoker.driver.sdk.support.DeviceBulkhead;
+import io.github.pnoker.driver.sdk.support.DriverExecutorLifecycle;
+import io.github.pnoker.driver.sdk.support.LimitedExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.Resource;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 设备读写执行器配置
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+@Configuration
+public class DriverExecutorConfig {
+
+    @Resource
+    private DriverProperty driverProperty;
+
+    /**
+     * 虚拟线程不可用的告警只在启动时输出一次
+     */
+    private final AtomicBoolean virtualFallbackWarned = new AtomicBoolean(false);
+
+    /**
+     * 调度读取执行器，由 {@link DriverExecutorLifecycle} 在停止时限时关闭
+     *
+     * @return ExecutorService
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService driverPollingExecutor() {
+        ExecutorProperty property = driverProperty.getExecutor();
+        ExecutorService executor = virtualExecutor("polling", property.getPolling());
+        if (executor != null) {
+            return executor;
+        }
+        return newThreadPool("polling", property.getPolling());
+    }
+
+    /**
+     * 指令读写执行器，由 {@link DriverExecutorLifecycle} 在停止时限时关闭
+     *
+     * @return ExecutorService
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService driverCommandExecutor() {
+        ExecutorProperty property = driverProperty.getExecutor();
+        ExecutorService executor = virtualExecutor("command", property.getCommand());
+        if (executor != null) {
+            return executor;
+        }
+        return newThreadPool("command", property.getCommand());
+    }
+
+    /**
+     * 消息发送执行器，由 {@link DriverExecutorLifecycle} 在设备读写执行器之后限时关闭
+     *
+     * @return ThreadPoolExecutor
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor driverPublishExecutor() {
+        return newThreadPool("publish", driverProperty.getExecutor().getPublish());
+    }
+
+    /**
+     * 设备隔离舱，限制每个设备和每个主机上的并发操作数，以及每个设备的排队操作数
+     *
+     * @return DeviceBulkhead
+     */
+    @Bean
+    public DeviceBulkhead driverBulkhead() {
+        ExecutorProperty property = driverProperty.getExecutor();
+        return new DeviceBulkhead(driverPollingExecutor(), driverCommandExecutor(), property.getDeviceConcurrency(), property.getHostConcurrency(), property.getDeviceQueue());
+    }
+
+    /**
+     * 虚拟线程模式下创建限制并发数的虚拟线程执行器，排队容量和拒绝策略与线程池模式相同
+     *
+     * @param name   执行器名称
+     * @param config 线程池配置
+     * @return ExecutorService，未启用或不支持虚拟线程时返回 null
+     */
+    private ExecutorService virtualExecutor(String name, ExecutorProperty.PoolConfig config) {
+        ExecutorProperty property = driverProperty.getExecutor();
+        if (!ExecutorProperty.ExecutorMode.VIRTUAL.equals(property.getMode())) {
+            return null;
+        }
+
+        ExecutorService executorService = newVirtualThreadExecutor(name);
+        if (executorService == null) {
+            if (virtualFallbackWarned.compareAndSet(false, true)) {
+                log.warn("Driver executor mode is virtual, but virtual threads require JDK 21+ (current: {}), driver executors fall back to platform thread pools", System.getProperty("java.version"));
+            }
+            return null;
+        }
+        log.info("Driver {} executor uses virtual threads, max concurrency: {}, queue: {}, policy: {}", name, property.getMaxConcurrency(), config.getQueue(), config.getPolicy());
+        return new LimitedExecutor(executorService, property.getMaxConcurrency(), name, config.getQueue(), config.getPolicy());
+    }
+
+    /**
+     * 创建有界线程池，拒绝策略记录拒绝次数
+     *
+     * @param name   执行器名称
+     * @param config 线程池配置
+     * @return ThreadPoolExecutor
+     */
+    private ThreadPoolExecutor newThreadPool(String name, ExecutorProperty.PoolConfig config) {
+        int size = Math.max(config.getSize(), 1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                size,
+                size,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(config.getQueue(), 1)),
+                ThreadUtil.newNamedThreadFactory("dc3-driver-" + name + "-", true),
+                new CountingRejectedHandler(name, config.getPolicy())
+        );
+        log.info("Driver {} executor size: {}, queue: {}, policy: {}", name, size, config.getQueue(), config.getPolicy());
+        return executor;
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，兼容 JDK 21 以下的运行环境
+     *
+     * @return ExecutorService，不支持虚拟线程时返回 null
+     */
+    private ExecutorService newVirtualThreadExecutor(String name) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "dc3-driver-" + name + "-virtual-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+}
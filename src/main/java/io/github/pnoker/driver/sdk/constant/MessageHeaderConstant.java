@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.constant;
+
+import io.github.pnoker.common.constant.common.ExceptionConstant;
+
+/**
+ * 驱动消息头相关常量
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public class MessageHeaderConstant {
+
+    private MessageHeaderConstant() {
+        throw new IllegalStateException(ExceptionConstant.UTILITY_CLASS);
+    }
+
+    /**
+     * 批量位号值消息头，值为本批位号值数量
+     */
+    public static final String POINT_VALUE_BATCH = "dc3-point-value-batch";
+
+    /**
+     * 元数据版本消息头，驱动注册时为驱动已应用的版本，同步和变更消息中为消息对应的版本
+     */
+    public static final String METADATA_VERSION = "dc3-metadata-version";
+
+    /**
+     * 元数据增量同步的基准版本消息头，仅当驱动已应用的版本与之相同时才能应用增量
+     */
+    public static final String METADATA_BASE_VERSION = "dc3-metadata-base-version";
+
+    /**
+     * 元数据同步类型消息头，值为 full 或 delta，缺省为 full
+     */
+    public static final String METADATA_SYNC_TYPE = "dc3-metadata-sync-type";
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.event;
+
+import io.github.pnoker.common.dto.DriverEventDTO;
+import io.github.pnoker.common.enums.DriverEventTypeEnum;
+import io.github.pnoker.common.enums.DriverStatusEnum;
+import io.github.pnoker.common.utils.JsonUtil;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 驱动状态心跳事件
+ * <p>
+ * 二进制编码直接写入状态字段，JSON 编码时转换为原有的 DriverEventDTO 以保持兼容
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverStatusEvent {
+
+    /**
+     * 驱动ID
+     */
+    private String driverId;
+
+    /**
+     * 驱动状态
+     */
+    private DriverStatusEnum status;
+
+    /**
+     * 转换为 JSON 编码使用的驱动事件
+     *
+     * @return DriverEventDTO
+     */
+    public DriverEventDTO toDriverEventDTO() {
+        DriverEventDTO.DriverStatus driverStatus = new DriverEventDTO.DriverStatus(driverId, status);
+        return new DriverEventDTO(DriverEventTypeEnum.HEARTBEAT, JsonUtil.toJsonString(driverStatus));
+    }
+}
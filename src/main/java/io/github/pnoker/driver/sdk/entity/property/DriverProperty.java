@@ -83,6 +83,36 @@ public class DriverProperty {
      */
     private ScheduleProperty schedule;
 
+    /**
+     * 设备读写执行相关属性
+     */
+    private ExecutorProperty executor = new ExecutorProperty();
+
+    /**
+     * 消息发送相关属性
+     */
+    private SenderProperty sender = new SenderProperty();
+
+    /**
+     * 驱动指标相关属性
+     */
+    private MetricsProperty metrics = new MetricsProperty();
+
+    /**
+     * 元数据本地快照相关属性
+     */
+    private SnapshotProperty snapshot = new SnapshotProperty();
+
+    /**
+     * 驱动注册相关属性
+     */
+    private RegisterProperty register = new RegisterProperty();
+
+    /**
+     * 元数据变更应用相关属性
+     */
+    private MetadataProperty metadata = new MetadataProperty();
+
     /**
      * 驱动属性
      */
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.property;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 驱动配置文件 driver.executor 字段内容
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutorProperty {
+
+    /**
+     * 设备读写执行模式
+     */
+    private ExecutorMode mode = ExecutorMode.PLATFORM;
+
+    /**
+     * 虚拟线程模式下设备读写的最大并发数
+     */
+    private Integer maxConcurrency = 10000;
+
+    /**
+     * 单个设备的最大并发操作数，超出的操作在设备队列中排队
+     */
+    private Integer deviceConcurrency = 1;
+
+    /**
+     * 单个设备的最大排队操作数，队列已满时拒绝新的操作
+     */
+    private Integer deviceQueue = 1000;
+
+    /**
+     * 单个主机的最大并发操作数，主机由驱动配置信息中的主机属性确定
+     */
+    private Integer hostConcurrency = 8;
+
+    /**
+     * 用于确定设备主机的驱动属性名称，按顺序取第一个存在的属性
+     */
+    private List<String> hostAttributes = new ArrayList<>(Arrays.asList("host", "ip"));
+
+    /**
+     * 调度读取线程池，队列满时丢弃最早排队的读取
+     */
+    private PoolConfig polling = new PoolConfig(16, 10000, RejectPolicy.DROP_OLDEST);
+
+    /**
+     * 指令读写线程池，与调度读取隔离，避免指令排在大量调度读取之后
+     */
+    private PoolConfig command = new PoolConfig(4, 1000, RejectPolicy.CALLER_RUNS);
+
+    /**
+     * 消息发送线程池，单线程时保持发送顺序
+     */
+    private PoolConfig publish = new PoolConfig(1, 10000, RejectPolicy.CALLER_RUNS);
+
+    /**
+     * 停止时等待执行器中任务完成的最长时间，单位毫秒，超时后中断未完成的任务
+     */
+    private Long shutdownTimeout = 10000L;
+
+    /**
+     * 线程池配置
+     *
+     * @author pnoker
+     * @since 2023.4.5
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PoolConfig {
+        /**
+         * 线程数
+         */
+        private Integer size = 4;
+
+        /**
+         * 队列容量，虚拟线程模式下同样限制排队任务数
+         */
+        private Integer queue = 1000;
+
+        /**
+         * 队列满时的拒绝策略
+         */
+        private RejectPolicy policy = RejectPolicy.CALLER_RUNS;
+    }
+
+    /**
+     * 线程池拒绝策略
+     *
+     * @author pnoker
+     * @since 2023.4.5
+     */
+    public enum RejectPolicy {
+        /**
+         * 丢弃最早排队的任务
+         */
+        DROP_OLDEST,
+
+        /**
+         * 在提交线程中运行
+         */
+        CALLER_RUNS,
+
+        /**
+         * 拒绝并丢弃新任务
+         */
+        ABORT
+    }
+
+    /**
+     * 设备读写执行模式
+     *
+     * @author pnoker
+     * @since 2023.4.5
+     */
+    public enum ExecutorMode {
+        /**
+         * 使用有界平台线程池，调度读取和指令读写各自使用独立的线程池，按 polling、command 配置线程数、队列容量和拒绝策略
+         */
+        PLATFORM,
+
+        /**
+         * 使用虚拟线程，并发数受 maxConcurrency 限制，排队容量和拒绝策略同 PLATFORM；需要 JDK 21+，不支持时回退到 PLATFORM
+         */
+        VIRTUAL
+    }
+}
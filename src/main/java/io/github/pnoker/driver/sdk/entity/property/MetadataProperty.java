@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.property;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 驱动配置文件 driver.metadata 字段内容
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetadataProperty {
+
+    /**
+     * 单批次最多应用的元数据变更数量
+     */
+    private Integer batchSize = 1000;
+
+    /**
+     * 收到元数据变更后等待更多变更合并为一批的时间，单位毫秒
+     */
+    private Long linger = 20L;
+
+    /**
+     * 单批次元数据变更数量超过该阈值后不再增量维护索引，批次结束时全量重建
+     */
+    private Integer rebuildThreshold = 5000;
+}
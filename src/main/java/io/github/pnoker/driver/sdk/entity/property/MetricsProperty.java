@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.property;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 驱动配置文件 driver.metrics 字段内容
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsProperty {
+
+    /**
+     * 是否记录驱动指标
+     */
+    private Boolean enable = true;
+
+    /**
+     * 按设备区分的指标最多包含的设备数，超出的设备合并为 other，避免标签基数无限增长
+     */
+    private Integer maxDeviceTags = 100;
+}
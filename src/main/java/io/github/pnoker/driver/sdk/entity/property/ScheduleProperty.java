@@ -39,6 +39,11 @@ public class ScheduleProperty {
      */
     private ScheduleConfig custom;
 
+    /**
+     * 位号独立采集周期配置
+     */
+    private IntervalConfig interval = new IntervalConfig();
+
     /**
      * 驱动调度任务配置
      *
@@ -52,4 +57,35 @@ public class ScheduleProperty {
         private Boolean enable = false;
         private String corn = "* */15 * * * ?";
     }
+
+    /**
+     * 位号独立采集周期配置，由时间轮统一调度
+     *
+     * @author pnoker
+     * @since 2023.4.5
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IntervalConfig {
+        /**
+         * 是否启用位号独立采集周期
+         */
+        private Boolean enable = false;
+
+        /**
+         * 位号属性名称，属性值为该位号的采集周期，单位毫秒，未配置的位号仍按 read.corn 采集
+         */
+        private String attribute = "interval";
+
+        /**
+         * 时间轮刻度，单位毫秒
+         */
+        private Long tick = 100L;
+
+        /**
+         * 时间轮槽数
+         */
+        private Integer wheel = 512;
+    }
 }
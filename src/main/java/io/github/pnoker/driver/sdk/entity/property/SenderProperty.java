@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.property;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 驱动配置文件 driver.sender 字段内容
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SenderProperty {
+
+    /**
+     * 默认 JSON 编码名称
+     */
+    public static final String CODEC_JSON = "json";
+
+    /**
+     * 消息编解码器名称，默认使用 JSON 编码
+     */
+    private String codec = CODEC_JSON;
+
+    /**
+     * 位号值批量发送配置
+     */
+    private BatchConfig batch = new BatchConfig();
+
+    /**
+     * 异步确认发送配置
+     */
+    private ConfirmConfig confirm = new ConfirmConfig();
+
+    /**
+     * 位号值死区过滤配置
+     */
+    private DeadbandConfig deadband = new DeadbandConfig();
+
+    /**
+     * 消息组件不可用时的磁盘存储转发配置
+     */
+    private SpoolConfig spool = new SpoolConfig();
+
+    /**
+     * 位号值批量发送配置，满足任一阈值即发送一批
+     *
+     * @author pnoker
+     * @since 2023.4.5
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchConfig {
+        /**
+         * 是否启用批量发送
+         */
+        private Boolean enable = false;
+
+        /**
+         * 每批最大位号值数量
+         */
+        private Integer size = 500;
+
+        /**
+         * 每批最大估算字节数
+         */
+        private Integer bytes = 256 * 1024;
+
+        /**
+         * 最长等待时间，单位毫秒
+         */
+        private Long linger = 50L;
+    }
+
+    /**
+     * 异步确认发送配置，需同时开启 spring.rabbitmq.publisher-confirm-type=correlated 和 spring.rabbitmq.publisher-returns
+     *
+     * @author pnoker
+     * @since 2023.4.5
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ConfirmConfig {
+        /**
+         * 是否启用异步确认发送，启用时使用开启 Publisher Confirm 和 Returns 的独立连接发送
+         */
+        private Boolean enable = false;
+
+        /**
+         * 待发送队列容量
+         */
+        private Integer capacity = 10000;
+
+        /**
+         * 最大在途未确认消息数量
+         */
+        private Integer window = 256;
+
+        /**
+         * 被 Nack、被退回或确认超时后的最大重试次数
+         */
+        private Integer retry = 3;
+
+        /**
+         * 确认超时时间，单位毫秒
+         */
+        private Long timeout = 5000L;
+
+        /**
+         * 首次重试前的退避时间，单位毫秒，之后每次重试翻倍，退避期间暂停发送
+         */
+        private Long backoff = 200L;
+
+        /**
+         * 最大重试退避时间，单位毫秒
+         */
+        private Long maxBackoff = 5000L;
+    }
+
+    /**
+     * 位号值死区过滤配置，仅上报变化超过死区的位号值，死区从位号配置信息中读取
+     *
+     * @author pnoker
+     * @since 2023.4.5
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DeadbandConfig {
+        /**
+         * 是否启用死区过滤
+         */
+        private Boolean enable = false;
+
+        /**
+         * 绝对死区位号属性名称
+         */
+        private String absoluteAttribute = "deadband";
+
+        /**
+         * 百分比死区位号属性名称
+         */
+        private String percentAttribute = "deadbandPercent";
+
+        /**
+         * 最长静默时间位号属性名称
+         */
+        private String maxSilenceAttribute = "maxSilence";
+
+        /**
+         * 默认最长静默时间，单位毫秒，超过该时间未上报时强制上报，0 表示不强制上报
+         */
+        private Long maxSilence = 60000L;
+    }
+
+    /**
+     * 磁盘存储转发配置，消息组件不可用时消息写入磁盘分段日志，恢复后按顺序补发
+     *
+     * @author pnoker
+     * @since 2023.4.5
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SpoolConfig {
+        /**
+         * 是否启用存储转发
+         */
+        private Boolean enable = false;
+
+        /**
+         * 分段日志目录
+         */
+        private String path = "data/spool";
+
+        /**
+         * 单个段文件大小，单位字节
+         */
+        private Integer segment = 16 * 1024 * 1024;
+
+        /**
+         * 分段日志总大小上限，单位字节，超过时删除最旧的段
+         */
+        private Long size = 1024L * 1024 * 1024;
+
+        /**
+         * 消息保留时长，单位毫秒，0 表示不限制
+         */
+        private Long age = 7L * 24 * 60 * 60 * 1000;
+
+        /**
+         * 每秒最大补发消息数量
+         */
+        private Integer rate = 1000;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.property;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 驱动配置文件 driver.snapshot 字段内容
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotProperty {
+
+    /**
+     * 是否将元数据保存到本地快照，启动时先从快照恢复再与平台端同步
+     */
+    private Boolean enable = false;
+
+    /**
+     * 快照文件目录
+     */
+    private String path = "data/snapshot";
+
+    /**
+     * 元数据变更后延迟保存的时间，单位毫秒，期间的多次变更合并保存
+     */
+    private Long delay = 5000L;
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.read;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 位号死区配置，由位号配置信息解析得到
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Getter
+@AllArgsConstructor
+public class Deadband {
+
+    /**
+     * 绝对死区，数值变化量超过该值时上报
+     */
+    private final double absolute;
+
+    /**
+     * 百分比死区，数值变化量超过上次上报值的该百分比时上报
+     */
+    private final double percent;
+
+    /**
+     * 最长静默时间，单位毫秒，超过该时间未上报时强制上报，0 表示不强制上报
+     */
+    private final long maxSilence;
+
+}
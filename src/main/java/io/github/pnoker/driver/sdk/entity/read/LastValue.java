@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.read;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 位号最近一次读取的值
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Getter
+@AllArgsConstructor
+public class LastValue {
+
+    /**
+     * 设备ID
+     */
+    private final String deviceId;
+
+    /**
+     * 位号ID
+     */
+    private final String pointId;
+
+    /**
+     * 原始值
+     */
+    private final String rawValue;
+
+    /**
+     * 处理值
+     */
+    private final String value;
+
+    /**
+     * 读取时间，毫秒时间戳
+     */
+    private final long timestamp;
+
+    /**
+     * 值质量
+     */
+    private final Quality quality;
+
+    /**
+     * 判断是否为指定时长内读取成功的值
+     *
+     * @param maxAge 最大时长，单位毫秒
+     * @param now    当前毫秒时间戳
+     * @return boolean
+     */
+    public boolean isFresh(long maxAge, long now) {
+        return quality == Quality.GOOD && now - timestamp <= maxAge;
+    }
+
+    /**
+     * 值质量
+     */
+    public enum Quality {
+        /**
+         * 最近一次读取成功
+         */
+        GOOD,
+
+        /**
+         * 最近一次读取失败，值为上一次读取成功的值
+         */
+        BAD
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.read;
+
+import io.github.pnoker.common.entity.driver.AttributeInfo;
+import io.github.pnoker.common.model.Device;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 设备读取分组，同一设备下的全部读取目标
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Getter
+@AllArgsConstructor
+public class ReadGroup {
+
+    /**
+     * 设备
+     */
+    private final Device device;
+
+    /**
+     * 驱动配置信息
+     */
+    private final Map<String, AttributeInfo> driverInfo;
+
+    /**
+     * 读取目标
+     */
+    private final List<ReadTarget> targets;
+
+}
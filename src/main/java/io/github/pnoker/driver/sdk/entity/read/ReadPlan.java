@@ -0,0 +1,245 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.read;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.map.MapUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.ObjectUtil;
+import io.github.pnoker.common.entity.driver.AttributeInfo;
+import io.github.pnoker.common.entity.driver.DriverMetadata;
+import io.github.pnoker.common.model.Device;
+import io.github.pnoker.common.model.Point;
+import io.github.pnoker.driver.sdk.entity.property.SenderProperty;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 读计划，由元数据预编译得到的不可变读取目标数组
+ * <p>
+ * 仅在元数据变更后重新构建，调度任务每次触发时只需遍历数组
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ReadPlan {
+
+    /**
+     * 空读计划
+     */
+    public static final ReadPlan EMPTY = new ReadPlan(-1L, new ReadTarget[0], new ReadGroup[0], new ReadTarget[0], Collections.emptyMap(), Collections.emptyMap());
+
+    /**
+     * 构建读计划时的元数据版本
+     */
+    private final long version;
+
+    /**
+     * 读取目标
+     */
+    private final ReadTarget[] targets;
+
+    /**
+     * 按设备分组的读取目标，仅包含按读任务统一周期采集的位号
+     */
+    private final ReadGroup[] groups;
+
+    /**
+     * 配置了独立采集周期的读取目标，由时间轮调度
+     */
+    private final ReadTarget[] intervalTargets;
+
+    /**
+     * 设备ID -> 设备读取分组，包含设备的全部可读位号
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, ReadGroup> groupMap;
+
+    /**
+     * 设备ID -> (位号ID -> 读取目标)
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Map<String, ReadTarget>> targetMap;
+
+    /**
+     * 根据 设备Id 获取设备读取分组
+     *
+     * @param deviceId 设备ID
+     * @return ReadGroup，设备不存在或没有可读位号时返回 null
+     */
+    public ReadGroup getGroup(String deviceId) {
+        return this.groupMap.get(deviceId);
+    }
+
+    /**
+     * 根据 设备Id 和 位号Id 获取读取目标
+     *
+     * @param deviceId 设备ID
+     * @param pointId  位号ID
+     * @return ReadTarget，设备或位号不存在时返回 null
+     */
+    public ReadTarget getTarget(String deviceId, String pointId) {
+        Map<String, ReadTarget> pointTargetMap = this.targetMap.get(deviceId);
+        return ObjectUtil.isNull(pointTargetMap) ? null : pointTargetMap.get(pointId);
+    }
+
+    /**
+     * 根据驱动元数据和设备位号索引构建读计划
+     *
+     * @param version           元数据版本
+     * @param driverMetadata    DriverMetadata
+     * @param devicePointMap    设备位号索引
+     * @param intervalAttribute 采集周期位号属性名称，为空时全部位号按读任务统一周期采集
+     * @param deadbandConfig    死区过滤配置，为 null 时不解析位号死区
+     * @return ReadPlan
+     */
+    public static ReadPlan build(long version, DriverMetadata driverMetadata, Map<String, Map<String, Point>> devicePointMap, String intervalAttribute, SenderProperty.DeadbandConfig deadbandConfig) {
+        List<ReadTarget> targets = new ArrayList<>();
+        List<ReadTarget> intervalTargets = new ArrayList<>();
+        List<ReadGroup> groups = new ArrayList<>();
+        Map<String, ReadGroup> groupMap = new HashMap<>(16);
+        Map<String, Map<String, ReadTarget>> targetMap = new HashMap<>(16);
+        for (Device device : driverMetadata.getDeviceMap().values()) {
+            Map<String, Point> pointMap = devicePointMap.get(device.getId());
+            Map<String, Map<String, AttributeInfo>> pointInfoMap = driverMetadata.getPointInfoMap().get(device.getId());
+            if (CollUtil.isEmpty(device.getProfileIds()) || MapUtil.isEmpty(pointMap) || ObjectUtil.isNull(pointInfoMap)) {
+                continue;
+            }
+
+            Map<String, AttributeInfo> driverInfo = driverMetadata.getDriverInfoMap().get(device.getId());
+            List<ReadTarget> deviceTargets = new ArrayList<>(pointMap.size());
+            List<ReadTarget> scheduleTargets = new ArrayList<>(pointMap.size());
+            Map<String, ReadTarget> pointTargetMap = new HashMap<>(pointMap.size() * 2);
+            for (Point point : pointMap.values()) {
+                Map<String, AttributeInfo> pointInfo = pointInfoMap.get(point.getId());
+                if (MapUtil.isEmpty(pointInfo)) {
+                    continue;
+                }
+
+                ReadTarget target = new ReadTarget(device, point, driverInfo, pointInfo, interval(pointInfo, intervalAttribute), deadband(pointInfo, deadbandConfig));
+                targets.add(target);
+                deviceTargets.add(target);
+                pointTargetMap.put(point.getId(), target);
+                if (target.getInterval() > 0) {
+                    intervalTargets.add(target);
+                } else {
+                    scheduleTargets.add(target);
+                }
+            }
+
+            if (deviceTargets.isEmpty()) {
+                continue;
+            }
+
+            ReadGroup group = new ReadGroup(device, driverInfo, Collections.unmodifiableList(deviceTargets));
+            groupMap.put(device.getId(), group);
+            targetMap.put(device.getId(), pointTargetMap);
+            if (scheduleTargets.size() == deviceTargets.size()) {
+                groups.add(group);
+            } else if (!scheduleTargets.isEmpty()) {
+                groups.add(new ReadGroup(device, driverInfo, Collections.unmodifiableList(scheduleTargets)));
+            }
+        }
+        return new ReadPlan(version, targets.toArray(new ReadTarget[0]), groups.toArray(new ReadGroup[0]), intervalTargets.toArray(new ReadTarget[0]), groupMap, targetMap);
+    }
+
+    /**
+     * 解析位号独立采集周期
+     *
+     * @param pointInfo         位号配置信息
+     * @param intervalAttribute 采集周期位号属性名称
+     * @return 采集周期，单位毫秒，未配置或配置无效时返回 0
+     */
+    private static long interval(Map<String, AttributeInfo> pointInfo, String intervalAttribute) {
+        if (CharSequenceUtil.isEmpty(intervalAttribute)) {
+            return 0L;
+        }
+
+        AttributeInfo attributeInfo = pointInfo.get(intervalAttribute);
+        if (ObjectUtil.isNull(attributeInfo) || CharSequenceUtil.isBlank(attributeInfo.getValue())) {
+            return 0L;
+        }
+
+        try {
+            return Math.max(Long.parseLong(attributeInfo.getValue().trim()), 0L);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid point interval attribute value: {}", attributeInfo.getValue());
+            return 0L;
+        }
+    }
+
+    /**
+     * 解析位号死区配置
+     *
+     * @param pointInfo      位号配置信息
+     * @param deadbandConfig 死区过滤配置
+     * @return Deadband，未启用死区过滤或位号未配置死区时返回 null
+     */
+    private static Deadband deadband(Map<String, AttributeInfo> pointInfo, SenderProperty.DeadbandConfig deadbandConfig) {
+        if (ObjectUtil.isNull(deadbandConfig)) {
+            return null;
+        }
+
+        double absolute = decimal(pointInfo, deadbandConfig.getAbsoluteAttribute(), 0D);
+        double percent = decimal(pointInfo, deadbandConfig.getPercentAttribute(), 0D);
+        if (absolute <= 0 && percent <= 0) {
+            return null;
+        }
+
+        long defaultMaxSilence = ObjectUtil.isNull(deadbandConfig.getMaxSilence()) ? 0L : deadbandConfig.getMaxSilence();
+        long maxSilence = (long) decimal(pointInfo, deadbandConfig.getMaxSilenceAttribute(), defaultMaxSilence);
+        return new Deadband(Math.max(absolute, 0D), Math.max(percent, 0D), Math.max(maxSilence, 0L));
+    }
+
+    /**
+     * 解析数值类型的位号属性
+     *
+     * @param pointInfo    位号配置信息
+     * @param attribute    位号属性名称
+     * @param defaultValue 未配置或配置无效时的默认值
+     * @return 属性值
+     */
+    private static double decimal(Map<String, AttributeInfo> pointInfo, String attribute, double defaultValue) {
+        if (CharSequenceUtil.isEmpty(attribute)) {
+            return defaultValue;
+        }
+
+        AttributeInfo attributeInfo = pointInfo.get(attribute);
+        if (ObjectUtil.isNull(attributeInfo) || CharSequenceUtil.isBlank(attributeInfo.getValue())) {
+            return defaultValue;
+        }
+
+        try {
+            return Double.parseDouble(attributeInfo.getValue().trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid point {} attribute value: {}", attribute, attributeInfo.getValue());
+            return defaultValue;
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.read;
+
+import io.github.pnoker.common.entity.driver.AttributeInfo;
+import io.github.pnoker.common.model.Device;
+import io.github.pnoker.common.model.Point;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * 读取目标，预先解析好的设备、位号以及对应的驱动配置和位号配置
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Getter
+@AllArgsConstructor
+public class ReadTarget {
+
+    /**
+     * 设备
+     */
+    private final Device device;
+
+    /**
+     * 位号
+     */
+    private final Point point;
+
+    /**
+     * 驱动配置信息
+     */
+    private final Map<String, AttributeInfo> driverInfo;
+
+    /**
+     * 位号配置信息
+     */
+    private final Map<String, AttributeInfo> pointInfo;
+
+    /**
+     * 位号独立采集周期，单位毫秒，0 表示按读任务统一周期采集
+     */
+    private final long interval;
+
+    /**
+     * 位号死区配置，null 表示每次读取都上报
+     */
+    private final Deadband deadband;
+
+    public ReadTarget(Device device, Point point, Map<String, AttributeInfo> driverInfo, Map<String, AttributeInfo> pointInfo) {
+        this(device, point, driverInfo, pointInfo, 0L, null);
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.sync;
+
+import cn.hutool.core.collection.CollUtil;
+import io.github.pnoker.common.model.Device;
+import io.github.pnoker.common.model.DriverAttribute;
+import io.github.pnoker.common.model.DriverAttributeConfig;
+import io.github.pnoker.common.model.Point;
+import io.github.pnoker.common.model.PointAttribute;
+import io.github.pnoker.common.model.PointAttributeConfig;
+import io.github.pnoker.common.model.Profile;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 元数据增量，基准版本之后的全部元数据变更
+ * <p>
+ * 删除的位号只需 id 和 profileId，删除的配置只需 deviceId、pointId 和属性ID
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetadataDelta {
+
+    private List<Profile> upsertProfiles = new ArrayList<>();
+    private List<String> deleteProfiles = new ArrayList<>();
+
+    private List<Point> upsertPoints = new ArrayList<>();
+    private List<Point> deletePoints = new ArrayList<>();
+
+    private List<Device> upsertDevices = new ArrayList<>();
+    private List<String> deleteDevices = new ArrayList<>();
+
+    private List<DriverAttribute> upsertDriverAttributes = new ArrayList<>();
+    private List<String> deleteDriverAttributes = new ArrayList<>();
+
+    private List<PointAttribute> upsertPointAttributes = new ArrayList<>();
+    private List<String> deletePointAttributes = new ArrayList<>();
+
+    private List<DriverAttributeConfig> upsertDriverInfos = new ArrayList<>();
+    private List<DriverAttributeConfig> deleteDriverInfos = new ArrayList<>();
+
+    private List<PointAttributeConfig> upsertPointInfos = new ArrayList<>();
+    private List<PointAttributeConfig> deletePointInfos = new ArrayList<>();
+
+    /**
+     * 获取变更总数
+     *
+     * @return 变更总数
+     */
+    public int size() {
+        return CollUtil.size(upsertProfiles) + CollUtil.size(deleteProfiles)
+                + CollUtil.size(upsertPoints) + CollUtil.size(deletePoints)
+                + CollUtil.size(upsertDevices) + CollUtil.size(deleteDevices)
+                + CollUtil.size(upsertDriverAttributes) + CollUtil.size(deleteDriverAttributes)
+                + CollUtil.size(upsertPointAttributes) + CollUtil.size(deletePointAttributes)
+                + CollUtil.size(upsertDriverInfos) + CollUtil.size(deleteDriverInfos)
+                + CollUtil.size(upsertPointInfos) + CollUtil.size(deletePointInfos);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.entity.sync;
+
+import cn.hutool.core.util.ObjectUtil;
+import io.github.pnoker.driver.sdk.constant.MessageHeaderConstant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 元数据同步版本信息，来自同步和变更消息的消息头
+ * <p>
+ * 不带版本消息头的消息来自不支持增量同步的平台端，按全量同步处理
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetadataSync {
+
+    /**
+     * 不带版本信息的全量同步
+     */
+    public static final MetadataSync FULL = new MetadataSync(SyncType.FULL, null, null);
+
+    /**
+     * 同步类型
+     */
+    private SyncType type = SyncType.FULL;
+
+    /**
+     * 消息对应的元数据版本，为 null 时表示未携带版本
+     */
+    private Long version;
+
+    /**
+     * 增量同步的基准版本
+     */
+    private Long baseVersion;
+
+    /**
+     * 是否为增量同步
+     *
+     * @return boolean
+     */
+    public boolean isDelta() {
+        return SyncType.DELTA.equals(type);
+    }
+
+    /**
+     * 从消息头中解析元数据同步版本信息
+     *
+     * @param headers 消息头
+     * @return MetadataSync
+     */
+    public static MetadataSync fromHeaders(Map<String, Object> headers) {
+        if (ObjectUtil.isNull(headers)) {
+            return FULL;
+        }
+
+        Long version = toLong(headers.get(MessageHeaderConstant.METADATA_VERSION));
+        Long baseVersion = toLong(headers.get(MessageHeaderConstant.METADATA_BASE_VERSION));
+        Object type = headers.get(MessageHeaderConstant.METADATA_SYNC_TYPE);
+        boolean delta = ObjectUtil.isNotNull(type) && SyncType.DELTA.name().equalsIgnoreCase(type.toString());
+        return new MetadataSync(delta ? SyncType.DELTA : SyncType.FULL, version, baseVersion);
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (ObjectUtil.isNull(value)) {
+            return null;
+        }
+
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 元数据同步类型
+     *
+     * @author pnoker
+     * @since 2023.4.5
+     */
+    public enum SyncType {
+        /**
+         * 全量同步，消息内容为 DriverMetadata
+         */
+        FULL,
+
+        /**
+         * 增量同步，消息内容为 MetadataDelta
+         */
+        DELTA
+    }
+}
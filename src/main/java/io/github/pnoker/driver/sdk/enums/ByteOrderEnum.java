@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.enums;
+
+/**
+ * 多字节数值的字节序，以 32 位数值的四个字节 A(最高位) B C D(最低位) 在报文中的排列表示
+ * <p>
+ * 16 位数值取前两个字母，64 位数值按相同规则以 16 位字为单位扩展，例如 CDAB 对应 GHEFCDAB
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public enum ByteOrderEnum {
+
+    /**
+     * 大端
+     */
+    ABCD,
+
+    /**
+     * 字交换，字内大端
+     */
+    CDAB,
+
+    /**
+     * 字节交换，字内小端
+     */
+    BADC,
+
+    /**
+     * 小端
+     */
+    DCBA;
+
+    /**
+     * 获取字节位置掩码，大端顺序的第 i 个字节位于报文的 i ^ mask 处
+     *
+     * @param size 数值字节数，2、4 或 8
+     * @return 掩码
+     */
+    public int mask(int size) {
+        switch (this) {
+            case CDAB:
+                return size - 2;
+            case BADC:
+                return 1;
+            case DCBA:
+                return size - 1;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.service;
+
+import io.github.pnoker.common.entity.driver.AttributeInfo;
+
+import java.util.Map;
+
+/**
+ * 属性绑定服务
+ * <p>
+ * 将设备的驱动配置和位号配置一次性转换为驱动声明的类型化配置对象并缓存，元数据变更后失效，
+ * 读写路径上无需再通过 DriverUtil.attribute 逐次查找和转换属性值
+ * <p>
+ * 配置类型可以是带无参构造方法的类，按字段名绑定；也可以是接口，按 getter 方法名绑定。
+ * 绑定结果在多个线程间共享，请勿修改
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public interface DriverAttributeService {
+
+    /**
+     * 根据 设备Id 获取绑定后的驱动配置
+     *
+     * @param deviceId 设备ID
+     * @param type     配置类型
+     * @param <T>      T
+     * @return T
+     */
+    <T> T bindDriverInfo(String deviceId, Class<T> type);
+
+    /**
+     * 根据 设备Id 和 位号Id 获取绑定后的位号配置
+     *
+     * @param deviceId 设备ID
+     * @param pointId  位号ID
+     * @param type     配置类型
+     * @param <T>      T
+     * @return T
+     */
+    <T> T bindPointInfo(String deviceId, String pointId, Class<T> type);
+
+    /**
+     * 将属性配置绑定为配置对象，不缓存
+     *
+     * @param infoMap 属性配置
+     * @param type    配置类型
+     * @param <T>     T
+     * @return T
+     */
+    <T> T bind(Map<String, AttributeInfo> infoMap, Class<T> type);
+
+    /**
+     * 新增、更新或删除设备后，移除该设备的全部绑定
+     *
+     * @param deviceId 设备ID
+     */
+    void removeDevice(String deviceId);
+
+    /**
+     * 删除位号后，移除全部设备中该位号的绑定
+     *
+     * @param pointId 位号ID
+     */
+    void removePoint(String pointId);
+
+    /**
+     * 驱动配置变更后，移除该设备的驱动配置绑定
+     *
+     * @param deviceId 设备ID
+     */
+    void removeDriverInfo(String deviceId);
+
+    /**
+     * 位号配置变更后，移除该设备位号的位号配置绑定
+     *
+     * @param deviceId 设备ID
+     * @param pointId  位号ID
+     */
+    void removePointInfo(String deviceId, String pointId);
+
+}
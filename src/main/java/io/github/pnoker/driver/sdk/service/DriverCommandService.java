@@ -18,6 +18,10 @@ package io.github.pnoker.driver.sdk.service;
 
 import io.github.pnoker.common.dto.DeviceCommandDTO;
 import io.github.pnoker.common.entity.point.PointValue;
+import io.github.pnoker.driver.sdk.entity.read.ReadGroup;
+import io.github.pnoker.driver.sdk.entity.read.ReadTarget;
+
+import java.util.List;
 
 /**
  * 驱动指令服务
@@ -36,6 +40,43 @@ public interface DriverCommandService {
      */
     PointValue read(String deviceId, String pointId);
 
+    /**
+     * 读取预先解析好的读取目标位号值
+     *
+     * @param target {@link ReadTarget}
+     * @return 位号值
+     */
+    PointValue read(ReadTarget target);
+
+    /**
+     * 批量读取同一设备下的位号值，并作为一组发送
+     *
+     * @param group {@link ReadGroup}
+     * @return 位号值集合
+     */
+    List<PointValue> read(ReadGroup group);
+
+    /**
+     * 提交设备分组的异步读取，同一位号同一时刻最多只有一个在途读取，仍在读取中的位号本次跳过
+     *
+     * @param group {@link ReadGroup}
+     */
+    void submitRead(ReadGroup group);
+
+    /**
+     * 获取因上一次读取尚未完成而跳过的位号读取次数
+     *
+     * @return 跳过次数
+     */
+    long getSkippedReadCount();
+
+    /**
+     * 获取因设备读取慢于调度周期而发生跳过的分组提交次数
+     *
+     * @return 过载次数
+     */
+    long getOverrunReadCount();
+
     /**
      * 指令读取位号值
      *
@@ -19,7 +19,11 @@ package io.github.pnoker.driver.sdk.service;
 import io.github.pnoker.common.entity.driver.AttributeInfo;
 import io.github.pnoker.common.model.Device;
 import io.github.pnoker.common.model.Point;
+import io.github.pnoker.driver.sdk.entity.read.ReadTarget;
+import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -50,6 +54,38 @@ public interface DriverCustomService {
      */
     String read(Map<String, AttributeInfo> driverInfo, Map<String, AttributeInfo> pointInfo, Device device, Point point);
 
+    /**
+     * 批量读操作，一次读取同一设备下的多个位号
+     * <p>
+     * 默认逐个调用 read 接口，读取异常的位号会被跳过，每次调用每个设备最多记录一条告警；支持批量读取的设备协议可以重写该接口以减少与设备的交互次数
+     *
+     * @param driverInfo Driver Attribute Info
+     * @param device     Device
+     * @param targets    同一设备下的读取目标，包含位号及其位号配置信息
+     * @return Map 位号ID:String Value，读取失败的位号不包含在结果中
+     */
+    default Map<String, String> batchRead(Map<String, AttributeInfo> driverInfo, Device device, List<ReadTarget> targets) {
+        Map<String, String> values = new HashMap<>(targets.size() * 4 / 3 + 1);
+        int failed = 0;
+        String firstPointId = null;
+        String firstError = null;
+        for (ReadTarget target : targets) {
+            try {
+                values.put(target.getPoint().getId(), read(driverInfo, target.getPointInfo(), device, target.getPoint()));
+            } catch (Exception e) {
+                // The point is skipped and marked bad by the caller, one warning per device is logged below
+                if (failed++ == 0) {
+                    firstPointId = target.getPoint().getId();
+                    firstError = e.getMessage();
+                }
+            }
+        }
+        if (failed > 0) {
+            LoggerFactory.getLogger(DriverCustomService.class).warn("Read {}/{} points of device({}) failed, first point({}) error: {}", failed, targets.size(), device.getId(), firstPointId, firstError);
+        }
+        return values;
+    }
+
     /**
      * 写操作，请灵活运行，有些类型设备不一定能直接写入数据
      *
@@ -18,6 +18,8 @@ package io.github.pnoker.driver.sdk.service;
 
 import io.github.pnoker.common.model.*;
 
+import java.util.function.LongUnaryOperator;
+
 /**
  * @author pnoker
  * @since 2022.1.0
@@ -97,4 +99,47 @@ public interface DriverMetadataTempService {
      * @param attributeId Attribute ID
      */
     void deletePointInfo(String deviceId, String pointId, String attributeId);
+
+    /**
+     * 新增或更新驱动属性，属性名称或类型变更时同步更新引用该属性的驱动配置信息
+     *
+     * @param driverAttribute DriverAttribute
+     */
+    void upsertDriverAttribute(DriverAttribute driverAttribute);
+
+    /**
+     * 删除驱动属性，并删除引用该属性的驱动配置信息
+     *
+     * @param id Attribute ID
+     */
+    void deleteDriverAttribute(String id);
+
+    /**
+     * 新增或更新位号属性，属性名称或类型变更时同步更新引用该属性的位号配置信息
+     *
+     * @param pointAttribute PointAttribute
+     */
+    void upsertPointAttribute(PointAttribute pointAttribute);
+
+    /**
+     * 删除位号属性，并删除引用该属性的位号配置信息
+     *
+     * @param id Attribute ID
+     */
+    void deletePointAttribute(String id);
+
+    /**
+     * 批量应用元数据变更，批次内不再逐条维护设备位号索引和读计划，批次结束后统一重建一次
+     *
+     * @param changes 元数据变更
+     */
+    void batch(Runnable changes);
+
+    /**
+     * 批量应用带版本的元数据变更，版本检查、变更应用和版本推进在同一次元数据写锁内完成，
+     * 不会与全量同步、增量同步或其他批次交错
+     *
+     * @param changes 元数据变更，参数为已应用的平台端元数据版本，返回应用后的版本
+     */
+    void batch(LongUnaryOperator changes);
 }
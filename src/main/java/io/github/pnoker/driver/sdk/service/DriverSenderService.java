@@ -20,6 +20,7 @@ import io.github.pnoker.common.dto.DriverEventDTO;
 import io.github.pnoker.common.entity.DeviceEvent;
 import io.github.pnoker.common.entity.point.PointValue;
 import io.github.pnoker.common.enums.DeviceStatusEnum;
+import io.github.pnoker.common.enums.DriverStatusEnum;
 
 import java.util.List;
 
@@ -36,6 +37,14 @@ public interface DriverSenderService {
      */
     void driverEventSender(DriverEventDTO entityDTO);
 
+    /**
+     * 发送驱动状态心跳事件
+     *
+     * @param driverId 驱动ID
+     * @param status   DriverStatusEnum
+     */
+    void driverStatusSender(String driverId, DriverStatusEnum status);
+
     /**
      * 发送设备事件
      *
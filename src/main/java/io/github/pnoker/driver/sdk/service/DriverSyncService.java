@@ -17,6 +17,7 @@
 package io.github.pnoker.driver.sdk.service;
 
 import io.github.pnoker.common.dto.DriverSyncDownDTO;
+import io.github.pnoker.driver.sdk.entity.sync.MetadataSync;
 
 /**
  * 驱动同步相关接口
@@ -37,4 +38,17 @@ public interface DriverSyncService {
      * @param entityDTO DriverSyncDTO
      */
     void down(DriverSyncDownDTO entityDTO);
+
+    /**
+     * 同步平台端信息到驱动，根据版本信息应用全量或增量元数据，增量无法应用时请求全量同步
+     *
+     * @param entityDTO DriverSyncDTO
+     * @param sync      MetadataSync
+     */
+    void down(DriverSyncDownDTO entityDTO, MetadataSync sync);
+
+    /**
+     * 请求平台端重新下发全量元数据
+     */
+    void resync();
 }
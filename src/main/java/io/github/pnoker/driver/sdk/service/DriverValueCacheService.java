@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.service;
+
+import io.github.pnoker.common.entity.point.PointValue;
+import io.github.pnoker.driver.sdk.entity.read.LastValue;
+
+import java.util.Map;
+
+/**
+ * 位号最近值缓存服务
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public interface DriverValueCacheService {
+
+    /**
+     * 记录读取成功的位号值
+     *
+     * @param pointValue PointValue
+     */
+    void update(PointValue pointValue);
+
+    /**
+     * 记录位号读取失败，保留上一次读取成功的值
+     *
+     * @param deviceId 设备ID
+     * @param pointId  位号ID
+     */
+    void markBad(String deviceId, String pointId);
+
+    /**
+     * 根据 设备Id 和 位号Id 获取位号最近值
+     *
+     * @param deviceId 设备ID
+     * @param pointId  位号ID
+     * @return LastValue，未读取过时返回 null
+     */
+    LastValue get(String deviceId, String pointId);
+
+    /**
+     * 根据 设备Id 获取设备全部位号最近值
+     *
+     * @param deviceId 设备ID
+     * @return Map String:LastValue，pointId 为 Key
+     */
+    Map<String, LastValue> get(String deviceId);
+
+    /**
+     * 获取全部位号最近值快照
+     *
+     * @return Map String:(Map String:LastValue)，deviceId 和 pointId 为 Key
+     */
+    Map<String, Map<String, LastValue>> snapshot();
+
+    /**
+     * 删除设备后，移除该设备的最近值
+     *
+     * @param deviceId 设备ID
+     */
+    void removeDevice(String deviceId);
+
+    /**
+     * 删除位号后，移除全部设备中该位号的最近值
+     *
+     * @param pointId 位号ID
+     */
+    void removePoint(String pointId);
+
+}
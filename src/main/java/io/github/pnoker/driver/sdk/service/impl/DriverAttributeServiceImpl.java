@@ -0,0 +1,294 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.service.impl;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.ObjectUtil;
+import io.github.pnoker.common.entity.driver.AttributeInfo;
+import io.github.pnoker.common.exception.ServiceException;
+import io.github.pnoker.driver.sdk.DriverContext;
+import io.github.pnoker.driver.sdk.service.DriverAttributeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 属性绑定服务
+ * <p>
+ * 配置对象的属性值在绑定时由 hutool Convert 一次性转换，与 DriverUtil.attribute 的转换规则一致；
+ * 缓存失效时移除整个子 Map，正在绑定的线程只会写入已被移除的子 Map，不会留下过期的绑定结果
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+@Service
+public class DriverAttributeServiceImpl implements DriverAttributeService {
+
+    @Resource
+    private DriverContext driverContext;
+
+    /**
+     * 配置类型 -> 绑定规则
+     */
+    private final Map<Class<?>, Binding> bindingMap = new ConcurrentHashMap<>(16);
+
+    /**
+     * deviceId -> (配置类型 -> 驱动配置对象)
+     */
+    private final Map<String, Map<Class<?>, Object>> driverInfoMap = new ConcurrentHashMap<>(16);
+
+    /**
+     * deviceId -> (pointId -> (配置类型 -> 位号配置对象))
+     */
+    private final Map<String, Map<String, Map<Class<?>, Object>>> pointInfoMap = new ConcurrentHashMap<>(16);
+
+    /**
+     * 缓存对应的驱动元数据全量替换次数，元数据全量同步后清空缓存
+     */
+    private volatile long boundGeneration = -1L;
+
+    @Override
+    public <T> T bindDriverInfo(String deviceId, Class<T> type) {
+        checkMetadata();
+        Map<Class<?>, Object> typeMap = driverInfoMap.get(deviceId);
+        if (ObjectUtil.isNull(typeMap)) {
+            typeMap = driverInfoMap.computeIfAbsent(deviceId, k -> new ConcurrentHashMap<>(4));
+        }
+
+        Object config = typeMap.get(type);
+        if (ObjectUtil.isNull(config)) {
+            config = typeMap.computeIfAbsent(type, k -> bind(driverContext.getDriverInfoByDeviceId(deviceId), type));
+        }
+        return type.cast(config);
+    }
+
+    @Override
+    public <T> T bindPointInfo(String deviceId, String pointId, Class<T> type) {
+        checkMetadata();
+        Map<String, Map<Class<?>, Object>> devicePointMap = pointInfoMap.get(deviceId);
+        if (ObjectUtil.isNull(devicePointMap)) {
+            devicePointMap = pointInfoMap.computeIfAbsent(deviceId, k -> new ConcurrentHashMap<>(16));
+        }
+
+        Map<Class<?>, Object> typeMap = devicePointMap.get(pointId);
+        if (ObjectUtil.isNull(typeMap)) {
+            typeMap = devicePointMap.computeIfAbsent(pointId, k -> new ConcurrentHashMap<>(4));
+        }
+
+        Object config = typeMap.get(type);
+        if (ObjectUtil.isNull(config)) {
+            config = typeMap.computeIfAbsent(type, k -> bind(driverContext.getPointInfoByDeviceIdAndPointId(deviceId, pointId), type));
+        }
+        return type.cast(config);
+    }
+
+    @Override
+    public <T> T bind(Map<String, AttributeInfo> infoMap, Class<T> type) {
+        Binding binding = bindingMap.computeIfAbsent(type, Binding::new);
+        return type.cast(binding.bind(ObjectUtil.isNull(infoMap) ? Collections.emptyMap() : infoMap));
+    }
+
+    @Override
+    public void removeDevice(String deviceId) {
+        driverInfoMap.remove(deviceId);
+        pointInfoMap.remove(deviceId);
+    }
+
+    @Override
+    public void removePoint(String pointId) {
+        pointInfoMap.values().forEach(devicePointMap -> devicePointMap.remove(pointId));
+    }
+
+    @Override
+    public void removeDriverInfo(String deviceId) {
+        driverInfoMap.remove(deviceId);
+    }
+
+    @Override
+    public void removePointInfo(String deviceId, String pointId) {
+        Map<String, Map<Class<?>, Object>> devicePointMap = pointInfoMap.get(deviceId);
+        if (ObjectUtil.isNotNull(devicePointMap)) {
+            devicePointMap.remove(pointId);
+        }
+    }
+
+    /**
+     * 驱动元数据被整体替换后清空全部绑定
+     */
+    private void checkMetadata() {
+        long generation = driverContext.getMetadataGeneration();
+        if (generation == boundGeneration) {
+            return;
+        }
+
+        synchronized (this) {
+            if (generation != boundGeneration) {
+                driverInfoMap.clear();
+                pointInfoMap.clear();
+                boundGeneration = generation;
+            }
+        }
+    }
+
+    /**
+     * 配置类型的绑定规则，按类型解析一次
+     */
+    private static class Binding {
+
+        private final Class<?> type;
+        private final Constructor<?> constructor;
+        private final List<Property> properties = new ArrayList<>();
+
+        Binding(Class<?> type) {
+            this.type = type;
+            if (type.isInterface()) {
+                this.constructor = null;
+                for (Method method : type.getMethods()) {
+                    if (method.getParameterCount() == 0 && !method.isDefault() && !Modifier.isStatic(method.getModifiers()) && method.getReturnType() != void.class) {
+                        properties.add(new Property(propertyName(method.getName()), method.getReturnType(), null, method));
+                    }
+                }
+                return;
+            }
+
+            try {
+                this.constructor = type.getDeclaredConstructor();
+                this.constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                throw new ServiceException(CharSequenceUtil.format("Attribute config type({}) requires a no-arg constructor", type.getName()));
+            }
+            for (Class<?> clazz = type; ObjectUtil.isNotNull(clazz) && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    properties.add(new Property(field.getName(), field.getType(), field, null));
+                }
+            }
+        }
+
+        Object bind(Map<String, AttributeInfo> infoMap) {
+            return type.isInterface() ? bindInterface(infoMap) : bindClass(infoMap);
+        }
+
+        private Object bindClass(Map<String, AttributeInfo> infoMap) {
+            try {
+                Object config = constructor.newInstance();
+                for (Property property : properties) {
+                    Object value = property.convert(infoMap);
+                    if (ObjectUtil.isNotNull(value)) {
+                        property.field.set(config, value);
+                    }
+                }
+                return config;
+            } catch (ReflectiveOperationException e) {
+                throw new ServiceException(e.getMessage(), e);
+            }
+        }
+
+        private Object bindInterface(Map<String, AttributeInfo> infoMap) {
+            Map<Method, Object> values = new HashMap<>(properties.size() * 2);
+            for (Property property : properties) {
+                Object value = property.convert(infoMap);
+                if (ObjectUtil.isNull(value) && property.type.isPrimitive()) {
+                    // Primitive getters must not return null from the proxy
+                    value = Array.get(Array.newInstance(property.type, 1), 0);
+                }
+                values.put(property.method, value);
+            }
+
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (method.getDeclaringClass() == Object.class) {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return type.getSimpleName() + values.values();
+                    }
+                }
+                return values.get(method);
+            });
+        }
+
+        /**
+         * 获取 getter 方法对应的属性名称，getHost/isEnable/host 分别对应 host/enable/host
+         */
+        private static String propertyName(String methodName) {
+            if (methodName.length() > 3 && methodName.startsWith("get")) {
+                return CharSequenceUtil.lowerFirst(methodName.substring(3));
+            }
+            if (methodName.length() > 2 && methodName.startsWith("is")) {
+                return CharSequenceUtil.lowerFirst(methodName.substring(2));
+            }
+            return methodName;
+        }
+    }
+
+    /**
+     * 配置属性
+     */
+    private static class Property {
+
+        private final String name;
+        private final Class<?> type;
+        private final Field field;
+        private final Method method;
+
+        Property(String name, Class<?> type, Field field, Method method) {
+            this.name = name;
+            this.type = type;
+            this.field = field;
+            this.method = method;
+        }
+
+        /**
+         * 将属性值转换为属性类型，未配置时返回 null
+         */
+        Object convert(Map<String, AttributeInfo> infoMap) {
+            AttributeInfo attributeInfo = infoMap.get(name);
+            if (ObjectUtil.isNull(attributeInfo) || ObjectUtil.isNull(attributeInfo.getValue())) {
+                return null;
+            }
+
+            try {
+                return Convert.convert(type, attributeInfo.getValue());
+            } catch (Exception e) {
+                throw new ServiceException(CharSequenceUtil.format("Invalid attribute({}) value: {}, {}", name, attributeInfo.getValue(), e.getMessage()));
+            }
+        }
+    }
+
+}
@@ -16,6 +16,7 @@
 
 package io.github.pnoker.driver.sdk.service.impl;
 
+import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.core.util.ObjectUtil;
 import io.github.pnoker.common.constant.common.DefaultConstant;
@@ -23,20 +24,43 @@ import io.github.pnoker.common.dto.DeviceCommandDTO;
 import io.github.pnoker.common.entity.driver.AttributeInfo;
 import io.github.pnoker.common.entity.point.PointValue;
 import io.github.pnoker.common.enums.AttributeTypeFlagEnum;
+import io.github.pnoker.common.exception.NotFoundException;
 import io.github.pnoker.common.exception.ReadPointException;
 import io.github.pnoker.common.exception.ServiceException;
 import io.github.pnoker.common.model.Device;
 import io.github.pnoker.common.model.Point;
 import io.github.pnoker.common.utils.JsonUtil;
 import io.github.pnoker.driver.sdk.DriverContext;
+import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
+import io.github.pnoker.driver.sdk.entity.read.Deadband;
+import io.github.pnoker.driver.sdk.entity.read.LastValue;
+import io.github.pnoker.driver.sdk.entity.read.ReadCommandOption;
+import io.github.pnoker.driver.sdk.entity.read.ReadGroup;
+import io.github.pnoker.driver.sdk.entity.read.ReadTarget;
 import io.github.pnoker.driver.sdk.service.DriverCommandService;
 import io.github.pnoker.driver.sdk.service.DriverCustomService;
 import io.github.pnoker.driver.sdk.service.DriverSenderService;
+import io.github.pnoker.driver.sdk.service.DriverValueCacheService;
+import io.github.pnoker.driver.sdk.support.DeadbandFilter;
+import io.github.pnoker.driver.sdk.support.DeviceBulkhead;
+import io.github.pnoker.driver.sdk.support.DriverMeterBinder;
+import io.github.pnoker.driver.sdk.support.DroppableRunnable;
+import io.github.pnoker.driver.sdk.support.SingleFlight;
 import io.github.pnoker.driver.sdk.utils.ConvertUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author pnoker
@@ -52,19 +76,73 @@ public class DriverCommandServiceImpl implements DriverCommandService {
     private DriverSenderService driverSenderService;
     @Resource
     private DriverCustomService driverCustomService;
+    @Resource
+    private DriverProperty driverProperty;
+    @Resource
+    private DeviceBulkhead driverBulkhead;
+    @Resource
+    private DeadbandFilter deadbandFilter;
+    @Resource
+    private DriverValueCacheService driverValueCacheService;
+    @Resource
+    private DriverMeterBinder driverMeterBinder;
+
+    /**
+     * 在途读取，Key 为 设备ID/位号ID
+     */
+    private final SingleFlight<String, PointValue> readFlight = new SingleFlight<>();
+    private final AtomicLong skippedReadCount = new AtomicLong(0);
+    private final AtomicLong overrunReadCount = new AtomicLong(0);
+    private final AtomicLong droppedReadCount = new AtomicLong(0);
+
+    @PostConstruct
+    public void initial() {
+        driverMeterBinder.register(registry -> {
+            FunctionCounter.builder("dc3.driver.read.skipped", skippedReadCount, AtomicLong::get)
+                    .description("Scheduled point reads skipped because the previous read was still in flight")
+                    .register(registry);
+            FunctionCounter.builder("dc3.driver.read.overrun", overrunReadCount, AtomicLong::get)
+                    .description("Scheduled device reads that overran the previous read")
+                    .register(registry);
+            FunctionCounter.builder("dc3.driver.read.shared", readFlight, SingleFlight::getSharedCount)
+                    .description("Command reads answered by an in-flight read")
+                    .register(registry);
+            FunctionCounter.builder("dc3.driver.read.dropped", droppedReadCount, AtomicLong::get)
+                    .description("Scheduled device reads dropped by the saturated polling executor")
+                    .register(registry);
+            Gauge.builder("dc3.driver.read.inflight", readFlight, SingleFlight::size)
+                    .description("Point reads currently in flight")
+                    .register(registry);
+        });
+    }
 
     @Override
     public PointValue read(String deviceId, String pointId) {
+        // Prefer the planned target, it carries the point deadband
+        ReadTarget target = driverContext.getReadPlan().getTarget(deviceId, pointId);
+        if (ObjectUtil.isNotNull(target)) {
+            return read(target);
+        }
+
         Device device = driverContext.getDeviceByDeviceId(deviceId);
         Point point = driverContext.getPointByDeviceIdAndPointId(deviceId, pointId);
+        return read(new ReadTarget(
+                device,
+                point,
+                driverContext.getDriverInfoByDeviceId(deviceId),
+                driverContext.getPointInfoByDeviceIdAndPointId(deviceId, pointId)
+        ));
+    }
+
+    @Override
+    public PointValue read(ReadTarget target) {
+        Device device = target.getDevice();
+        Point point = target.getPoint();
 
+        PointValue pointValue;
+        long start = System.nanoTime();
         try {
-            String rawValue = driverCustomService.read(
-                    driverContext.getDriverInfoByDeviceId(deviceId),
-                    driverContext.getPointInfoByDeviceIdAndPointId(deviceId, pointId),
-                    device,
-                    driverContext.getPointByDeviceIdAndPointId(deviceId, pointId)
-            );
+            String rawValue = driverCustomService.read(target.getDriverInfo(), target.getPointInfo(), device, point);
 
             if (CharSequenceUtil.isEmpty(rawValue)) {
                 throw new ReadPointException("The read point value is null");
@@ -73,12 +151,131 @@ public class DriverCommandServiceImpl implements DriverCommandService {
                 throw new ReadPointException(CharSequenceUtil.format("The read point value is invalid: {}", rawValue));
             }
 
-            PointValue pointValue = new PointValue(deviceId, pointId, rawValue, ConvertUtil.convertValue(point, rawValue));
-            driverSenderService.pointValueSender(pointValue);
-            return pointValue;
+            pointValue = new PointValue(device.getId(), point.getId(), rawValue, convert(point, rawValue));
+        } catch (Exception e) {
+            driverMeterBinder.recordRead(device.getId(), System.nanoTime() - start, false);
+            driverValueCacheService.markBad(device.getId(), point.getId());
+            throw new ServiceException(e.getMessage(), e);
+        }
+
+        driverMeterBinder.recordRead(device.getId(), System.nanoTime() - start, true);
+        driverValueCacheService.update(pointValue);
+        // The read succeeded, a failed send must not mark the point bad
+        driverSenderService.pointValueSender(pointValue);
+        deadbandFilter.record(target.getDeadband(), pointValue);
+        return pointValue;
+    }
+
+    @Override
+    public List<PointValue> read(ReadGroup group) {
+        return read(group, true);
+    }
+
+    /**
+     * 读取设备分组
+     *
+     * @param group  ReadGroup
+     * @param filter 是否按位号死区过滤上报，不过滤时全部上报并记录为最近一次上报
+     * @return PointValue Array，包含全部读取成功的位号值
+     */
+    private List<PointValue> read(ReadGroup group, boolean filter) {
+        Device device = group.getDevice();
+        Map<String, String> rawValues;
+        long start = System.nanoTime();
+        try {
+            rawValues = driverCustomService.batchRead(group.getDriverInfo(), device, group.getTargets());
+            driverMeterBinder.recordRead(device.getId(), System.nanoTime() - start, true);
         } catch (Exception e) {
+            driverMeterBinder.recordRead(device.getId(), System.nanoTime() - start, false);
+            group.getTargets().forEach(target -> driverValueCacheService.markBad(device.getId(), target.getPoint().getId()));
             throw new ServiceException(e.getMessage(), e);
         }
+
+        List<PointValue> pointValues = new ArrayList<>(group.getTargets().size());
+        List<PointValue> reportValues = new ArrayList<>(group.getTargets().size());
+        for (ReadTarget target : group.getTargets()) {
+            Point point = target.getPoint();
+            String rawValue = rawValues.get(point.getId());
+            if (CharSequenceUtil.isEmpty(rawValue) || DefaultConstant.DEFAULT_VALUE.equals(rawValue)) {
+                log.warn("Read point({}) value of device({}) failed, raw value: {}", point.getId(), device.getId(), rawValue);
+                driverMeterBinder.recordPointError(device.getId());
+                driverValueCacheService.markBad(device.getId(), point.getId());
+                continue;
+            }
+
+            PointValue pointValue;
+            try {
+                pointValue = new PointValue(device.getId(), point.getId(), rawValue, convert(point, rawValue));
+            } catch (Exception e) {
+                log.warn("Convert point({}) value of device({}) failed: {}", point.getId(), device.getId(), e.getMessage());
+                driverMeterBinder.recordPointError(device.getId());
+                driverValueCacheService.markBad(device.getId(), point.getId());
+                continue;
+            }
+
+            driverValueCacheService.update(pointValue);
+            pointValues.add(pointValue);
+            if (!filter) {
+                deadbandFilter.record(target.getDeadband(), pointValue);
+                reportValues.add(pointValue);
+            } else if (deadbandFilter.report(target.getDeadband(), pointValue)) {
+                reportValues.add(pointValue);
+            }
+        }
+
+        driverSenderService.pointValueSender(reportValues);
+        return pointValues;
+    }
+
+    @Override
+    public void submitRead(ReadGroup group) {
+        List<ReadTarget> targets = group.getTargets();
+        List<ReadTarget> claimedTargets = new ArrayList<>(targets.size());
+        Map<String, CompletableFuture<PointValue>> futures = new HashMap<>(targets.size() * 4 / 3 + 1);
+        for (ReadTarget target : targets) {
+            String key = flightKey(group.getDevice().getId(), target.getPoint().getId());
+            CompletableFuture<PointValue> future = readFlight.tryAcquire(key);
+            if (ObjectUtil.isNotNull(future)) {
+                claimedTargets.add(target);
+                futures.put(key, future);
+            }
+        }
+
+        int skipped = targets.size() - claimedTargets.size();
+        if (skipped > 0) {
+            skippedReadCount.addAndGet(skipped);
+            overrunReadCount.incrementAndGet();
+            log.debug("Skip {} point reads of device({}), previous reads are still in flight", skipped, group.getDevice().getId());
+        }
+        if (claimedTargets.isEmpty()) {
+            return;
+        }
+
+        ReadGroup claimedGroup = skipped == 0 ? group : new ReadGroup(group.getDevice(), group.getDriverInfo(), claimedTargets);
+        try {
+            driverBulkhead.execute(group.getDevice().getId(), getHost(group.getDriverInfo()), DroppableRunnable.of(
+                    () -> readClaimed(claimedGroup, futures),
+                    () -> dropClaimed(claimedGroup, futures)
+            ));
+        } catch (RejectedExecutionException e) {
+            // The device queue is full, skip this round without affecting the other devices
+            futures.forEach((key, future) -> readFlight.completeExceptionally(key, future, e));
+            skippedReadCount.addAndGet(claimedTargets.size());
+            log.warn("Skip {} point reads of device({}): {}", claimedTargets.size(), group.getDevice().getId(), e.getMessage());
+        } catch (RuntimeException e) {
+            futures.forEach((key, future) -> readFlight.completeExceptionally(key, future, e));
+            throw e;
+        }
+    }
+
+    @Override
+    public long getSkippedReadCount() {
+        return skippedReadCount.get();
+    }
+
+    @Override
+    public long getOverrunReadCount() {
+        return overrunReadCount.get();
     }
 
     @Override
@@ -89,8 +286,60 @@ public class DriverCommandServiceImpl implements DriverCommandService {
         }
 
         log.info("Start command of read: {}", JsonUtil.toPrettyJsonString(commandDTO));
-        PointValue read = read(deviceRead.getDeviceId(), deviceRead.getPointId());
-        log.info("End command of read: {}", JsonUtil.toPrettyJsonString(read));
+        String deviceId = deviceRead.getDeviceId();
+        ReadCommandOption option = JsonUtil.parseObject(commandDTO.getContent(), ReadCommandOption.class);
+        Long maxAge = ObjectUtil.isNull(option) ? null : option.getMaxAge();
+        if (CharSequenceUtil.isEmpty(deviceRead.getPointId())) {
+            // Read all points of the device as one group
+            ReadGroup group = driverContext.getReadPlan().getGroup(deviceId);
+            if (ObjectUtil.isNull(group)) {
+                throw new NotFoundException("Device({}) has no readable point", deviceId);
+            }
+
+            // Answer from the cache when every point of the device is fresh enough
+            List<PointValue> cached = cached(group, maxAge);
+            if (ObjectUtil.isNotNull(cached)) {
+                driverSenderService.pointValueSender(cached);
+                log.info("End command of read from cache: {}", JsonUtil.toPrettyJsonString(cached));
+                return;
+            }
+            driverBulkhead.executeCommand(deviceId, getHost(group.getDriverInfo()), command(() -> {
+                List<PointValue> read = read(group, false);
+                log.info("End command of read: {}", JsonUtil.toPrettyJsonString(read));
+            }));
+            return;
+        }
+
+        // Answer from the cache when the last value is fresh enough
+        PointValue cached = cached(deviceId, deviceRead.getPointId(), maxAge);
+        if (ObjectUtil.isNotNull(cached)) {
+            driverSenderService.pointValueSender(cached);
+            log.info("End command of read from cache: {}", JsonUtil.toPrettyJsonString(cached));
+            return;
+        }
+
+        // Share the result of an in-flight read of the same point
+        String key = flightKey(deviceId, deviceRead.getPointId());
+        CompletableFuture<PointValue> inflight = readFlight.join(key);
+        if (ObjectUtil.isNotNull(inflight)) {
+            inflight.whenComplete((read, throwable) -> {
+                if (ObjectUtil.isNotNull(throwable)) {
+                    log.error("Command of read error: {}", throwable.getMessage());
+                    return;
+                }
+
+                // The scheduled read may have been suppressed by the deadband, a command read always reports
+                driverSenderService.pointValueSender(read);
+                deadbandFilter.record(getDeadband(read.getDeviceId(), read.getPointId()), read);
+                log.info("End command of read: {}", JsonUtil.toPrettyJsonString(read));
+            });
+            return;
+        }
+
+        driverBulkhead.executeCommand(deviceId, getHost(driverContext.getDriverInfoByDeviceId(deviceId)), command(() -> {
+            PointValue read = readFlight.execute(key, () -> read(deviceId, deviceRead.getPointId()));
+            log.info("End command of read: {}", JsonUtil.toPrettyJsonString(read));
+        }));
     }
 
     @Override
@@ -118,8 +367,170 @@ public class DriverCommandServiceImpl implements DriverCommandService {
         }
 
         log.info("Start command of write: {}", JsonUtil.toPrettyJsonString(commandDTO));
-        Boolean write = write(deviceWrite.getDeviceId(), deviceWrite.getPointId(), deviceWrite.getValue());
-        log.info("End command of write: write {}", write);
+        String deviceId = deviceWrite.getDeviceId();
+        driverBulkhead.executeCommand(deviceId, getHost(driverContext.getDriverInfoByDeviceId(deviceId)), command(() -> {
+            Boolean write = write(deviceId, deviceWrite.getPointId(), deviceWrite.getValue());
+            log.info("End command of write: write {}", write);
+        }));
+    }
+
+    /**
+     * 读取已占用的设备分组，并完成对应的在途读取
+     *
+     * @param group   ReadGroup
+     * @param futures 在途读取
+     */
+    private void readClaimed(ReadGroup group, Map<String, CompletableFuture<PointValue>> futures) {
+        try {
+            List<PointValue> pointValues = read(group);
+            for (PointValue pointValue : pointValues) {
+                String key = flightKey(pointValue.getDeviceId(), pointValue.getPointId());
+                CompletableFuture<PointValue> future = futures.remove(key);
+                if (ObjectUtil.isNotNull(future)) {
+                    readFlight.complete(key, future, pointValue);
+                }
+            }
+
+            ReadPointException exception = new ReadPointException("The read point value is invalid");
+            futures.forEach((key, future) -> readFlight.completeExceptionally(key, future, exception));
+        } catch (Throwable e) {
+            // Release the claimed points on errors as well, they would stay in flight otherwise
+            futures.forEach((key, future) -> readFlight.completeExceptionally(key, future, e));
+            log.error("Read device({}) error: {}", group.getDevice().getId(), e.getMessage());
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    /**
+     * 获取位号在当前读计划中的死区配置
+     *
+     * @param deviceId 设备ID
+     * @param pointId  位号ID
+     * @return Deadband，位号不在读计划中或未配置死区时返回 null
+     */
+    private Deadband getDeadband(String deviceId, String pointId) {
+        ReadTarget target = driverContext.getReadPlan().getTarget(deviceId, pointId);
+        return ObjectUtil.isNull(target) ? null : target.getDeadband();
+    }
+
+    /**
+     * 获取指定时长内读取成功的位号缓存值
+     *
+     * @param deviceId 设备ID
+     * @param pointId  位号ID
+     * @param maxAge   最大时长，单位毫秒，为空时不使用缓存
+     * @return PointValue，没有满足条件的缓存值时返回 null
+     */
+    private PointValue cached(String deviceId, String pointId, Long maxAge) {
+        if (ObjectUtil.isNull(maxAge)) {
+            return null;
+        }
+
+        LastValue lastValue = driverValueCacheService.get(deviceId, pointId);
+        if (ObjectUtil.isNull(lastValue) || !lastValue.isFresh(maxAge, System.currentTimeMillis())) {
+            return null;
+        }
+        return new PointValue(deviceId, pointId, lastValue.getRawValue(), lastValue.getValue());
+    }
+
+    /**
+     * 获取设备分组全部位号在指定时长内读取成功的缓存值
+     *
+     * @param group  ReadGroup
+     * @param maxAge 最大时长，单位毫秒，为空时不使用缓存
+     * @return PointValue Array，任一位号没有满足条件的缓存值时返回 null
+     */
+    private List<PointValue> cached(ReadGroup group, Long maxAge) {
+        if (ObjectUtil.isNull(maxAge)) {
+            return null;
+        }
+
+        List<PointValue> pointValues = new ArrayList<>(group.getTargets().size());
+        for (ReadTarget target : group.getTargets()) {
+            PointValue pointValue = cached(group.getDevice().getId(), target.getPoint().getId(), maxAge);
+            if (ObjectUtil.isNull(pointValue)) {
+                return null;
+            }
+            pointValues.add(pointValue);
+        }
+        return pointValues;
+    }
+
+    /**
+     * 转换位号值，并记录转换耗时
+     *
+     * @param point    Point
+     * @param rawValue 原始值
+     * @return 转换后的值
+     */
+    private String convert(Point point, String rawValue) {
+        long start = System.nanoTime();
+        try {
+            return ConvertUtil.convertValue(point, rawValue);
+        } finally {
+            driverMeterBinder.recordConvert(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 调度读取被执行器丢弃后，完成对应的在途读取
+     *
+     * @param group   ReadGroup
+     * @param futures 在途读取
+     */
+    private void dropClaimed(ReadGroup group, Map<String, CompletableFuture<PointValue>> futures) {
+        droppedReadCount.incrementAndGet();
+        ReadPointException exception = new ReadPointException(CharSequenceUtil.format("Read of device({}) dropped by saturated polling executor", group.getDevice().getId()));
+        futures.forEach((key, future) -> readFlight.completeExceptionally(key, future, exception));
+    }
+
+    /**
+     * 执行设备指令，指令异常只记录日志；指令执行器饱和时指令被拒绝，只记录日志
+     *
+     * @param command 设备指令
+     * @return DroppableRunnable
+     */
+    private DroppableRunnable command(Runnable command) {
+        return DroppableRunnable.of(() -> {
+            try {
+                command.run();
+            } catch (Exception e) {
+                log.error("Command error: {}", e.getMessage(), e);
+            }
+        }, () -> log.error("Command rejected, the command executor is saturated"));
+    }
+
+    /**
+     * 根据驱动配置信息获取设备主机，用于限制同一主机上的并发操作数
+     *
+     * @param driverInfo 驱动配置信息
+     * @return 设备主机，未配置主机属性时返回 null
+     */
+    private String getHost(Map<String, AttributeInfo> driverInfo) {
+        if (MapUtil.isEmpty(driverInfo)) {
+            return null;
+        }
+
+        for (String attribute : driverProperty.getExecutor().getHostAttributes()) {
+            AttributeInfo attributeInfo = driverInfo.get(attribute);
+            if (ObjectUtil.isNotNull(attributeInfo) && CharSequenceUtil.isNotBlank(attributeInfo.getValue())) {
+                return attributeInfo.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在途读取 Key
+     *
+     * @param deviceId 设备ID
+     * @param pointId  位号ID
+     * @return Key
+     */
+    private String flightKey(String deviceId, String pointId) {
+        return deviceId + "/" + pointId;
     }
 
 }
@@ -44,10 +44,10 @@ public class DriverMetadataServiceImpl implements DriverMetadataService {
     public void profileMetadata(DriverMetadataDTO entityDTO) {
         Profile profile = JsonUtil.parseObject(entityDTO.getContent(), Profile.class);
         if (MetadataCommandTypeEnum.ADD.equals(entityDTO.getMetadataCommandType()) || MetadataCommandTypeEnum.UPDATE.equals(entityDTO.getMetadataCommandType())) {
-            log.info("Upsert profile: {}", JsonUtil.toJsonString(profile));
+            log.debug("Upsert profile: {}", profile.getId());
             driverMetadataTempService.upsertProfile(profile);
         } else if (MetadataCommandTypeEnum.DELETE.equals(entityDTO.getMetadataCommandType())) {
-            log.info("Delete profile: {}", JsonUtil.toJsonString(profile));
+            log.debug("Delete profile: {}", profile.getId());
             driverMetadataTempService.deleteProfile(profile.getId());
         }
     }
@@ -56,10 +56,10 @@ public class DriverMetadataServiceImpl implements DriverMetadataService {
     public void deviceMetadata(DriverMetadataDTO entityDTO) {
         Device device = JsonUtil.parseObject(entityDTO.getContent(), Device.class);
         if (MetadataCommandTypeEnum.ADD.equals(entityDTO.getMetadataCommandType()) || MetadataCommandTypeEnum.UPDATE.equals(entityDTO.getMetadataCommandType())) {
-            log.info("Upsert device: {}", JsonUtil.toJsonString(device));
+            log.debug("Upsert device: {}", device.getId());
             driverMetadataTempService.upsertDevice(device);
         } else if (MetadataCommandTypeEnum.DELETE.equals(entityDTO.getMetadataCommandType())) {
-            log.info("Delete device: {}", JsonUtil.toJsonString(device));
+            log.debug("Delete device: {}", device.getId());
             driverMetadataTempService.deleteDevice(device.getId());
         }
     }
@@ -68,10 +68,10 @@ public class DriverMetadataServiceImpl implements DriverMetadataService {
     public void pointMetadata(DriverMetadataDTO entityDTO) {
         Point point = JsonUtil.parseObject(entityDTO.getContent(), Point.class);
         if (MetadataCommandTypeEnum.ADD.equals(entityDTO.getMetadataCommandType()) || MetadataCommandTypeEnum.UPDATE.equals(entityDTO.getMetadataCommandType())) {
-            log.info("Upsert point: {}", JsonUtil.toJsonString(point));
+            log.debug("Upsert point: {}", point.getId());
             driverMetadataTempService.upsertPoint(point);
         } else if (MetadataCommandTypeEnum.DELETE.equals(entityDTO.getMetadataCommandType())) {
-            log.info("Delete point: {}", JsonUtil.toJsonString(point));
+            log.debug("Delete point: {}", point.getId());
             driverMetadataTempService.deletePoint(point.getProfileId(), point.getId());
         }
     }
@@ -80,10 +80,10 @@ public class DriverMetadataServiceImpl implements DriverMetadataService {
     public void driverInfoMetadata(DriverMetadataDTO entityDTO) {
         DriverAttributeConfig driverAttributeConfig = JsonUtil.parseObject(entityDTO.getContent(), DriverAttributeConfig.class);
         if (MetadataCommandTypeEnum.ADD.equals(entityDTO.getMetadataCommandType()) || MetadataCommandTypeEnum.UPDATE.equals(entityDTO.getMetadataCommandType())) {
-            log.info("Upsert driver attribute config: {}", JsonUtil.toJsonString(driverAttributeConfig));
+            log.debug("Upsert driver attribute config: {}", driverAttributeConfig.getId());
             driverMetadataTempService.upsertDriverInfo(driverAttributeConfig);
         } else if (MetadataCommandTypeEnum.DELETE.equals(entityDTO.getMetadataCommandType())) {
-            log.info("Delete driver attribute config: {}", JsonUtil.toJsonString(driverAttributeConfig));
+            log.debug("Delete driver attribute config: {}", driverAttributeConfig.getId());
             driverMetadataTempService.deleteDriverInfo(driverAttributeConfig.getDeviceId(), driverAttributeConfig.getDriverAttributeId());
         }
     }
@@ -92,10 +92,10 @@ public class DriverMetadataServiceImpl implements DriverMetadataService {
     public void pointInfoMetadata(DriverMetadataDTO entityDTO) {
         PointAttributeConfig pointAttributeConfig = JsonUtil.parseObject(entityDTO.getContent(), PointAttributeConfig.class);
         if (MetadataCommandTypeEnum.ADD.equals(entityDTO.getMetadataCommandType()) || MetadataCommandTypeEnum.UPDATE.equals(entityDTO.getMetadataCommandType())) {
-            log.info("Upsert point attribute config: {}", JsonUtil.toJsonString(pointAttributeConfig));
+            log.debug("Upsert point attribute config: {}", pointAttributeConfig.getId());
             driverMetadataTempService.upsertPointInfo(pointAttributeConfig);
         } else if (MetadataCommandTypeEnum.DELETE.equals(entityDTO.getMetadataCommandType())) {
-            log.info("Delete point attribute config: {}", JsonUtil.toJsonString(pointAttributeConfig));
+            log.debug("Delete point attribute config: {}", pointAttributeConfig.getId());
             driverMetadataTempService.deletePointInfo(pointAttributeConfig.getPointId(), pointAttributeConfig.getId(), pointAttributeConfig.getPointAttributeId());
         }
     }
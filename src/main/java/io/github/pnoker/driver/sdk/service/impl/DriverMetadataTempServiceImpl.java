@@ -17,18 +17,34 @@
 package io.github.pnoker.driver.sdk.service.impl;
 
 import cn.hutool.core.util.ObjectUtil;
-import io.github.pnoker.common.entity.driver.AttributeInfo;
 import io.github.pnoker.common.model.*;
 import io.github.pnoker.driver.sdk.DriverContext;
+import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
+import io.github.pnoker.driver.sdk.service.DriverAttributeService;
 import io.github.pnoker.driver.sdk.service.DriverMetadataTempService;
+import io.github.pnoker.driver.sdk.service.DriverValueCacheService;
+import io.github.pnoker.driver.sdk.support.DeadbandFilter;
+import io.github.pnoker.driver.sdk.support.DriverMeterBinder;
+import io.github.pnoker.driver.sdk.support.MetadataDraft;
+import io.github.pnoker.driver.sdk.utils.ConvertUtil;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongUnaryOperator;
 
 /**
  * Driver Metadata Service Implements
+ * <p>
+ * 元数据变更写入草稿，草稿同时维护索引，元数据与索引以一次原子替换发布后再使相关缓存失效，读取方不会看到修改到一半的元数据
  *
  * @author pnoker
  * @since 2022.1.0
@@ -37,107 +53,186 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 public class DriverMetadataTempServiceImpl implements DriverMetadataTempService {
 
+    @Resource
+    private DriverProperty driverProperty;
     @Resource
     private DriverContext driverContext;
+    @Resource
+    private DeadbandFilter deadbandFilter;
+    @Resource
+    private DriverValueCacheService driverValueCacheService;
+    @Resource
+    private DriverAttributeService driverAttributeService;
+    @Resource
+    private DriverMeterBinder driverMeterBinder;
+
+    /**
+     * 当前线程正在应用的元数据变更批次
+     */
+    private final ThreadLocal<Batch> batches = new ThreadLocal<>();
+
+    @Override
+    public void batch(Runnable changes) {
+        batch(version -> {
+            changes.run();
+            return version;
+        });
+    }
+
+    @Override
+    public void batch(LongUnaryOperator changes) {
+        Batch batch = batches.get();
+        if (ObjectUtil.isNotNull(batch)) {
+            batch.draft.setSyncVersion(changes.applyAsLong(batch.draft.getSyncVersion()));
+            return;
+        }
+
+        List<Runnable> invalidations = new ArrayList<>();
+        try {
+            driverContext.updateDriverMetadata(draft -> {
+                // Large bursts stop maintaining the indexes incrementally and rebuild them once before publishing
+                draft.setRebuildThreshold(driverProperty.getMetadata().getRebuildThreshold());
+                batches.set(new Batch(draft, invalidations));
+                try {
+                    draft.setSyncVersion(changes.applyAsLong(draft.getSyncVersion()));
+                } finally {
+                    batches.remove();
+                }
+            });
+        } finally {
+            invalidations.forEach(Runnable::run);
+        }
+    }
 
     @Override
     public void upsertProfile(Profile profile) {
         // Add profile point to context
-        driverContext.getDriverMetadata().getProfilePointMap().computeIfAbsent(profile.getId(), k -> new ConcurrentHashMap<>(16));
+        apply(draft -> draft.upsertProfile(profile.getId()), null);
     }
 
     @Override
     public void deleteProfile(String id) {
-        driverContext.getDriverMetadata().getProfilePointMap().entrySet().removeIf(next -> next.getKey().equals(id));
+        apply(draft -> draft.deleteProfile(id), null);
     }
 
     @Override
     public void upsertDevice(Device device) {
-        // Add device to context
-        driverContext.getDriverMetadata().getDeviceMap().put(device.getId(), device);
-        // Add device driver attribute config to context
-        driverContext.getDriverMetadata().getDriverInfoMap().computeIfAbsent(device.getId(), k -> new ConcurrentHashMap<>(16));
-        // Add device point attribute config to context
-        driverContext.getDriverMetadata().getPointInfoMap().computeIfAbsent(device.getId(), k -> new ConcurrentHashMap<>(16));
+        apply(draft -> draft.upsertDevice(device), () -> driverAttributeService.removeDevice(device.getId()));
     }
 
     @Override
     public void deleteDevice(String id) {
-        driverContext.getDriverMetadata().getDeviceMap().entrySet().removeIf(next -> next.getKey().equals(id));
-        driverContext.getDriverMetadata().getDriverInfoMap().entrySet().removeIf(next -> next.getKey().equals(id));
-        driverContext.getDriverMetadata().getPointInfoMap().entrySet().removeIf(next -> next.getKey().equals(id));
+        apply(draft -> draft.deleteDevice(id), () -> {
+            deadbandFilter.removeDevice(id);
+            driverValueCacheService.removeDevice(id);
+            driverAttributeService.removeDevice(id);
+            driverMeterBinder.removeDevice(id);
+        });
     }
 
     @Override
     public void upsertPoint(Point point) {
-        // Upsert point to profile point map context
-        driverContext.getDriverMetadata().getProfilePointMap().computeIfAbsent(point.getProfileId(), k -> new ConcurrentHashMap<>(16)).put(point.getId(), point);
+        apply(draft -> draft.upsertPoint(point), () -> ConvertUtil.invalidate(point.getId()));
     }
 
     @Override
     public void deletePoint(String profileId, String pointId) {
-        // Delete point from profile point map context
-        driverContext.getDriverMetadata().getProfilePointMap().computeIfPresent(profileId, (k, v) -> {
-            v.entrySet().removeIf(next -> next.getKey().equals(pointId));
-            return v;
+        apply(draft -> draft.deletePoint(profileId, pointId), () -> {
+            deadbandFilter.removePoint(pointId);
+            ConvertUtil.invalidate(pointId);
+            driverValueCacheService.removePoint(pointId);
+            driverAttributeService.removePoint(pointId);
         });
     }
 
     @Override
     public void upsertDriverInfo(DriverAttributeConfig driverAttributeConfig) {
-        DriverAttribute attribute = driverContext.getDriverMetadata().getDriverAttributeMap().get(driverAttributeConfig.getDriverAttributeId());
-        if (ObjectUtil.isNotNull(attribute)) {
-            // Add driver attribute config to driver attribute config map context
-            driverContext.getDriverMetadata().getDriverInfoMap().computeIfAbsent(driverAttributeConfig.getDeviceId(), k -> new ConcurrentHashMap<>(16))
-                    .put(attribute.getAttributeName(), new AttributeInfo(driverAttributeConfig.getConfigValue(), attribute.getAttributeTypeFlag()));
-        }
+        apply(draft -> draft.upsertDriverInfo(driverAttributeConfig), () -> driverAttributeService.removeDriverInfo(driverAttributeConfig.getDeviceId()));
     }
 
     @Override
     public void deleteDriverInfo(String deviceId, String attributeId) {
-        DriverAttribute attribute = driverContext.getDriverMetadata().getDriverAttributeMap().get(attributeId);
-        if (ObjectUtil.isNotNull(attribute)) {
-            // Delete driver attribute config from driver attribute config map context
-            driverContext.getDriverMetadata().getDriverInfoMap().computeIfPresent(deviceId, (k, v) -> {
-                v.entrySet().removeIf(next -> next.getKey().equals(attribute.getAttributeName()));
-                return v;
-            });
-
-            // If the driver attribute is null, delete the driver attribute config from the driver attribute config map context
-            driverContext.getDriverMetadata().getDriverInfoMap().entrySet().removeIf(next -> next.getValue().size() < 1);
-        }
+        apply(draft -> draft.deleteDriverInfo(deviceId, attributeId), () -> driverAttributeService.removeDriverInfo(deviceId));
     }
 
     @Override
     public void upsertPointInfo(PointAttributeConfig pointAttributeConfig) {
-        PointAttribute attribute = driverContext.getDriverMetadata().getPointAttributeMap().get(pointAttributeConfig.getPointAttributeId());
-        if (ObjectUtil.isNotNull(attribute)) {
-            // Add the point attribute config to the device point attribute config map context
-            driverContext.getDriverMetadata().getPointInfoMap().computeIfAbsent(pointAttributeConfig.getDeviceId(), k -> new ConcurrentHashMap<>(16))
-                    .computeIfAbsent(pointAttributeConfig.getPointId(), k -> new ConcurrentHashMap<>(16))
-                    .put(attribute.getAttributeName(), new AttributeInfo(pointAttributeConfig.getConfigValue(), attribute.getAttributeTypeFlag()));
-        }
+        String deviceId = pointAttributeConfig.getDeviceId();
+        String pointId = pointAttributeConfig.getPointId();
+        apply(draft -> draft.upsertPointInfo(pointAttributeConfig), () -> driverAttributeService.removePointInfo(deviceId, pointId));
     }
 
     @Override
     public void deletePointInfo(String deviceId, String pointId, String attributeId) {
-        PointAttribute attribute = driverContext.getDriverMetadata().getPointAttributeMap().get(attributeId);
-        if (ObjectUtil.isNotNull(attribute)) {
-            // Delete the point attribute config from the device info map context
-            driverContext.getDriverMetadata().getPointInfoMap().computeIfPresent(deviceId, (key1, value1) -> {
-                value1.computeIfPresent(pointId, (key2, value2) -> {
-                    value2.entrySet().removeIf(next -> next.getKey().equals(attribute.getAttributeName()));
-                    return value2;
-                });
-                return value1;
-            });
+        apply(draft -> draft.deletePointInfo(deviceId, pointId, attributeId), () -> driverAttributeService.removePointInfo(deviceId, pointId));
+    }
 
-            // If the point attribute is null, delete the point attribute config from the point attribute config map context
-            driverContext.getDriverMetadata().getPointInfoMap().computeIfPresent(deviceId, (key, value) -> {
-                value.entrySet().removeIf(next -> next.getValue().size() < 1);
-                return value;
-            });
+    @Override
+    public void upsertDriverAttribute(DriverAttribute driverAttribute) {
+        Set<String> deviceIds = new HashSet<>();
+        apply(draft -> deviceIds.addAll(draft.upsertDriverAttribute(driverAttribute)), () -> deviceIds.forEach(driverAttributeService::removeDriverInfo));
+    }
+
+    @Override
+    public void deleteDriverAttribute(String id) {
+        Set<String> deviceIds = new HashSet<>();
+        apply(draft -> deviceIds.addAll(draft.deleteDriverAttribute(id)), () -> deviceIds.forEach(driverAttributeService::removeDriverInfo));
+    }
+
+    @Override
+    public void upsertPointAttribute(PointAttribute pointAttribute) {
+        Map<String, Set<String>> devicePointIds = new HashMap<>(16);
+        apply(draft -> devicePointIds.putAll(draft.upsertPointAttribute(pointAttribute)), () -> removePointInfos(devicePointIds));
+    }
+
+    @Override
+    public void deletePointAttribute(String id) {
+        Map<String, Set<String>> devicePointIds = new HashMap<>(16);
+        apply(draft -> devicePointIds.putAll(draft.deletePointAttribute(id)), () -> removePointInfos(devicePointIds));
+    }
+
+    /**
+     * 应用元数据变更
+     * <p>
+     * 批量应用时变更写入批次草稿，批次结束时一次发布；否则立即发布新快照。
+     * 缓存失效总在新快照发布之后执行，避免读取方用旧快照重新填充缓存。
+     *
+     * @param changes    元数据修改，草稿同时维护索引
+     * @param invalidate 使相关缓存失效，可为 null
+     */
+    private void apply(Consumer<MetadataDraft> changes, Runnable invalidate) {
+        Batch batch = batches.get();
+        if (ObjectUtil.isNotNull(batch)) {
+            changes.accept(batch.draft);
+            if (ObjectUtil.isNotNull(invalidate)) {
+                batch.invalidations.add(invalidate);
+            }
+            return;
+        }
+
+        driverContext.updateDriverMetadata(changes);
+        if (ObjectUtil.isNotNull(invalidate)) {
+            invalidate.run();
         }
     }
 
+    /**
+     * 使位号属性配置绑定失效
+     *
+     * @param devicePointIds Map deviceId:(pointId 集合)
+     */
+    private void removePointInfos(Map<String, Set<String>> devicePointIds) {
+        devicePointIds.forEach((deviceId, pointIds) -> pointIds.forEach(pointId -> driverAttributeService.removePointInfo(deviceId, pointId)));
+    }
+
+    /**
+     * 元数据变更批次，批次内的变更写入同一份草稿并在批次结束时一次发布
+     */
+    @AllArgsConstructor
+    private static class Batch {
+
+        private final MetadataDraft draft;
+        private final List<Runnable> invalidations;
+    }
+
 }
@@ -22,6 +22,7 @@ import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
 import io.github.pnoker.driver.sdk.entity.property.ScheduleProperty;
 import io.github.pnoker.driver.sdk.service.DriverScheduleService;
 import io.github.pnoker.driver.sdk.service.job.DriverCustomScheduleJob;
+import io.github.pnoker.driver.sdk.service.job.DriverIntervalReadScheduleJob;
 import io.github.pnoker.driver.sdk.service.job.DriverReadScheduleJob;
 import io.github.pnoker.driver.sdk.service.job.DriverStatusScheduleJob;
 import lombok.SneakyThrows;
@@ -39,6 +40,8 @@ import javax.annotation.Resource;
 @Service
 public class DriverScheduleServiceImpl implements DriverScheduleService {
 
+    private static final String INTERVAL_READ_SCHEDULE_JOB = "interval_read_schedule_job";
+
     @Resource
     private Scheduler scheduler;
     @Resource
@@ -57,6 +60,9 @@ public class DriverScheduleServiceImpl implements DriverScheduleService {
         if (Boolean.TRUE.equals(property.getCustom().getEnable())) {
             createScheduleJobWithCorn(ScheduleConstant.DRIVER_SCHEDULE_GROUP, ScheduleConstant.CUSTOM_SCHEDULE_JOB, property.getCustom().getCorn(), DriverCustomScheduleJob.class);
         }
+        if (ObjectUtil.isNotNull(property.getInterval()) && Boolean.TRUE.equals(property.getInterval().getEnable())) {
+            createScheduleJobWithInterval(ScheduleConstant.DRIVER_SCHEDULE_GROUP, INTERVAL_READ_SCHEDULE_JOB, property.getInterval().getTick(), DriverIntervalReadScheduleJob.class);
+        }
         createScheduleJobWithCorn(ScheduleConstant.DRIVER_SCHEDULE_GROUP, ScheduleConstant.STATUS_SCHEDULE_JOB, ScheduleConstant.DRIVER_STATUS_CORN, DriverStatusScheduleJob.class);
 
         try {
@@ -87,4 +93,25 @@ public class DriverScheduleServiceImpl implements DriverScheduleService {
         scheduler.scheduleJob(jobDetail, trigger);
     }
 
+    /**
+     * 创建固定间隔调度任务
+     *
+     * @param group    group
+     * @param name     name
+     * @param interval interval, 单位毫秒
+     * @param jobClass class
+     */
+    @SneakyThrows
+    public void createScheduleJobWithInterval(String group, String name, long interval, Class<? extends Job> jobClass) {
+        JobDetail jobDetail = JobBuilder.newJob(jobClass).withIdentity(name, group).build();
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .withIdentity(name, group)
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMilliseconds(interval)
+                        .repeatForever()
+                        .withMisfireHandlingInstructionNextWithRemainingCount())
+                .startNow().build();
+        scheduler.scheduleJob(jobDetail, trigger);
+    }
+
 }
@@ -16,6 +16,7 @@
 
 package io.github.pnoker.driver.sdk.service.impl;
 
+import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.core.util.ObjectUtil;
 import io.github.pnoker.common.constant.driver.EventConstant;
 import io.github.pnoker.common.constant.driver.RabbitConstant;
@@ -23,15 +24,42 @@ import io.github.pnoker.common.dto.DriverEventDTO;
 import io.github.pnoker.common.entity.DeviceEvent;
 import io.github.pnoker.common.entity.point.PointValue;
 import io.github.pnoker.common.enums.DeviceStatusEnum;
-import io.github.pnoker.common.utils.JsonUtil;
+import io.github.pnoker.common.enums.DriverStatusEnum;
+import io.github.pnoker.driver.sdk.codec.WireCodec;
+import io.github.pnoker.driver.sdk.codec.WireMessageConverter;
+import io.github.pnoker.driver.sdk.constant.MessageHeaderConstant;
+import io.github.pnoker.driver.sdk.entity.event.DriverStatusEvent;
 import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
+import io.github.pnoker.driver.sdk.entity.property.SenderProperty;
 import io.github.pnoker.driver.sdk.service.DriverSenderService;
+import io.github.pnoker.driver.sdk.support.BatchAccumulator;
+import io.github.pnoker.driver.sdk.support.ConfirmPublisher;
+import io.github.pnoker.driver.sdk.support.DriverMeterBinder;
+import io.github.pnoker.driver.sdk.support.SegmentSpool;
+import io.github.pnoker.driver.sdk.support.SpoolingSender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.RabbitConnectionFactoryBean;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.amqp.CachingConnectionFactoryConfigurer;
+import org.springframework.boot.autoconfigure.amqp.RabbitConnectionFactoryBeanConfigurer;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * @author pnoker
@@ -47,26 +75,147 @@ public class DriverSenderServiceImpl implements DriverSenderService {
     @Resource
     private RabbitTemplate rabbitTemplate;
 
+    @Resource
+    private ObjectProvider<RabbitProperties> rabbitProperties;
+
+    @Resource
+    private ResourceLoader resourceLoader;
+
+    @Resource
+    private List<WireCodec> wireCodecs;
+
+    @Resource
+    private DriverMeterBinder driverMeterBinder;
+
+    @Resource
+    private ThreadPoolExecutor driverPublishExecutor;
+
+    /**
+     * 发送使用的 RabbitTemplate，未启用编解码器和异步确认发送时即为共享的 RabbitTemplate
+     */
+    private RabbitTemplate senderTemplate;
+
+    /**
+     * 开启 Publisher Confirm 和 Returns 的独立连接工厂，未启用异步确认发送时为 null
+     */
+    private CachingConnectionFactory confirmConnectionFactory;
+
+    /**
+     * 选用的编解码器，使用默认 JSON 编码时为 null
+     */
+    private WireCodec wireCodec;
+
+    /**
+     * 位号值批量累积器，未启用批量发送时为 null
+     */
+    private BatchAccumulator<PointValue> pointValueBatcher;
+
+    /**
+     * 异步确认发送管道，未启用异步确认发送时为 null
+     */
+    private ConfirmPublisher confirmPublisher;
+
+    /**
+     * 存储转发发送器，未启用存储转发时为 null
+     */
+    private SpoolingSender spoolingSender;
+
+    @PostConstruct
+    public void initial() {
+        wireCodec = selectCodec(driverProperty.getSender().getCodec());
+        SenderProperty.ConfirmConfig confirm = driverProperty.getSender().getConfirm();
+        senderTemplate = rabbitTemplate;
+        if (ObjectUtil.isNotNull(wireCodec) || Boolean.TRUE.equals(confirm.getEnable())) {
+            // 使用独立的 RabbitTemplate 设置编解码器和 mandatory，不影响共享 RabbitTemplate 的行为
+            ConnectionFactory connectionFactory = rabbitTemplate.getConnectionFactory();
+            if (Boolean.TRUE.equals(confirm.getEnable())) {
+                confirmConnectionFactory = newConfirmConnectionFactory();
+                if (ObjectUtil.isNotNull(confirmConnectionFactory)) {
+                    connectionFactory = confirmConnectionFactory;
+                }
+            }
+            senderTemplate = new RabbitTemplate(connectionFactory);
+            senderTemplate.setMessageConverter(ObjectUtil.isNull(wireCodec) ? rabbitTemplate.getMessageConverter() : new WireMessageConverter(wireCodec, rabbitTemplate.getMessageConverter()));
+            senderTemplate.setMandatory(Boolean.TRUE.equals(confirm.getEnable()));
+        }
+        SenderProperty.SpoolConfig spool = driverProperty.getSender().getSpool();
+        if (Boolean.TRUE.equals(spool.getEnable())) {
+            try {
+                SegmentSpool segmentSpool = new SegmentSpool(new File(spool.getPath()), spool.getSegment(), spool.getSize(), spool.getAge());
+                spoolingSender = new SpoolingSender(senderTemplate, segmentSpool, spool.getRate(), confirm.getTimeout());
+            } catch (IOException e) {
+                log.error("Open spool {} error, store-and-forward is disabled: {}", spool.getPath(), e.getMessage(), e);
+            }
+        }
+        if (Boolean.TRUE.equals(confirm.getEnable())) {
+            confirmPublisher = new ConfirmPublisher(senderTemplate, confirm.getCapacity(), confirm.getWindow(), confirm.getRetry(), confirm.getTimeout(), confirm.getBackoff(), confirm.getMaxBackoff());
+            if (ObjectUtil.isNotNull(spoolingSender)) {
+                confirmPublisher.setFallback(spoolingSender::spool);
+            }
+        }
+
+        registerMeters();
+
+        SenderProperty.BatchConfig batch = driverProperty.getSender().getBatch();
+        if (Boolean.TRUE.equals(batch.getEnable())) {
+            pointValueBatcher = new BatchAccumulator<>("dc3-driver-point-value-batch", batch.getSize(), batch.getBytes(), batch.getLinger(), this::estimate, this::pointValueBatchSender);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (ObjectUtil.isNotNull(pointValueBatcher)) {
+            pointValueBatcher.close();
+        }
+        if (ObjectUtil.isNotNull(confirmPublisher)) {
+            confirmPublisher.close();
+        }
+        if (ObjectUtil.isNotNull(spoolingSender)) {
+            try {
+                spoolingSender.close();
+            } catch (IOException e) {
+                log.error("Close spool error: {}", e.getMessage(), e);
+            }
+        }
+        if (ObjectUtil.isNotNull(confirmConnectionFactory)) {
+            confirmConnectionFactory.destroy();
+        }
+    }
+
     @Override
     public void driverEventSender(DriverEventDTO entityDTO) {
         if (ObjectUtil.isNull(entityDTO)) {
             return;
         }
 
-        rabbitTemplate.convertAndSend(
+        send(
+                RabbitConstant.TOPIC_EXCHANGE_EVENT,
+                RabbitConstant.ROUTING_DRIVER_EVENT_PREFIX + driverProperty.getService(),
+                entityDTO,
+                null
+        );
+    }
+
+    @Override
+    public void driverStatusSender(String driverId, DriverStatusEnum status) {
+        DriverStatusEvent driverStatusEvent = new DriverStatusEvent(driverId, status);
+        log.debug("Send driver status: {}", driverStatusEvent);
+        send(
                 RabbitConstant.TOPIC_EXCHANGE_EVENT,
                 RabbitConstant.ROUTING_DRIVER_EVENT_PREFIX + driverProperty.getService(),
-                entityDTO
+                ObjectUtil.isNotNull(wireCodec) && wireCodec.supports(driverStatusEvent) ? driverStatusEvent : driverStatusEvent.toDriverEventDTO(),
+                null
         );
     }
 
     @Override
     public void deviceEventSender(DeviceEvent deviceEvent) {
         if (ObjectUtil.isNotNull(deviceEvent)) {
-            rabbitTemplate.convertAndSend(
+            send(
                     RabbitConstant.TOPIC_EXCHANGE_EVENT,
                     RabbitConstant.ROUTING_DEVICE_EVENT_PREFIX + driverProperty.getService(),
-                    deviceEvent
+                    deviceEvent,
+                    null
             );
         }
     }
@@ -78,12 +227,18 @@ public class DriverSenderServiceImpl implements DriverSenderService {
 
     @Override
     public void pointValueSender(PointValue pointValue) {
+        if (ObjectUtil.isNotNull(pointValue) && ObjectUtil.isNotNull(pointValueBatcher)) {
+            pointValueBatcher.add(pointValue);
+            return;
+        }
+
         if (ObjectUtil.isNotNull(pointValue)) {
-            log.debug("Send point value: {}", JsonUtil.toJsonString(pointValue));
-            rabbitTemplate.convertAndSend(
+            log.debug("Send point value: {}", pointValue);
+            send(
                     RabbitConstant.TOPIC_EXCHANGE_VALUE,
                     RabbitConstant.ROUTING_POINT_VALUE_PREFIX + driverProperty.getService(),
-                    pointValue
+                    pointValue,
+                    null
             );
         }
     }
@@ -95,4 +250,164 @@ public class DriverSenderServiceImpl implements DriverSenderService {
         }
     }
 
+    /**
+     * 将一批位号值作为一条消息发送，并通过消息头标识为批量消息
+     *
+     * @param pointValues PointValue Array
+     */
+    private void pointValueBatchSender(List<PointValue> pointValues) {
+        log.debug("Send point value batch, size: {}", pointValues.size());
+        send(
+                RabbitConstant.TOPIC_EXCHANGE_VALUE,
+                RabbitConstant.ROUTING_POINT_VALUE_PREFIX + driverProperty.getService(),
+                pointValues,
+                message -> {
+                    message.getMessageProperties().setHeader(MessageHeaderConstant.POINT_VALUE_BATCH, pointValues.size());
+                    return message;
+                }
+        );
+    }
+
+    /**
+     * 发送消息，启用异步确认发送时交由发送管道处理，否则交由消息发送执行器处理，调用线程不等待发送结果
+     *
+     * @param exchange      Exchange
+     * @param routingKey    Routing Key
+     * @param payload       消息内容
+     * @param postProcessor 消息后置处理，可为 null
+     */
+    private void send(String exchange, String routingKey, Object payload, MessagePostProcessor postProcessor) {
+        if (ObjectUtil.isNotNull(confirmPublisher)) {
+            publish(exchange, routingKey, payload, postProcessor);
+            return;
+        }
+
+        driverPublishExecutor.execute(() -> {
+            try {
+                publish(exchange, routingKey, payload, postProcessor);
+            } catch (Exception e) {
+                log.error("Send message to {} error: {}", exchange, e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * 发送消息，启用存储转发时发送失败的消息写入磁盘等待补发
+     *
+     * @param exchange      Exchange
+     * @param routingKey    Routing Key
+     * @param payload       消息内容
+     * @param postProcessor 消息后置处理，可为 null
+     */
+    private void publish(String exchange, String routingKey, Object payload, MessagePostProcessor postProcessor) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            if (ObjectUtil.isNotNull(confirmPublisher)) {
+                if (ObjectUtil.isNotNull(spoolingSender) && spoolingSender.isBacklogged()) {
+                    // A message has fallen back to the spool, queue behind it until the spool drains to keep ordering
+                    spoolingSender.spool(exchange, routingKey, payload, postProcessor);
+                } else {
+                    confirmPublisher.publish(exchange, routingKey, payload, postProcessor);
+                }
+            } else if (ObjectUtil.isNotNull(spoolingSender)) {
+                spoolingSender.send(exchange, routingKey, payload, postProcessor);
+            } else if (ObjectUtil.isNull(postProcessor)) {
+                senderTemplate.convertAndSend(exchange, routingKey, payload);
+            } else {
+                senderTemplate.convertAndSend(exchange, routingKey, payload, postProcessor);
+            }
+            success = true;
+        } finally {
+            driverMeterBinder.recordSend(exchange, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * 创建开启 Publisher Confirm 和 Returns 的独立连接工厂，连接参数与共享连接工厂相同，均取自 spring.rabbitmq 配置
+     * <p>
+     * 不注册为 Bean，避免替换自动配置的共享连接工厂和 RabbitTemplate
+     *
+     * @return CachingConnectionFactory，创建失败时返回 null
+     */
+    private CachingConnectionFactory newConfirmConnectionFactory() {
+        RabbitProperties properties = rabbitProperties.getIfAvailable();
+        if (ObjectUtil.isNull(properties)) {
+            log.warn("RabbitMQ properties are not available, confirm publisher uses the shared connection factory");
+            return null;
+        }
+
+        try {
+            RabbitConnectionFactoryBean factoryBean = new RabbitConnectionFactoryBean();
+            new RabbitConnectionFactoryBeanConfigurer(resourceLoader, properties).configure(factoryBean);
+            factoryBean.afterPropertiesSet();
+            CachingConnectionFactory factory = new CachingConnectionFactory(factoryBean.getObject());
+            new CachingConnectionFactoryConfigurer(properties).configure(factory);
+            factory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+            factory.setPublisherReturns(true);
+            factory.setConnectionNameStrategy(connectionFactory -> "dc3-driver-confirm-" + driverProperty.getClient());
+            return factory;
+        } catch (Exception e) {
+            log.error("Create confirm connection factory error, confirm publisher uses the shared connection factory: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 注册异步确认发送管道和存储转发发送器的指标
+     */
+    private void registerMeters() {
+        ConfirmPublisher publisher = confirmPublisher;
+        SpoolingSender spooling = spoolingSender;
+        driverMeterBinder.register(registry -> {
+            if (ObjectUtil.isNotNull(publisher)) {
+                FunctionCounter.builder("dc3.driver.confirm.published", publisher, ConfirmPublisher::getPublishedCount).register(registry);
+                FunctionCounter.builder("dc3.driver.confirm.confirmed", publisher, ConfirmPublisher::getConfirmedCount).register(registry);
+                FunctionCounter.builder("dc3.driver.confirm.retried", publisher, ConfirmPublisher::getRetriedCount).register(registry);
+                FunctionCounter.builder("dc3.driver.confirm.dropped", publisher, ConfirmPublisher::getDroppedCount).register(registry);
+                Gauge.builder("dc3.driver.confirm.queued", publisher, ConfirmPublisher::getQueueSize).register(registry);
+                Gauge.builder("dc3.driver.confirm.pending", publisher, ConfirmPublisher::getPendingCount).register(registry);
+            }
+            if (ObjectUtil.isNotNull(spooling)) {
+                FunctionCounter.builder("dc3.driver.spool.spooled", spooling, SpoolingSender::getSpooledCount).register(registry);
+                FunctionCounter.builder("dc3.driver.spool.replayed", spooling, SpoolingSender::getReplayedCount).register(registry);
+            }
+        });
+    }
+
+    /**
+     * 根据名称选择编解码器，json 或未找到时使用默认 JSON 编码
+     *
+     * @param name 编解码器名称
+     * @return WireCodec，使用默认 JSON 编码时返回 null
+     */
+    private WireCodec selectCodec(String name) {
+        if (CharSequenceUtil.isBlank(name) || SenderProperty.CODEC_JSON.equalsIgnoreCase(name)) {
+            return null;
+        }
+
+        Optional<WireCodec> codec = wireCodecs.stream().filter(c -> c.getName().equalsIgnoreCase(name)).findFirst();
+        if (!codec.isPresent()) {
+            log.warn("Wire codec({}) does not exist, use json instead", name);
+            return null;
+        }
+        log.info("Send messages with {} codec, content type: {}", name, codec.get().getContentType());
+        return codec.get();
+    }
+
+    /**
+     * 估算位号值序列化后的字节数，避免为了统计字节数而提前序列化
+     *
+     * @param pointValue PointValue
+     * @return 估算字节数
+     */
+    private int estimate(PointValue pointValue) {
+        return 128 + length(pointValue.getDeviceId()) + length(pointValue.getPointId())
+                + length(pointValue.getRawValue()) + length(pointValue.getValue());
+    }
+
+    private int length(String value) {
+        return ObjectUtil.isNull(value) ? 0 : value.length();
+    }
+
 }
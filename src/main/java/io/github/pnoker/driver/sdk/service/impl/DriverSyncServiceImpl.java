@@ -19,6 +19,7 @@ package io.github.pnoker.driver.sdk.service.impl;
 import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.core.thread.ThreadUtil;
 import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.RandomUtil;
 import io.github.pnoker.common.constant.driver.RabbitConstant;
 import io.github.pnoker.common.dto.DriverSyncDownDTO;
 import io.github.pnoker.common.dto.DriverSyncUpDTO;
@@ -27,16 +28,28 @@ import io.github.pnoker.common.enums.DriverStatusEnum;
 import io.github.pnoker.common.model.DriverDO;
 import io.github.pnoker.common.utils.JsonUtil;
 import io.github.pnoker.driver.sdk.DriverContext;
+import io.github.pnoker.driver.sdk.constant.MessageHeaderConstant;
 import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
+import io.github.pnoker.driver.sdk.entity.property.RegisterProperty;
+import io.github.pnoker.driver.sdk.entity.sync.MetadataDelta;
+import io.github.pnoker.driver.sdk.entity.sync.MetadataSync;
+import io.github.pnoker.driver.sdk.service.DriverMetadataTempService;
 import io.github.pnoker.driver.sdk.service.DriverSenderService;
 import io.github.pnoker.driver.sdk.service.DriverSyncService;
+import io.github.pnoker.driver.sdk.support.MetadataSnapshotStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * 驱动同步相关接口实现
@@ -55,40 +68,72 @@ public class DriverSyncServiceImpl implements DriverSyncService {
 
     @Resource
     private DriverSenderService driverSenderService;
+    @Resource
+    private DriverMetadataTempService driverMetadataTempService;
+    @Resource
+    private MetadataSnapshotStore metadataSnapshotStore;
 
     @Resource
     private RabbitTemplate rabbitTemplate;
-    @Resource
-    private ThreadPoolExecutor threadPoolExecutor;
+
+    /**
+     * 驱动注册结果，收到平台端下发的元数据后完成
+     */
+    private final CompletableFuture<Void> registration = new CompletableFuture<>();
 
     @Override
     public void up() {
-        try {
-            DriverSyncUpDTO entityDTO = buildRegisterDTOByProperty();
-            log.info("The driver {} is initializing", entityDTO.getClient());
-            log.debug("The driver {} initialization information is: {}", driverProperty.getService(), JsonUtil.toPrettyJsonString(entityDTO));
-            rabbitTemplate.convertAndSend(
-                    RabbitConstant.TOPIC_EXCHANGE_SYNC,
-                    RabbitConstant.ROUTING_SYNC_UP_PREFIX + driverProperty.getClient(),
-                    entityDTO
-            );
-
-            threadPoolExecutor.submit(() -> {
-                while (!DriverStatusEnum.ONLINE.equals(driverContext.getDriverStatus())) {
-                    ThreadUtil.sleep(500);
-                }
-            }).get(15, TimeUnit.SECONDS);
+        DriverSyncUpDTO entityDTO = buildRegisterDTOByProperty();
+        log.info("The driver {} is initializing", entityDTO.getClient());
+        log.debug("The driver {} initialization information is: {}", driverProperty.getService(), JsonUtil.toPrettyJsonString(entityDTO));
+        if (warmStart()) {
+            // Start polling from the snapshot, the manager answer is reconciled by the normal versioned sync
+            ThreadUtil.newThread(() -> register(entityDTO), "dc3-driver-register", true).start();
+            log.info("The driver {} is warm started from the local metadata snapshot.", entityDTO.getClient());
+            return;
+        }
+
+        register(entityDTO);
+        log.info("The driver {} is initialized successfully.", entityDTO.getClient());
+    }
 
-            log.info("The driver {} is initialized successfully.", entityDTO.getClient());
-        } catch (Exception ignored) {
-            log.error("The driver initialization failed, registration response timed out.");
-            Thread.currentThread().interrupt();
-            System.exit(1);
+    /**
+     * 发送驱动注册信息并等待平台端下发元数据，超时后按带随机抖动的指数退避重新注册，直到注册成功
+     *
+     * @param entityDTO DriverSyncUpDTO
+     */
+    private void register(DriverSyncUpDTO entityDTO) {
+        RegisterProperty register = driverProperty.getRegister();
+        long maxBackoff = Math.max(register.getMaxBackoff(), 1L);
+        long backoff = Math.min(Math.max(register.getInitialBackoff(), 1L), maxBackoff);
+        for (int attempt = 1; ; attempt++) {
+            sendUp(entityDTO, driverContext.getMetadataSyncVersion());
+            // Equal jitter keeps drivers that restarted together from re-registering in lockstep
+            long wait = backoff / 2 + RandomUtil.randomLong(backoff / 2 + 1);
+            try {
+                registration.get(wait, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                log.warn("The driver {} registration response timed out after {}ms, attempt: {}, register again", entityDTO.getClient(), wait, attempt);
+            } catch (InterruptedException e) {
+                log.error("The driver {} registration was interrupted", entityDTO.getClient());
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // Never completed exceptionally
+                return;
+            }
+            backoff = Math.min(backoff * 2, maxBackoff);
         }
     }
 
     @Override
     public void down(DriverSyncDownDTO entityDTO) {
+        down(entityDTO, MetadataSync.FULL);
+    }
+
+    @Override
+    public void down(DriverSyncDownDTO entityDTO, MetadataSync sync) {
         if (ObjectUtil.isNull(entityDTO.getContent())) {
             return;
         }
@@ -96,16 +141,129 @@ public class DriverSyncServiceImpl implements DriverSyncService {
         if (CharSequenceUtil.isEmpty(entityDTO.getContent())) {
             return;
         }
+
+        if (sync.isDelta()) {
+            downDelta(entityDTO.getContent(), sync);
+            return;
+        }
+
         DriverMetadata driverMetadata = JsonUtil.parseObject(entityDTO.getContent(), DriverMetadata.class);
         if (ObjectUtil.isNull(driverMetadata)) {
             driverMetadata = new DriverMetadata();
         }
-        driverContext.setDriverMetadata(driverMetadata);
+        driverContext.setDriverMetadata(driverMetadata, ObjectUtil.defaultIfNull(sync.getVersion(), 0L));
+        driverContext.setDriverStatus(DriverStatusEnum.ONLINE);
+        registration.complete(null);
+        if (log.isDebugEnabled()) {
+            driverMetadata.getDriverAttributeMap().values().forEach(driverAttribute -> log.debug("Syncing driver attribute[{}] metadata: {}", driverAttribute.getAttributeName(), JsonUtil.toJsonString(driverAttribute)));
+            driverMetadata.getPointAttributeMap().values().forEach(pointAttribute -> log.debug("Syncing point attribute[{}] metadata: {}", pointAttribute.getAttributeName(), JsonUtil.toJsonString(pointAttribute)));
+            driverMetadata.getDeviceMap().values().forEach(device -> log.debug("Syncing device[{}] metadata: {}", device.getDeviceName(), JsonUtil.toJsonString(device)));
+        }
+        log.info("The metadata synced successfully, version: {}, devices: {}, profiles: {}", sync.getVersion(), driverMetadata.getDeviceMap().size(), driverMetadata.getProfilePointMap().size());
+        metadataSnapshotStore.markDirty();
+    }
+
+    @Override
+    public void resync() {
+        driverContext.setMetadataSyncVersion(0L);
+        sendUp(buildRegisterDTOByProperty(), 0L);
+    }
+
+    /**
+     * 应用元数据增量，基准版本与已应用的版本不一致时请求全量同步
+     *
+     * @param content 消息内容
+     * @param sync    MetadataSync
+     */
+    private void downDelta(String content, MetadataSync sync) {
+        MetadataDelta delta = JsonUtil.parseObject(content, MetadataDelta.class);
+        if (ObjectUtil.isNull(delta)) {
+            log.warn("Invalid metadata delta, request a full sync");
+            resync();
+            return;
+        }
+
+        // The base version is checked and the new version published under the write lock the delta is applied in
+        AtomicLong base = new AtomicLong(0L);
+        AtomicBoolean applied = new AtomicBoolean(false);
+        long version = ObjectUtil.defaultIfNull(sync.getVersion(), 0L);
+        driverMetadataTempService.batch(current -> {
+            base.set(current);
+            if (ObjectUtil.isNull(sync.getBaseVersion()) || current == 0 || sync.getBaseVersion() != current) {
+                return current;
+            }
+
+            // Deletes first, then upserts from the outside in so every index sees its dependencies
+            forEach(delta.getDeletePointInfos(), info -> driverMetadataTempService.deletePointInfo(info.getDeviceId(), info.getPointId(), info.getPointAttributeId()));
+            forEach(delta.getDeleteDriverInfos(), info -> driverMetadataTempService.deleteDriverInfo(info.getDeviceId(), info.getDriverAttributeId()));
+            forEach(delta.getDeletePoints(), point -> driverMetadataTempService.deletePoint(point.getProfileId(), point.getId()));
+            forEach(delta.getDeleteDevices(), driverMetadataTempService::deleteDevice);
+            forEach(delta.getDeleteProfiles(), driverMetadataTempService::deleteProfile);
+            forEach(delta.getDeleteDriverAttributes(), driverMetadataTempService::deleteDriverAttribute);
+            forEach(delta.getDeletePointAttributes(), driverMetadataTempService::deletePointAttribute);
+            forEach(delta.getUpsertDriverAttributes(), driverMetadataTempService::upsertDriverAttribute);
+            forEach(delta.getUpsertPointAttributes(), driverMetadataTempService::upsertPointAttribute);
+            forEach(delta.getUpsertProfiles(), driverMetadataTempService::upsertProfile);
+            forEach(delta.getUpsertPoints(), driverMetadataTempService::upsertPoint);
+            forEach(delta.getUpsertDevices(), driverMetadataTempService::upsertDevice);
+            forEach(delta.getUpsertDriverInfos(), driverMetadataTempService::upsertDriverInfo);
+            forEach(delta.getUpsertPointInfos(), driverMetadataTempService::upsertPointInfo);
+            applied.set(true);
+            return version == 0 ? current : version;
+        });
+
+        if (!applied.get()) {
+            log.warn("Metadata delta base version {} does not match the applied version {}, request a full sync", sync.getBaseVersion(), base.get());
+            resync();
+            return;
+        }
+
+        driverContext.setDriverStatus(DriverStatusEnum.ONLINE);
+        registration.complete(null);
+        log.info("The metadata delta synced successfully, version: {} -> {}, changes: {}", base.get(), version == 0 ? base.get() : version, delta.size());
+        metadataSnapshotStore.markDirty();
+    }
+
+    /**
+     * 从本地元数据快照恢复，恢复后驱动立即上线并开始采集
+     *
+     * @return 是否已从快照恢复
+     */
+    private boolean warmStart() {
+        MetadataSnapshotStore.Snapshot snapshot = metadataSnapshotStore.load();
+        if (ObjectUtil.isNull(snapshot)) {
+            return false;
+        }
+
+        driverContext.setDriverMetadata(snapshot.getMetadata(), snapshot.getVersion());
         driverContext.setDriverStatus(DriverStatusEnum.ONLINE);
-        driverMetadata.getDriverAttributeMap().values().forEach(driverAttribute -> log.info("Syncing driver attribute[{}] metadata: {}", driverAttribute.getAttributeName(), JsonUtil.toPrettyJsonString(driverAttribute)));
-        driverMetadata.getPointAttributeMap().values().forEach(pointAttribute -> log.info("Syncing point attribute[{}] metadata: {}", pointAttribute.getAttributeName(), JsonUtil.toPrettyJsonString(pointAttribute)));
-        driverMetadata.getDeviceMap().values().forEach(device -> log.info("Syncing device[{}] metadata: {}", device.getDeviceName(), JsonUtil.toPrettyJsonString(device)));
-        log.info("The metadata synced successfully.");
+        return true;
+    }
+
+    private <T> void forEach(List<T> list, Consumer<T> consumer) {
+        if (ObjectUtil.isNotNull(list)) {
+            list.forEach(consumer);
+        }
+    }
+
+    /**
+     * 发送驱动注册信息，携带已应用的元数据版本时平台端可以只下发增量
+     *
+     * @param entityDTO DriverSyncUpDTO
+     * @param version   已应用的元数据版本，0 表示请求全量同步
+     */
+    private void sendUp(DriverSyncUpDTO entityDTO, long version) {
+        rabbitTemplate.convertAndSend(
+                RabbitConstant.TOPIC_EXCHANGE_SYNC,
+                RabbitConstant.ROUTING_SYNC_UP_PREFIX + driverProperty.getClient(),
+                entityDTO,
+                message -> {
+                    if (version > 0) {
+                        message.getMessageProperties().setHeader(MessageHeaderConstant.METADATA_VERSION, version);
+                    }
+                    return message;
+                }
+        );
     }
 
     /**
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.service.impl;
+
+import cn.hutool.core.util.ObjectUtil;
+import io.github.pnoker.common.entity.point.PointValue;
+import io.github.pnoker.driver.sdk.entity.read.LastValue;
+import io.github.pnoker.driver.sdk.service.DriverValueCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 位号最近值缓存服务，最近值不可变，读取无需加锁
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+@Service
+public class DriverValueCacheServiceImpl implements DriverValueCacheService {
+
+    /**
+     * deviceId -> (pointId -> LastValue)
+     */
+    private final Map<String, Map<String, LastValue>> valueMap = new ConcurrentHashMap<>(16);
+
+    @Override
+    public void update(PointValue pointValue) {
+        if (ObjectUtil.isNull(pointValue)) {
+            return;
+        }
+
+        LastValue lastValue = new LastValue(pointValue.getDeviceId(), pointValue.getPointId(), pointValue.getRawValue(), pointValue.getValue(), System.currentTimeMillis(), LastValue.Quality.GOOD);
+        valueMap.computeIfAbsent(pointValue.getDeviceId(), k -> new ConcurrentHashMap<>(16)).put(pointValue.getPointId(), lastValue);
+    }
+
+    @Override
+    public void markBad(String deviceId, String pointId) {
+        valueMap.computeIfAbsent(deviceId, k -> new ConcurrentHashMap<>(16)).compute(pointId, (k, v) -> {
+            if (ObjectUtil.isNull(v)) {
+                return new LastValue(deviceId, pointId, null, null, System.currentTimeMillis(), LastValue.Quality.BAD);
+            }
+            return v.getQuality() == LastValue.Quality.BAD ? v : new LastValue(deviceId, pointId, v.getRawValue(), v.getValue(), v.getTimestamp(), LastValue.Quality.BAD);
+        });
+    }
+
+    @Override
+    public LastValue get(String deviceId, String pointId) {
+        Map<String, LastValue> pointValueMap = valueMap.get(deviceId);
+        return ObjectUtil.isNull(pointValueMap) ? null : pointValueMap.get(pointId);
+    }
+
+    @Override
+    public Map<String, LastValue> get(String deviceId) {
+        Map<String, LastValue> pointValueMap = valueMap.get(deviceId);
+        return ObjectUtil.isNull(pointValueMap) ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(pointValueMap));
+    }
+
+    @Override
+    public Map<String, Map<String, LastValue>> snapshot() {
+        Map<String, Map<String, LastValue>> snapshot = new HashMap<>(valueMap.size() * 4 / 3 + 1);
+        valueMap.forEach((deviceId, pointValueMap) -> snapshot.put(deviceId, Collections.unmodifiableMap(new HashMap<>(pointValueMap))));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    @Override
+    public void removeDevice(String deviceId) {
+        valueMap.remove(deviceId);
+    }
+
+    @Override
+    public void removePoint(String pointId) {
+        valueMap.values().forEach(pointValueMap -> pointValueMap.remove(pointId));
+    }
+
+}
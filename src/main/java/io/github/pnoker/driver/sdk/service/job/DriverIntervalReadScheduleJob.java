@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.service.job;
+
+import io.github.pnoker.driver.sdk.support.IntervalReadDispatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * 位号独立采集周期调度任务，按时间轮刻度触发
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+@Component
+@DisallowConcurrentExecution
+public class DriverIntervalReadScheduleJob extends QuartzJobBean {
+
+    @Resource
+    private IntervalReadDispatcher intervalReadDispatcher;
+
+    @Override
+    protected void executeInternal(JobExecutionContext jobExecutionContext) throws JobExecutionException {
+        intervalReadDispatcher.tick();
+    }
+}
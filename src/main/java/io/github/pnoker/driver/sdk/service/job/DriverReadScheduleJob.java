@@ -16,13 +16,11 @@
 
 package io.github.pnoker.driver.sdk.service.job;
 
-import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.ObjectUtil;
-import io.github.pnoker.common.entity.driver.AttributeInfo;
-import io.github.pnoker.common.model.Device;
-import io.github.pnoker.common.model.Point;
 import io.github.pnoker.driver.sdk.DriverContext;
+import io.github.pnoker.driver.sdk.entity.read.ReadGroup;
 import io.github.pnoker.driver.sdk.service.DriverCommandService;
+import io.github.pnoker.driver.sdk.support.DriverMeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
@@ -30,9 +28,6 @@ import org.springframework.scheduling.quartz.QuartzJobBean;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Read Schedule Job
@@ -47,39 +42,17 @@ public class DriverReadScheduleJob extends QuartzJobBean {
     @Resource
     private DriverContext driverContext;
     @Resource
-    private ThreadPoolExecutor threadPoolExecutor;
-    @Resource
     private DriverCommandService driverCommandService;
+    @Resource
+    private DriverMeterBinder driverMeterBinder;
 
     @Override
     protected void executeInternal(JobExecutionContext jobExecutionContext) throws JobExecutionException {
-        Map<String, Device> deviceMap = driverContext.getDriverMetadata().getDeviceMap();
-        if (ObjectUtil.isNull(deviceMap)) {
-            return;
+        if (ObjectUtil.isNotNull(jobExecutionContext.getScheduledFireTime())) {
+            driverMeterBinder.recordScheduleLag(System.currentTimeMillis() - jobExecutionContext.getScheduledFireTime().getTime());
         }
-
-        for (Device device : deviceMap.values()) {
-            Set<String> profileIds = device.getProfileIds();
-            Map<String, Map<String, AttributeInfo>> pointInfoMap = driverContext.getDriverMetadata().getPointInfoMap().get(device.getId());
-            if (CollUtil.isEmpty(profileIds) || ObjectUtil.isNull(pointInfoMap)) {
-                continue;
-            }
-
-            for (String profileId : profileIds) {
-                Map<String, Point> pointMap = driverContext.getDriverMetadata().getProfilePointMap().get(profileId);
-                if (ObjectUtil.isNull(pointMap)) {
-                    continue;
-                }
-
-                for (String pointId : pointMap.keySet()) {
-                    Map<String, AttributeInfo> map = pointInfoMap.get(pointId);
-                    if (ObjectUtil.isNull(map)) {
-                        continue;
-                    }
-
-                    threadPoolExecutor.execute(() -> driverCommandService.read(device.getId(), pointId));
-                }
-            }
+        for (ReadGroup group : driverContext.getReadPlan().getGroups()) {
+            driverCommandService.submitRead(group);
         }
     }
 }
\ No newline at end of file
@@ -16,9 +16,6 @@
 
 package io.github.pnoker.driver.sdk.service.job;
 
-import io.github.pnoker.common.dto.DriverEventDTO;
-import io.github.pnoker.common.enums.DriverEventTypeEnum;
-import io.github.pnoker.common.utils.JsonUtil;
 import io.github.pnoker.driver.sdk.DriverContext;
 import io.github.pnoker.driver.sdk.service.DriverSenderService;
 import lombok.extern.slf4j.Slf4j;
@@ -46,9 +43,6 @@ public class DriverStatusScheduleJob extends QuartzJobBean {
 
     @Override
     protected void executeInternal(JobExecutionContext jobExecutionContext) throws JobExecutionException {
-        DriverEventDTO.DriverStatus driverStatus = new DriverEventDTO.DriverStatus(driverContext.getDriverMetadata().getDriverId(), driverContext.getDriverStatus());
-        DriverEventDTO driverEventDTO = new DriverEventDTO(DriverEventTypeEnum.HEARTBEAT, JsonUtil.toJsonString(driverStatus));
-        log.debug("Send driver event: {}", JsonUtil.toJsonString(driverEventDTO));
-        driverSenderService.driverEventSender(driverEventDTO);
+        driverSenderService.driverStatusSender(driverContext.getDriverMetadata().getDriverId(), driverContext.getDriverStatus());
     }
 }
\ No newline at end of file
@@ -19,8 +19,8 @@ package io.github.pnoker.driver.sdk.service.rabbit;
 import cn.hutool.core.util.ObjectUtil;
 import com.rabbitmq.client.Channel;
 import io.github.pnoker.common.dto.DriverMetadataDTO;
-import io.github.pnoker.common.utils.JsonUtil;
-import io.github.pnoker.driver.sdk.service.DriverMetadataService;
+import io.github.pnoker.driver.sdk.entity.sync.MetadataSync;
+import io.github.pnoker.driver.sdk.support.MetadataBatchApplier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitHandler;
@@ -40,14 +40,13 @@ import javax.annotation.Resource;
 public class DriverMetadataReceiver {
 
     @Resource
-    private DriverMetadataService driverMetadataService;
+    private MetadataBatchApplier metadataBatchApplier;
 
     @RabbitHandler
     @RabbitListener(queues = "#{driverMetadataQueue.name}")
     public void driverMetadataReceive(Channel channel, Message message, DriverMetadataDTO entityDTO) {
         try {
             channel.basicAck(message.getMessageProperties().getDeliveryTag(), true);
-            log.debug("Receive driver metadata: {}", JsonUtil.toPrettyJsonString(entityDTO));
             if (ObjectUtil.isNull(entityDTO)
                     || ObjectUtil.isNull(entityDTO.getType())
                     || ObjectUtil.isNull(entityDTO.getMetadataCommandType())) {
@@ -55,25 +54,8 @@ public class DriverMetadataReceiver {
                 return;
             }
 
-            switch (entityDTO.getType()) {
-                case PROFILE:
-                    driverMetadataService.profileMetadata(entityDTO);
-                    break;
-                case POINT:
-                    driverMetadataService.pointMetadata(entityDTO);
-                    break;
-                case DEVICE:
-                    driverMetadataService.deviceMetadata(entityDTO);
-                    break;
-                case DRIVER_ATTRIBUTE_CONFIG:
-                    driverMetadataService.driverInfoMetadata(entityDTO);
-                    break;
-                case POINT_ATTRIBUTE_CONFIG:
-                    driverMetadataService.pointInfoMetadata(entityDTO);
-                    break;
-                default:
-                    break;
-            }
+            log.debug("Receive driver metadata, type: {}, command: {}", entityDTO.getType(), entityDTO.getMetadataCommandType());
+            metadataBatchApplier.submit(entityDTO, MetadataSync.fromHeaders(message.getMessageProperties().getHeaders()));
         } catch (Exception e) {
             log.error(e.getMessage(), e);
         }
@@ -20,7 +20,8 @@ import cn.hutool.core.util.ObjectUtil;
 import com.rabbitmq.client.Channel;
 import io.github.pnoker.common.dto.DriverSyncDownDTO;
 import io.github.pnoker.common.utils.JsonUtil;
-import io.github.pnoker.driver.sdk.service.DriverSyncService;
+import io.github.pnoker.driver.sdk.entity.sync.MetadataSync;
+import io.github.pnoker.driver.sdk.support.MetadataBatchApplier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitHandler;
@@ -40,7 +41,7 @@ import javax.annotation.Resource;
 public class DriverSyncDownReceiver {
 
     @Resource
-    private DriverSyncService driverSyncService;
+    private MetadataBatchApplier metadataBatchApplier;
 
     @RabbitHandler
     @RabbitListener(queues = "#{syncDownQueue.name}")
@@ -53,7 +54,8 @@ public class DriverSyncDownReceiver {
                 return;
             }
 
-            driverSyncService.down(entityDTO);
+            // Applied in order with the metadata changes
+            metadataBatchApplier.submit(entityDTO, MetadataSync.fromHeaders(message.getMessageProperties().getHeaders()));
         } catch (Exception e) {
             log.error(e.getMessage(), e);
         }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * 批量累积器，按数量、估算字节数或最长等待时间阈值将元素分批交给 flusher 处理
+ *
+ * @param <T> 元素类型
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+public class BatchAccumulator<T> implements AutoCloseable {
+
+    private final int maxSize;
+    private final int maxBytes;
+    private final long lingerNanos;
+    private final ToIntFunction<T> estimator;
+    private final Consumer<List<T>> flusher;
+    private final ScheduledExecutorService scheduler;
+
+    private List<T> buffer;
+    private int bytes;
+    private long firstNanos;
+
+    /**
+     * 创建批量累积器
+     *
+     * @param name         调度线程名称
+     * @param maxSize      每批最大元素数量
+     * @param maxBytes     每批最大估算字节数
+     * @param lingerMillis 最长等待时间，单位毫秒
+     * @param estimator    元素字节数估算
+     * @param flusher      批处理
+     */
+    public BatchAccumulator(String name, int maxSize, int maxBytes, long lingerMillis, ToIntFunction<T> estimator, Consumer<List<T>> flusher) {
+        this.maxSize = Math.max(maxSize, 1);
+        this.maxBytes = Math.max(maxBytes, 1);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(lingerMillis, 1L));
+        this.estimator = estimator;
+        this.flusher = flusher;
+        this.buffer = new ArrayList<>(this.maxSize);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(lingerMillis / 2, 1L);
+        this.scheduler.scheduleAtFixedRate(this::flushExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 添加元素，达到数量或字节数阈值时在当前线程发送一批
+     *
+     * @param element 元素
+     */
+    public void add(T element) {
+        List<T> batch = null;
+        synchronized (this) {
+            if (this.buffer.isEmpty()) {
+                this.firstNanos = System.nanoTime();
+            }
+            this.buffer.add(element);
+            this.bytes += this.estimator.applyAsInt(element);
+            if (this.buffer.size() >= this.maxSize || this.bytes >= this.maxBytes) {
+                batch = drain();
+            }
+        }
+        if (batch != null) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * 立即发送已累积的元素
+     */
+    public void flush() {
+        List<T> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        flush(batch);
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdown();
+        flush();
+    }
+
+    private void flushExpired() {
+        List<T> batch = null;
+        synchronized (this) {
+            if (!this.buffer.isEmpty() && System.nanoTime() - this.firstNanos >= this.lingerNanos) {
+                batch = drain();
+            }
+        }
+        if (batch != null) {
+            flush(batch);
+        }
+    }
+
+    private List<T> drain() {
+        List<T> batch = this.buffer;
+        this.buffer = new ArrayList<>(this.maxSize);
+        this.bytes = 0;
+        return batch;
+    }
+
+    private void flush(List<T> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.flusher.accept(batch);
+        } catch (Exception e) {
+            log.error("Flush batch of {} elements error: {}", batch.size(), e.getMessage(), e);
+        }
+    }
+}
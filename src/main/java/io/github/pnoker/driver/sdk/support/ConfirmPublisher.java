@@ -0,0 +1,327 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步确认发送管道
+ * <p>
+ * 调用线程只负责把消息放入有界队列，由发送线程完成序列化和发送，并通过关联的 Publisher Confirm 确认投递结果；
+ * 在途消息数量受发送窗口限制，被 Nack、被退回或确认超时的消息按指数退避延迟后排在队首重新发送，退避期间暂停发送，
+ * 同一 Routing Key 的消息在重试后仍排在更新的消息之前；发送窗口内已同时在途的消息之间可能乱序。
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+public class ConfirmPublisher implements AutoCloseable {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final boolean confirms;
+    private final int maxRetries;
+    private final long timeoutNanos;
+    private final long retryBackoffNanos;
+    private final long maxRetryBackoffNanos;
+    private final int queueCapacity;
+
+    private final BlockingDeque<Outbound> queue;
+    private final Semaphore window;
+    private final Map<String, Outbound> pending = new ConcurrentHashMap<>(16);
+    private final Thread sender;
+    private final ScheduledExecutorService sweeper;
+    private volatile boolean running = true;
+    private volatile Fallback fallback;
+
+    /**
+     * 发送失败后暂停发送直到该时间，System.nanoTime
+     */
+    private final AtomicLong pausedUntil = new AtomicLong(System.nanoTime());
+
+    private final AtomicLong publishedCount = new AtomicLong(0);
+    private final AtomicLong confirmedCount = new AtomicLong(0);
+    private final AtomicLong retriedCount = new AtomicLong(0);
+    private final AtomicLong droppedCount = new AtomicLong(0);
+
+    /**
+     * 创建异步确认发送管道
+     *
+     * @param rabbitTemplate 发送使用的 RabbitTemplate，需开启 mandatory
+     * @param queueCapacity  待发送队列容量
+     * @param window         最大在途消息数量
+     * @param maxRetries     最大重试次数
+     * @param timeoutMillis  确认超时时间，单位毫秒
+     * @param backoffMillis  首次重试前的退避时间，单位毫秒，之后每次重试翻倍
+     * @param maxBackoff     最大退避时间，单位毫秒
+     */
+    public ConfirmPublisher(RabbitTemplate rabbitTemplate, int queueCapacity, int window, int maxRetries, long timeoutMillis, long backoffMillis, long maxBackoff) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.confirms = rabbitTemplate.getConnectionFactory().isPublisherConfirms();
+        this.maxRetries = Math.max(maxRetries, 0);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutMillis, 1L));
+        this.retryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(backoffMillis, 0L));
+        this.maxRetryBackoffNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(Math.max(maxBackoff, 0L)), this.retryBackoffNanos);
+        this.queueCapacity = Math.max(queueCapacity, 1);
+        // Retries are bounded by the window and always find room at the head
+        this.queue = new LinkedBlockingDeque<>(this.queueCapacity + Math.max(window, 1));
+        this.window = new Semaphore(Math.max(window, 1));
+        if (!this.confirms) {
+            log.warn("Publisher confirms are not enabled on the connection factory, messages are sent without delivery confirmation");
+        }
+
+        this.sender = new Thread(this::sendLoop, "dc3-driver-confirm-publisher");
+        this.sender.setDaemon(true);
+        this.sender.start();
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dc3-driver-confirm-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(timeoutMillis / 2, 1L);
+        this.sweeper.scheduleAtFixedRate(this::sweep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交消息，不等待发送结果，队列已满时丢弃消息
+     *
+     * @param exchange      Exchange
+     * @param routingKey    Routing Key
+     * @param payload       消息内容
+     * @param postProcessor 消息后置处理，可为 null
+     * @return 是否提交成功
+     */
+    public boolean publish(String exchange, String routingKey, Object payload, MessagePostProcessor postProcessor) {
+        Outbound outbound = new Outbound(exchange, routingKey, payload, postProcessor);
+        if (this.queue.size() < this.queueCapacity && this.queue.offerLast(outbound)) {
+            return true;
+        }
+
+        drop(outbound, "queue is full");
+        return false;
+    }
+
+    /**
+     * 设置无法投递消息的兜底处理，未设置时丢弃
+     *
+     * @param fallback Fallback
+     */
+    public void setFallback(Fallback fallback) {
+        this.fallback = fallback;
+    }
+
+    public long getPublishedCount() {
+        return this.publishedCount.get();
+    }
+
+    public long getConfirmedCount() {
+        return this.confirmedCount.get();
+    }
+
+    public long getRetriedCount() {
+        return this.retriedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    public int getQueueSize() {
+        return this.queue.size();
+    }
+
+    public int getPendingCount() {
+        return this.pending.size();
+    }
+
+    @Override
+    public void close() {
+        this.running = false;
+        this.sender.interrupt();
+        this.sweeper.shutdown();
+    }
+
+    private void sendLoop() {
+        while (this.running) {
+            try {
+                this.window.acquire();
+                Outbound outbound;
+                try {
+                    outbound = this.queue.takeFirst();
+                } catch (InterruptedException e) {
+                    this.window.release();
+                    throw e;
+                }
+
+                long pause = this.pausedUntil.get() - System.nanoTime();
+                if (pause > 0) {
+                    // A send failed recently, keep the message at the head and wait out the backoff
+                    this.window.release();
+                    if (!this.queue.offerFirst(outbound)) {
+                        drop(outbound, "queue is full");
+                    }
+                    TimeUnit.NANOSECONDS.sleep(pause);
+                    continue;
+                }
+                send(outbound);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Confirm publisher send error: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void send(Outbound outbound) {
+        CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
+        outbound.sentNanos = System.nanoTime();
+        this.pending.put(correlationData.getId(), outbound);
+        try {
+            if (outbound.postProcessor == null) {
+                this.rabbitTemplate.convertAndSend(outbound.exchange, outbound.routingKey, outbound.payload, correlationData);
+            } else {
+                this.rabbitTemplate.convertAndSend(outbound.exchange, outbound.routingKey, outbound.payload, outbound.postProcessor, correlationData);
+            }
+            this.publishedCount.incrementAndGet();
+        } catch (Exception e) {
+            failed(correlationData.getId(), e.getMessage());
+            return;
+        }
+
+        if (!this.confirms) {
+            confirmed(correlationData.getId());
+            return;
+        }
+
+        correlationData.getFuture().addCallback(confirm -> {
+            if (confirm != null && confirm.isAck() && correlationData.getReturned() == null) {
+                confirmed(correlationData.getId());
+            } else if (correlationData.getReturned() != null) {
+                failed(correlationData.getId(), "returned: " + correlationData.getReturned().getReplyText());
+            } else {
+                failed(correlationData.getId(), "nacked: " + (confirm == null ? null : confirm.getReason()));
+            }
+        }, throwable -> failed(correlationData.getId(), throwable.getMessage()));
+    }
+
+    private void confirmed(String id) {
+        if (this.pending.remove(id) != null) {
+            this.window.release();
+            this.confirmedCount.incrementAndGet();
+        }
+    }
+
+    private void failed(String id, String reason) {
+        Outbound outbound = this.pending.remove(id);
+        if (outbound == null) {
+            return;
+        }
+
+        if (outbound.attempts++ < this.maxRetries) {
+            // Pause before the message goes back to the head, so the sender cannot pass it meanwhile
+            long backoff = Math.min(this.retryBackoffNanos << Math.min(outbound.attempts - 1, 20), this.maxRetryBackoffNanos);
+            long until = System.nanoTime() + backoff;
+            this.pausedUntil.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+            if (this.queue.offerFirst(outbound)) {
+                this.window.release();
+                this.retriedCount.incrementAndGet();
+                log.debug("Retry message to {} in {}ms, attempt: {}, reason: {}", outbound.routingKey, TimeUnit.NANOSECONDS.toMillis(backoff), outbound.attempts, reason);
+                return;
+            }
+        }
+
+        this.window.release();
+        drop(outbound, reason);
+    }
+
+    /**
+     * 无法投递的消息交由兜底处理，没有兜底处理时丢弃
+     *
+     * @param outbound 待发送消息
+     * @param reason   原因
+     */
+    private void drop(Outbound outbound, String reason) {
+        Fallback current = this.fallback;
+        if (current != null) {
+            log.debug("Hand over message to {} to fallback after {} attempts, reason: {}", outbound.routingKey, outbound.attempts, reason);
+            current.accept(outbound.exchange, outbound.routingKey, outbound.payload, outbound.postProcessor);
+            return;
+        }
+
+        this.droppedCount.incrementAndGet();
+        log.warn("Drop message to {} after {} attempts, reason: {}", outbound.routingKey, outbound.attempts, reason);
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        this.pending.forEach((id, outbound) -> {
+            if (now - outbound.sentNanos >= this.timeoutNanos) {
+                failed(id, "confirm timeout");
+            }
+        });
+    }
+
+    /**
+     * 无法投递消息的兜底处理
+     */
+    @FunctionalInterface
+    public interface Fallback {
+        /**
+         * 处理无法投递的消息
+         *
+         * @param exchange      Exchange
+         * @param routingKey    Routing Key
+         * @param payload       消息内容
+         * @param postProcessor 消息后置处理，可为 null
+         */
+        void accept(String exchange, String routingKey, Object payload, MessagePostProcessor postProcessor);
+    }
+
+    /**
+     * 待发送消息
+     */
+    private static final class Outbound {
+        private final String exchange;
+        private final String routingKey;
+        private final Object payload;
+        private final MessagePostProcessor postProcessor;
+        private volatile long sentNanos;
+        private int attempts;
+
+        private Outbound(String exchange, String routingKey, Object payload, MessagePostProcessor postProcessor) {
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.payload = payload;
+            this.postProcessor = postProcessor;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import io.github.pnoker.driver.sdk.entity.property.ExecutorProperty;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 记录拒绝次数的线程池拒绝策略
+ * <p>
+ * 丢弃最早排队的任务或拒绝新任务时，被丢弃的 {@link DroppableRunnable} 会收到回调，避免其占用的资源无法释放
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public class CountingRejectedHandler implements RejectedExecutionHandler {
+
+    private final String name;
+    private final ExecutorProperty.RejectPolicy policy;
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+
+    public CountingRejectedHandler(String name, ExecutorProperty.RejectPolicy policy) {
+        this.name = name;
+        this.policy = policy;
+    }
+
+    @Override
+    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+        rejectedCount.incrementAndGet();
+        if (executor.isShutdown()) {
+            DroppableRunnable.drop(runnable);
+            return;
+        }
+
+        switch (policy) {
+            case DROP_OLDEST:
+                Runnable oldest = executor.getQueue().poll();
+                if (oldest != null) {
+                    DroppableRunnable.drop(oldest);
+                }
+                executor.execute(runnable);
+                break;
+            case CALLER_RUNS:
+                runnable.run();
+                break;
+            default:
+                throw new RejectedExecutionException(name + " executor is saturated, queue size: " + executor.getQueue().size());
+        }
+    }
+
+    /**
+     * 获取拒绝次数
+     *
+     * @return 拒绝次数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+}
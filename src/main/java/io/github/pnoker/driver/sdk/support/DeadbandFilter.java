@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import io.github.pnoker.common.entity.point.PointValue;
+import io.github.pnoker.driver.sdk.entity.read.Deadband;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 位号值死区过滤器
+ * <p>
+ * 记录每个位号最近一次上报的值和时间，仅当数值变化超过死区、非数值内容发生变化或超过最长静默时间时才上报
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Component
+public class DeadbandFilter {
+
+    /**
+     * 最近一次上报，deviceId -> (pointId -> Sample)
+     */
+    private final Map<String, Map<String, Sample>> samples = new ConcurrentHashMap<>(16);
+    private final AtomicLong suppressedCount = new AtomicLong(0);
+
+    /**
+     * 判断位号值是否需要上报，需要上报时同时记录为最近一次上报
+     *
+     * @param deadband   位号死区配置，为 null 时总是上报且不记录
+     * @param pointValue PointValue
+     * @return boolean
+     */
+    public boolean report(Deadband deadband, PointValue pointValue) {
+        if (deadband == null) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        double value = parse(pointValue.getValue());
+        Sample sample = samples.computeIfAbsent(pointValue.getDeviceId(), k -> new ConcurrentHashMap<>(16))
+                .computeIfAbsent(pointValue.getPointId(), k -> new Sample());
+        synchronized (sample) {
+            if (!sample.sent || silent(deadband, sample, now) || changed(deadband, sample, value, pointValue.getValue())) {
+                sample.value = value;
+                sample.text = pointValue.getValue();
+                sample.sentNanos = now;
+                sample.sent = true;
+                return true;
+            }
+        }
+
+        suppressedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 记录位号值为最近一次上报，用于不经过死区判断直接上报的位号值
+     *
+     * @param deadband   位号死区配置，为 null 时不记录
+     * @param pointValue PointValue
+     */
+    public void record(Deadband deadband, PointValue pointValue) {
+        if (deadband == null) {
+            return;
+        }
+
+        Sample sample = samples.computeIfAbsent(pointValue.getDeviceId(), k -> new ConcurrentHashMap<>(16))
+                .computeIfAbsent(pointValue.getPointId(), k -> new Sample());
+        synchronized (sample) {
+            sample.value = parse(pointValue.getValue());
+            sample.text = pointValue.getValue();
+            sample.sentNanos = System.nanoTime();
+            sample.sent = true;
+        }
+    }
+
+    /**
+     * 删除设备后，移除该设备的上报记录
+     *
+     * @param deviceId 设备ID
+     */
+    public void removeDevice(String deviceId) {
+        samples.remove(deviceId);
+    }
+
+    /**
+     * 删除位号后，移除全部设备中该位号的上报记录
+     *
+     * @param pointId 位号ID
+     */
+    public void removePoint(String pointId) {
+        samples.values().forEach(pointSamples -> pointSamples.remove(pointId));
+    }
+
+    /**
+     * 获取被死区过滤的位号值数量
+     *
+     * @return 数量
+     */
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    private boolean silent(Deadband deadband, Sample sample, long now) {
+        return deadband.getMaxSilence() > 0 && now - sample.sentNanos >= TimeUnit.MILLISECONDS.toNanos(deadband.getMaxSilence());
+    }
+
+    private boolean changed(Deadband deadband, Sample sample, double value, String text) {
+        if (Double.isNaN(value) || Double.isNaN(sample.value)) {
+            return !Objects.equals(text, sample.text);
+        }
+
+        double threshold = Math.max(deadband.getAbsolute(), Math.abs(sample.value) * deadband.getPercent() / 100D);
+        return Math.abs(value - sample.value) > threshold;
+    }
+
+    /**
+     * 解析数值，非数值内容返回 NaN
+     *
+     * @param value 位号值
+     * @return double
+     */
+    private double parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return Double.NaN;
+        }
+
+        char first = value.charAt(0);
+        if ((first < '0' || first > '9') && first != '-' && first != '+' && first != '.') {
+            return Double.NaN;
+        }
+
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * 位号最近一次上报
+     */
+    private static final class Sample {
+        private double value = Double.NaN;
+        private String text;
+        private long sentNanos;
+        private boolean sent;
+    }
+}
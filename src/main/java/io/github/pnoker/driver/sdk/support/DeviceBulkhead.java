@@ -0,0 +1,384 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 设备隔离舱，限制每个设备以及每个主机上的并发操作数
+ * <p>
+ * 超出限制的操作在设备本地队列中排队，而不是占用公共执行器；
+ * 受主机并发数限制的设备按先后顺序轮流获得执行机会，避免少数超时设备占满全部工作线程。
+ * 指令操作优先于调度读取出队，并在独立的指令执行器中运行；被执行器丢弃的操作会释放设备和主机并发数。
+ * 设备主机在每次提交时按最新的驱动配置信息确定，已出队的操作仍占用出队时的主机并发数；
+ * 设备队列有容量上限，队列已满时拒绝新提交的操作并抛出 {@link RejectedExecutionException}。
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+public class DeviceBulkhead {
+
+    private final Executor delegate;
+    private final Executor commandDelegate;
+    private final int deviceConcurrency;
+    private final int hostConcurrency;
+    private final int queueCapacity;
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+
+    private final Map<String, Lane> lanes = new HashMap<>(16);
+    private final Map<String, Host> hosts = new HashMap<>(16);
+
+    /**
+     * 当前线程待提交的操作，避免执行器拒绝后释放并发数时递归提交
+     */
+    private final ThreadLocal<Deque<LaneTask>> pending = new ThreadLocal<>();
+
+    public DeviceBulkhead(Executor delegate, int deviceConcurrency, int hostConcurrency) {
+        this(delegate, delegate, deviceConcurrency, hostConcurrency);
+    }
+
+    public DeviceBulkhead(Executor delegate, Executor commandDelegate, int deviceConcurrency, int hostConcurrency) {
+        this(delegate, commandDelegate, deviceConcurrency, hostConcurrency, Integer.MAX_VALUE);
+    }
+
+    public DeviceBulkhead(Executor delegate, Executor commandDelegate, int deviceConcurrency, int hostConcurrency, int queueCapacity) {
+        this.delegate = delegate;
+        this.commandDelegate = commandDelegate;
+        this.deviceConcurrency = Math.max(deviceConcurrency, 1);
+        this.hostConcurrency = Math.max(hostConcurrency, 1);
+        this.queueCapacity = Math.max(queueCapacity, 1);
+    }
+
+    /**
+     * 提交设备操作
+     *
+     * @param deviceId 设备ID
+     * @param host     设备主机，为空时不限制主机并发数
+     * @param task     设备操作
+     * @throws RejectedExecutionException 设备队列已满
+     */
+    public void execute(String deviceId, String host, Runnable task) {
+        execute(deviceId, host, task, false);
+    }
+
+    /**
+     * 提交设备指令操作，优先于排队中的调度读取执行
+     *
+     * @param deviceId 设备ID
+     * @param host     设备主机，为空时不限制主机并发数
+     * @param task     设备操作
+     * @throws RejectedExecutionException 设备队列已满
+     */
+    public void executeCommand(String deviceId, String host, Runnable task) {
+        execute(deviceId, host, task, true);
+    }
+
+    private void execute(String deviceId, String host, Runnable task, boolean command) {
+        List<LaneTask> runnables = new ArrayList<>(1);
+        synchronized (this) {
+            Lane lane = this.lanes.computeIfAbsent(deviceId, k -> new Lane(deviceId));
+            if (lane.size() >= this.queueCapacity) {
+                this.rejectedCount.incrementAndGet();
+                throw new RejectedExecutionException("Device(" + deviceId + ") queue is full, size: " + lane.size());
+            }
+
+            rehost(lane, host);
+            (command ? lane.commands : lane.queue).offer(task);
+            dispatch(lane, runnables);
+        }
+        submit(runnables);
+    }
+
+    /**
+     * 设备主机变化时把设备通道转到新的主机，等待中的通道从原主机的等待队列中移出
+     *
+     * @param lane 设备通道
+     * @param name 设备主机，为空时不限制主机并发数
+     */
+    private void rehost(Lane lane, String name) {
+        Host current = lane.host;
+        if (Objects.equals(current == null ? null : current.name, name)) {
+            return;
+        }
+
+        if (current != null) {
+            if (lane.waiting) {
+                current.waiting.remove(lane);
+                lane.waiting = false;
+            }
+            if (current.active == 0 && current.waiting.isEmpty()) {
+                this.hosts.remove(current.name, current);
+            }
+        }
+        lane.host = name == null ? null : this.hosts.computeIfAbsent(name, Host::new);
+    }
+
+    /**
+     * 获取设备排队中的操作数量
+     *
+     * @param deviceId 设备ID
+     * @return 排队数量
+     */
+    public synchronized int getQueueDepth(String deviceId) {
+        Lane lane = this.lanes.get(deviceId);
+        return lane == null ? 0 : lane.size();
+    }
+
+    /**
+     * 获取全部设备排队中的操作数量
+     *
+     * @return Map 设备ID:排队数量
+     */
+    public synchronized Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new HashMap<>(this.lanes.size() * 4 / 3 + 1);
+        this.lanes.forEach((deviceId, lane) -> depths.put(deviceId, lane.size()));
+        return depths;
+    }
+
+    /**
+     * 获取全部设备排队中的操作总数
+     *
+     * @return 排队总数
+     */
+    public synchronized int getQueueSize() {
+        int size = 0;
+        for (Lane lane : this.lanes.values()) {
+            size += lane.size();
+        }
+        return size;
+    }
+
+    /**
+     * 获取因设备队列已满被拒绝的操作数量
+     *
+     * @return 拒绝数量
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * 获取正在执行的设备操作数量
+     *
+     * @return 执行数量
+     */
+    public synchronized int getActiveCount() {
+        int active = 0;
+        for (Lane lane : this.lanes.values()) {
+            active += lane.active;
+        }
+        return active;
+    }
+
+    /**
+     * 在设备和主机并发数允许的范围内，从设备队列中取出操作
+     *
+     * @param lane      设备通道
+     * @param runnables 待执行的操作
+     */
+    private void dispatch(Lane lane, List<LaneTask> runnables) {
+        while (!lane.isEmpty() && lane.active < this.deviceConcurrency) {
+            Host host = lane.host;
+            if (host != null && host.active >= this.hostConcurrency) {
+                if (!lane.waiting) {
+                    lane.waiting = true;
+                    host.waiting.offer(lane);
+                }
+                return;
+            }
+
+            boolean command = !lane.commands.isEmpty();
+            Runnable task = command ? lane.commands.poll() : lane.queue.poll();
+            lane.active++;
+            if (host != null) {
+                host.active++;
+            }
+            runnables.add(new LaneTask(lane, host, task, command ? this.commandDelegate : this.delegate));
+        }
+    }
+
+    /**
+     * 操作完成后释放设备和出队时占用的主机并发数，并让等待中的设备继续执行
+     *
+     * @param lane 设备通道
+     * @param host 操作出队时占用的主机，可为 null
+     */
+    private void release(Lane lane, Host host) {
+        List<LaneTask> runnables = new ArrayList<>(1);
+        synchronized (this) {
+            lane.active--;
+            if (host == null) {
+                dispatch(lane, runnables);
+            } else {
+                host.active--;
+                if (lane.host != host) {
+                    // The device moved to another host, continue on the new one
+                    dispatch(lane, runnables);
+                } else if (!lane.isEmpty() && !lane.waiting) {
+                    // Queue behind the devices already waiting for this host
+                    lane.waiting = true;
+                    host.waiting.offer(lane);
+                }
+                while (host.active < this.hostConcurrency && !host.waiting.isEmpty()) {
+                    Lane next = host.waiting.poll();
+                    next.waiting = false;
+                    dispatch(next, runnables);
+                }
+                if (host.active == 0 && host.waiting.isEmpty()) {
+                    this.hosts.remove(host.name, host);
+                }
+            }
+
+            if (lane.active == 0 && lane.isEmpty()) {
+                this.lanes.remove(lane.deviceId, lane);
+            }
+        }
+        submit(runnables);
+    }
+
+    /**
+     * 提交操作，已在提交过程中时加入当前线程的待提交队列，由最外层依次提交
+     *
+     * @param runnables 待执行的操作
+     */
+    private void submit(List<LaneTask> runnables) {
+        if (runnables.isEmpty()) {
+            return;
+        }
+
+        Deque<LaneTask> queue = this.pending.get();
+        if (queue != null) {
+            queue.addAll(runnables);
+            return;
+        }
+
+        queue = new ArrayDeque<>(runnables);
+        this.pending.set(queue);
+        try {
+            LaneTask task;
+            while ((task = queue.poll()) != null) {
+                run(task);
+            }
+        } finally {
+            this.pending.remove();
+        }
+    }
+
+    /**
+     * 在执行器中运行操作，执行器拒绝时丢弃可丢弃的操作，否则在当前线程运行
+     *
+     * @param task 操作
+     */
+    private void run(LaneTask task) {
+        try {
+            task.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (task.task instanceof DroppableRunnable) {
+                log.warn("Device({}) operation rejected by executor, dropped: {}", task.lane.deviceId, e.getMessage());
+                task.drop();
+                return;
+            }
+            log.warn("Device operation rejected by executor, run in caller thread: {}", e.getMessage());
+            task.run();
+        }
+    }
+
+    /**
+     * 已出队的设备操作，运行或被丢弃后释放设备和主机并发数
+     */
+    private final class LaneTask implements DroppableRunnable {
+        private final Lane lane;
+        private final Host host;
+        private final Runnable task;
+        private final Executor executor;
+
+        private LaneTask(Lane lane, Host host, Runnable task, Executor executor) {
+            this.lane = lane;
+            this.host = host;
+            this.task = task;
+            this.executor = executor;
+        }
+
+        @Override
+        public void run() {
+            try {
+                this.task.run();
+            } finally {
+                release(this.lane, this.host);
+            }
+        }
+
+        @Override
+        public void drop() {
+            try {
+                DroppableRunnable.drop(this.task);
+            } finally {
+                release(this.lane, this.host);
+            }
+        }
+    }
+
+    /**
+     * 设备通道
+     */
+    private static final class Lane {
+        private final String deviceId;
+        private final Queue<Runnable> queue = new ArrayDeque<>();
+        private final Queue<Runnable> commands = new ArrayDeque<>();
+        private Host host;
+        private int active;
+        private boolean waiting;
+
+        private Lane(String deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        private boolean isEmpty() {
+            return this.queue.isEmpty() && this.commands.isEmpty();
+        }
+
+        private int size() {
+            return this.queue.size() + this.commands.size();
+        }
+    }
+
+    /**
+     * 主机
+     */
+    private static final class Host {
+        private final String name;
+        private final Queue<Lane> waiting = new ArrayDeque<>();
+        private int active;
+
+        private Host(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pnoker.driver.sdk.support;
+
+import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 驱动执行器生命周期
+ * <p>
+ * 应用停止时先限时关闭调度读取和指令读写执行器，再关闭消息发送执行器，设备读写产生的消息仍可发送；
+ * 在 Bean 销毁之前完成，执行中的任务不会用到已销毁的 RabbitTemplate 和消息缓存，超时后中断未完成的任务
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+@Component
+public class DriverExecutorLifecycle implements SmartLifecycle {
+
+    /**
+     * 在消息监听容器和调度器停止之后停止
+     */
+    private static final int PHASE = Integer.MAX_VALUE - 1000;
+
+    @Resource
+    private DriverProperty driverProperty;
+    @Resource
+    private ExecutorService driverPollingExecutor;
+    @Resource
+    private ExecutorService driverCommandExecutor;
+    @Resource
+    private ThreadPoolExecutor driverPublishExecutor;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        long timeout = Math.max(driverProperty.getExecutor().getShutdownTimeout(), 0L);
+        // Device I/O first, its values are still published by the publish executor
+        shutdown(timeout, driverPollingExecutor, driverCommandExecutor);
+        shutdown(timeout, driverPublishExecutor);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * 关闭执行器并等待任务完成，超时或被中断时中断未完成的任务
+     *
+     * @param timeout   等待时间，单位毫秒
+     * @param executors 执行器
+     */
+    private void shutdown(long timeout, ExecutorService... executors) {
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        for (ExecutorService executor : executors) {
+            try {
+                if (!executor.awaitTermination(Math.max(deadline - System.nanoTime(), 0L), TimeUnit.NANOSECONDS)) {
+                    log.warn("Driver executor did not terminate in {}ms, interrupt the running tasks and drop {} queued tasks", timeout, executor.shutdownNow().size());
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
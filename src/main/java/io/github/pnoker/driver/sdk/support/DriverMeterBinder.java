@@ -0,0 +1,368 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import cn.hutool.core.util.ObjectUtil;
+import io.github.pnoker.driver.sdk.DriverContext;
+import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 驱动指标
+ * <p>
+ * 由 Spring Boot Actuator 绑定到 MeterRegistry 后开始记录，未绑定或未启用时记录方法直接返回。
+ * 按设备区分的指标最多包含 driver.metrics.max-device-tags 个设备，超出的设备合并为 other；
+ * 不能直接注入本类的组件通过 {@link #register(MeterBinder)} 注册自己的指标，避免循环依赖
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+@Component
+public class DriverMeterBinder implements MeterBinder {
+
+    /**
+     * 超出设备标签上限的设备使用的标签值
+     */
+    public static final String OTHER_DEVICE = "other";
+
+    @Resource
+    private DriverProperty driverProperty;
+    @Resource
+    private DriverContext driverContext;
+    @Resource
+    private Executor driverPollingExecutor;
+    @Resource
+    private Executor driverCommandExecutor;
+    @Resource
+    private ThreadPoolExecutor driverPublishExecutor;
+    @Resource
+    private DeviceBulkhead driverBulkhead;
+    @Resource
+    private DeadbandFilter deadbandFilter;
+
+    private volatile MeterRegistry registry;
+    private Timer convertTimer;
+    private Timer scheduleLagTimer;
+
+    /**
+     * 由其他组件注册的指标
+     */
+    private final List<MeterBinder> binders = new ArrayList<>();
+
+    /**
+     * 拥有独立设备标签的设备ID
+     */
+    private final Set<String> taggedDevices = new HashSet<>();
+
+    /**
+     * deviceId -> 设备指标，超出设备标签上限的设备共享 other 设备指标
+     */
+    private final Map<String, DeviceMeters> deviceMeterMap = new ConcurrentHashMap<>(16);
+
+    /**
+     * exchange -> 发送指标
+     */
+    private final Map<String, SendMeters> sendMeterMap = new ConcurrentHashMap<>(16);
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        if (ObjectUtil.isNotNull(this.registry) || !Boolean.TRUE.equals(driverProperty.getMetrics().getEnable())) {
+            return;
+        }
+
+        convertTimer = Timer.builder("dc3.driver.convert")
+                .description("Time spent converting raw point values")
+                .register(registry);
+        scheduleLagTimer = Timer.builder("dc3.driver.schedule.lag")
+                .description("Delay between the scheduled and actual fire time of the read job")
+                .tag("job", "read")
+                .register(registry);
+
+        // Executor saturation
+        executorMeters(registry, "polling", driverPollingExecutor);
+        executorMeters(registry, "command", driverCommandExecutor);
+        executorMeters(registry, "publish", driverPublishExecutor);
+        Gauge.builder("dc3.driver.bulkhead.active", driverBulkhead, DeviceBulkhead::getActiveCount)
+                .description("Device operations currently running")
+                .register(registry);
+        FunctionCounter.builder("dc3.driver.bulkhead.rejected", driverBulkhead, DeviceBulkhead::getRejectedCount)
+                .description("Device operations rejected because the device queue is full")
+                .register(registry);
+        FunctionCounter.builder("dc3.driver.deadband.suppressed", deadbandFilter, DeadbandFilter::getSuppressedCount)
+                .description("Point values suppressed by the deadband filter")
+                .register(registry);
+
+        // Metadata sizes
+        metadataGauge(registry, "device", () -> driverContext.getDriverMetadata().getDeviceMap().size());
+        metadataGauge(registry, "profile", () -> driverContext.getDriverMetadata().getProfilePointMap().size());
+        metadataGauge(registry, "point", () -> driverContext.getDevicePointCount());
+        metadataGauge(registry, "driver_info", () -> driverContext.getDriverMetadata().getDriverInfoMap().size());
+        metadataGauge(registry, "point_info", () -> driverContext.getDriverMetadata().getPointInfoMap().size());
+        metadataGauge(registry, "read_target", () -> driverContext.getReadPlan().getTargets().length);
+
+        binders.forEach(binder -> binder.bindTo(registry));
+        this.registry = registry;
+    }
+
+    /**
+     * 注册其他组件的指标，已绑定 MeterRegistry 时立即绑定
+     *
+     * @param binder MeterBinder
+     */
+    public synchronized void register(MeterBinder binder) {
+        binders.add(binder);
+        if (ObjectUtil.isNotNull(registry)) {
+            binder.bindTo(registry);
+        }
+    }
+
+    /**
+     * 记录设备读取
+     *
+     * @param deviceId 设备ID
+     * @param nanos    耗时，单位纳秒
+     * @param success  是否成功
+     */
+    public void recordRead(String deviceId, long nanos, boolean success) {
+        DeviceMeters meters = deviceMeters(deviceId);
+        if (ObjectUtil.isNotNull(meters)) {
+            (success ? meters.readSuccess : meters.readError).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 记录设备分组读取中单个位号的读取失败
+     *
+     * @param deviceId 设备ID
+     */
+    public void recordPointError(String deviceId) {
+        DeviceMeters meters = deviceMeters(deviceId);
+        if (ObjectUtil.isNotNull(meters)) {
+            meters.pointError.increment();
+        }
+    }
+
+    /**
+     * 设备删除后释放设备指标和设备标签，释放的设备标签可以分配给其他设备；合并到 other 的设备只移除映射
+     *
+     * @param deviceId 设备ID
+     */
+    public synchronized void removeDevice(String deviceId) {
+        DeviceMeters meters = deviceMeterMap.remove(deviceId);
+        MeterRegistry meterRegistry = registry;
+        if (taggedDevices.remove(deviceId) && ObjectUtil.isNotNull(meters) && ObjectUtil.isNotNull(meterRegistry)) {
+            meters.remove(meterRegistry);
+        }
+    }
+
+    /**
+     * 记录位号值转换
+     *
+     * @param nanos 耗时，单位纳秒
+     */
+    public void recordConvert(long nanos) {
+        if (ObjectUtil.isNotNull(registry)) {
+            convertTimer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 记录消息发送
+     *
+     * @param exchange Exchange
+     * @param nanos    耗时，单位纳秒
+     * @param success  是否成功
+     */
+    public void recordSend(String exchange, long nanos, boolean success) {
+        MeterRegistry meterRegistry = registry;
+        if (ObjectUtil.isNull(meterRegistry)) {
+            return;
+        }
+
+        SendMeters meters = sendMeterMap.computeIfAbsent(exchange, k -> new SendMeters(meterRegistry, k));
+        (success ? meters.success : meters.failure).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录读任务的调度延迟
+     *
+     * @param millis 延迟，单位毫秒
+     */
+    public void recordScheduleLag(long millis) {
+        if (ObjectUtil.isNotNull(registry)) {
+            scheduleLagTimer.record(Math.max(millis, 0L), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 获取设备指标，未绑定 MeterRegistry 时返回 null
+     *
+     * @param deviceId 设备ID
+     * @return DeviceMeters
+     */
+    private DeviceMeters deviceMeters(String deviceId) {
+        MeterRegistry meterRegistry = registry;
+        if (ObjectUtil.isNull(meterRegistry)) {
+            return null;
+        }
+
+        DeviceMeters meters = deviceMeterMap.get(deviceId);
+        if (ObjectUtil.isNotNull(meters)) {
+            return meters;
+        }
+
+        String tag = deviceTag(deviceId);
+        DeviceMeters tagMeters = deviceMeterMap.computeIfAbsent(tag, k -> new DeviceMeters(meterRegistry, k));
+        deviceMeterMap.putIfAbsent(deviceId, tagMeters);
+        return tagMeters;
+    }
+
+    /**
+     * 获取设备标签，超出设备标签上限时返回 other
+     *
+     * @param deviceId 设备ID
+     * @return 设备标签
+     */
+    private synchronized String deviceTag(String deviceId) {
+        if (taggedDevices.contains(deviceId)) {
+            return deviceId;
+        }
+
+        Integer maxDeviceTags = driverProperty.getMetrics().getMaxDeviceTags();
+        if (ObjectUtil.isNotNull(maxDeviceTags) && taggedDevices.size() < maxDeviceTags) {
+            taggedDevices.add(deviceId);
+            return deviceId;
+        }
+        return OTHER_DEVICE;
+    }
+
+    private void executorMeters(MeterRegistry registry, String name, Executor executor) {
+        String executorName = "dc3-driver-" + name;
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            new ExecutorServiceMetrics(pool, executorName, Tags.empty()).bindTo(registry);
+            if (pool.getRejectedExecutionHandler() instanceof CountingRejectedHandler) {
+                FunctionCounter.builder("dc3.driver.executor.rejected", (CountingRejectedHandler) pool.getRejectedExecutionHandler(), CountingRejectedHandler::getRejectedCount)
+                        .description("Tasks rejected by the saturated executor")
+                        .tag("name", executorName)
+                        .register(registry);
+            }
+        } else if (executor instanceof LimitedExecutor) {
+            LimitedExecutor limited = (LimitedExecutor) executor;
+            Gauge.builder("executor.active", limited, LimitedExecutor::getActiveCount).tag("name", executorName).register(registry);
+            Gauge.builder("executor.queued", limited, LimitedExecutor::getQueueSize).tag("name", executorName).register(registry);
+            FunctionCounter.builder("dc3.driver.executor.rejected", limited, LimitedExecutor::getRejectedCount)
+                    .description("Tasks rejected by the saturated executor")
+                    .tag("name", executorName)
+                    .register(registry);
+        }
+    }
+
+    private void metadataGauge(MeterRegistry registry, String type, Counting counting) {
+        Gauge.builder("dc3.driver.metadata.size", counting, Counting::count)
+                .description("Size of the driver metadata held in memory")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    @FunctionalInterface
+    private interface Counting {
+        double count();
+    }
+
+    /**
+     * 设备指标
+     */
+    private static class DeviceMeters {
+
+        private final Timer readSuccess;
+        private final Timer readError;
+        private final Counter pointError;
+
+        DeviceMeters(MeterRegistry registry, String device) {
+            this.readSuccess = readTimer(registry, device, "success");
+            this.readError = readTimer(registry, device, "error");
+            this.pointError = Counter.builder("dc3.driver.read.point.errors")
+                    .description("Points of a device read that returned no valid value")
+                    .tag("device", device)
+                    .register(registry);
+        }
+
+        /**
+         * 从 MeterRegistry 中移除设备指标
+         *
+         * @param registry MeterRegistry
+         */
+        void remove(MeterRegistry registry) {
+            registry.remove(readSuccess);
+            registry.remove(readError);
+            registry.remove(pointError);
+        }
+
+        private static Timer readTimer(MeterRegistry registry, String device, String outcome) {
+            return Timer.builder("dc3.driver.read")
+                    .description("Device read latency")
+                    .tag("device", device)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * 发送指标
+     */
+    private static class SendMeters {
+
+        private final Timer success;
+        private final Timer failure;
+
+        SendMeters(MeterRegistry registry, String exchange) {
+            this.success = sendTimer(registry, exchange, "success");
+            this.failure = sendTimer(registry, exchange, "failure");
+        }
+
+        private static Timer sendTimer(MeterRegistry registry, String exchange, String outcome) {
+            return Timer.builder("dc3.driver.send")
+                    .description("Message send latency, measured until the message is handed to the publisher")
+                    .tag("exchange", exchange)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+
+}
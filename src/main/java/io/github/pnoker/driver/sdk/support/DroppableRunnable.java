@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+/**
+ * 可丢弃的任务，被执行器丢弃或拒绝时回调 {@link #drop()}，用于释放任务占用的资源
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public interface DroppableRunnable extends Runnable {
+
+    /**
+     * 任务被丢弃，不会再运行
+     */
+    void drop();
+
+    /**
+     * 创建可丢弃的任务
+     *
+     * @param task   任务
+     * @param onDrop 丢弃回调
+     * @return DroppableRunnable
+     */
+    static DroppableRunnable of(Runnable task, Runnable onDrop) {
+        return new DroppableRunnable() {
+            @Override
+            public void run() {
+                task.run();
+            }
+
+            @Override
+            public void drop() {
+                onDrop.run();
+            }
+        };
+    }
+
+    /**
+     * 丢弃任务，任务不可丢弃时忽略
+     *
+     * @param runnable 任务
+     */
+    static void drop(Runnable runnable) {
+        if (runnable instanceof DroppableRunnable) {
+            ((DroppableRunnable) runnable).drop();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 哈希时间轮，按固定刻度推进并周期性地触发任务
+ * <p>
+ * 任务按到期刻度散列到槽中，每次推进只检查当前槽，任意多种不同的周期都只需要一个驱动源。
+ * 添加任务返回 {@link Timeout}，可据此取消任务或替换任务内容而保留到期刻度。
+ * 非线程安全，需由单个调度线程推进。
+ *
+ * @param <T> 任务类型
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public class HashedTimingWheel<T> {
+
+    private final List<List<Timeout<T>>> slots;
+    private final int mask;
+
+    /**
+     * 当前刻度
+     */
+    private long tick;
+
+    /**
+     * 任务数量
+     */
+    private int size;
+
+    /**
+     * 创建时间轮，槽数会向上取整为 2 的幂
+     *
+     * @param wheelSize 槽数
+     */
+    public HashedTimingWheel(int wheelSize) {
+        int length = 1;
+        while (length < Math.max(wheelSize, 1)) {
+            length <<= 1;
+        }
+
+        this.mask = length - 1;
+        this.slots = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            this.slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * 添加周期任务
+     *
+     * @param task     任务
+     * @param interval 触发周期，单位刻度，最小为 1
+     * @param delay    首次触发延迟，单位刻度，最小为 1
+     * @return Timeout
+     */
+    public Timeout<T> schedule(T task, long interval, long delay) {
+        Timeout<T> timeout = new Timeout<>(task, Math.max(interval, 1L));
+        timeout.deadline = this.tick + Math.max(delay, 1L);
+        this.slots.get(index(timeout.deadline)).add(timeout);
+        this.size++;
+        return timeout;
+    }
+
+    /**
+     * 取消任务，任务在其所在槽下一次被推进时移除
+     *
+     * @param timeout Timeout
+     */
+    public void cancel(Timeout<T> timeout) {
+        if (!timeout.cancelled) {
+            timeout.cancelled = true;
+            this.size--;
+        }
+    }
+
+    /**
+     * 推进一个刻度，并将到期任务交给 consumer 处理，到期任务会按周期重新放入时间轮
+     *
+     * @param consumer 到期任务处理
+     */
+    public void advance(Consumer<T> consumer) {
+        this.tick++;
+        int current = index(this.tick);
+        List<Timeout<T>> slot = this.slots.get(current);
+        int count = slot.size();
+        if (count == 0) {
+            return;
+        }
+
+        int keep = 0;
+        for (int i = 0; i < count; i++) {
+            Timeout<T> timeout = slot.get(i);
+            if (timeout.cancelled) {
+                continue;
+            }
+            if (timeout.deadline > this.tick) {
+                slot.set(keep++, timeout);
+                continue;
+            }
+
+            consumer.accept(timeout.task);
+            timeout.deadline += timeout.interval;
+            if (timeout.deadline <= this.tick) {
+                timeout.deadline = this.tick + timeout.interval;
+            }
+
+            int next = index(timeout.deadline);
+            if (next == current) {
+                slot.set(keep++, timeout);
+            } else {
+                this.slots.get(next).add(timeout);
+            }
+        }
+
+        for (int i = count - 1; i >= keep; i--) {
+            slot.remove(i);
+        }
+    }
+
+    /**
+     * 清空全部任务
+     */
+    public void clear() {
+        this.slots.forEach(slot -> {
+            slot.forEach(timeout -> timeout.cancelled = true);
+            slot.clear();
+        });
+        this.size = 0;
+    }
+
+    /**
+     * 获取任务数量
+     *
+     * @return 任务数量
+     */
+    public int size() {
+        return this.size;
+    }
+
+    private int index(long deadline) {
+        return (int) (deadline & this.mask);
+    }
+
+    /**
+     * 时间轮任务
+     *
+     * @param <T> 任务类型
+     */
+    public static final class Timeout<T> {
+        private final long interval;
+        private T task;
+        private long deadline;
+        private boolean cancelled;
+
+        private Timeout(T task, long interval) {
+            this.task = task;
+            this.interval = interval;
+        }
+
+        /**
+         * 获取任务
+         *
+         * @return 任务
+         */
+        public T getTask() {
+            return this.task;
+        }
+
+        /**
+         * 替换任务内容，到期刻度不变
+         *
+         * @param task 任务
+         */
+        public void setTask(T task) {
+            this.task = task;
+        }
+
+        /**
+         * 获取触发周期，单位刻度
+         *
+         * @return 触发周期
+         */
+        public long getInterval() {
+            return this.interval;
+        }
+
+        /**
+         * 获取下一次到期刻度
+         *
+         * @return 到期刻度
+         */
+        public long getDeadline() {
+            return this.deadline;
+        }
+
+        /**
+         * 是否已取消
+         *
+         * @return boolean
+         */
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import cn.hutool.core.util.ObjectUtil;
+import io.github.pnoker.driver.sdk.DriverContext;
+import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
+import io.github.pnoker.driver.sdk.entity.property.ScheduleProperty;
+import io.github.pnoker.driver.sdk.entity.read.ReadGroup;
+import io.github.pnoker.driver.sdk.entity.read.ReadPlan;
+import io.github.pnoker.driver.sdk.entity.read.ReadTarget;
+import io.github.pnoker.driver.sdk.service.DriverCommandService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 位号独立采集周期调度器
+ * <p>
+ * 将读计划中配置了采集周期的位号放入时间轮，由单个调度任务推进，
+ * 同一刻度到期的同一设备位号合并为一组读取，停顿后追赶多个刻度时每个位号只读取一次。
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+@Component
+public class IntervalReadDispatcher {
+
+    @Resource
+    private DriverContext driverContext;
+    @Resource
+    private DriverProperty driverProperty;
+    @Resource
+    private DriverCommandService driverCommandService;
+
+    private HashedTimingWheel<ReadTarget> wheel;
+    private Map<String, HashedTimingWheel.Timeout<ReadTarget>> timeouts = new HashMap<>(16);
+    private long tickMillis;
+    private long startNanos;
+    private long ticks;
+    private long planVersion = ReadPlan.EMPTY.getVersion();
+
+    /**
+     * 推进时间轮到当前时间，并提交到期的位号读取
+     */
+    public synchronized void tick() {
+        if (ObjectUtil.isNull(this.wheel)) {
+            ScheduleProperty.IntervalConfig config = driverProperty.getSchedule().getInterval();
+            this.tickMillis = Math.max(config.getTick(), 1L);
+            this.wheel = new HashedTimingWheel<>(config.getWheel());
+            this.startNanos = System.nanoTime();
+        }
+
+        ReadPlan plan = driverContext.getReadPlan();
+        if (plan.getVersion() != this.planVersion) {
+            reload(plan);
+        }
+
+        long current = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startNanos) / this.tickMillis;
+        long missed = current - this.ticks - 1;
+        if (missed > 0) {
+            log.debug("Interval read wheel catch up {} missed ticks", missed);
+        }
+
+        // A point due several times while catching up is read only once
+        Map<String, Map<String, ReadTarget>> dueMap = new LinkedHashMap<>(16);
+        while (this.ticks < current) {
+            this.ticks++;
+            this.wheel.advance(target -> dueMap.computeIfAbsent(target.getDevice().getId(), k -> new LinkedHashMap<>(16)).putIfAbsent(target.getPoint().getId(), target));
+        }
+
+        for (Map<String, ReadTarget> targetMap : dueMap.values()) {
+            List<ReadTarget> targets = new ArrayList<>(targetMap.values());
+            ReadTarget first = targets.get(0);
+            ReadGroup group = new ReadGroup(first.getDevice(), first.getDriverInfo(), targets);
+            driverCommandService.submitRead(group);
+        }
+    }
+
+    /**
+     * 读计划变更后按位号比对新旧计划：周期未变的位号保留到期刻度，只替换读取目标；
+     * 新增或周期变更的位号重新加入时间轮，首次触发时间按位号散列错开，避免同一周期的位号同时读取；已移除的位号取消
+     *
+     * @param plan ReadPlan
+     */
+    private void reload(ReadPlan plan) {
+        Map<String, HashedTimingWheel.Timeout<ReadTarget>> previous = this.timeouts;
+        Map<String, HashedTimingWheel.Timeout<ReadTarget>> current = new HashMap<>(plan.getIntervalTargets().length * 4 / 3 + 1);
+        int scheduled = 0;
+        for (ReadTarget target : plan.getIntervalTargets()) {
+            String key = target.getDevice().getId() + "/" + target.getPoint().getId();
+            long interval = Math.max((target.getInterval() + this.tickMillis - 1) / this.tickMillis, 1L);
+            HashedTimingWheel.Timeout<ReadTarget> timeout = previous.remove(key);
+            if (ObjectUtil.isNotNull(timeout) && timeout.getInterval() == interval) {
+                timeout.setTask(target);
+            } else {
+                if (ObjectUtil.isNotNull(timeout)) {
+                    this.wheel.cancel(timeout);
+                }
+                long offset = (target.getDevice().getId().hashCode() * 31L + target.getPoint().getId().hashCode()) & Long.MAX_VALUE;
+                timeout = this.wheel.schedule(target, interval, offset % interval + 1);
+                scheduled++;
+            }
+            current.put(key, timeout);
+        }
+
+        previous.values().forEach(this.wheel::cancel);
+        this.timeouts = current;
+        this.planVersion = plan.getVersion();
+        log.debug("Reload interval read wheel, version: {}, targets: {}, scheduled: {}, cancelled: {}", plan.getVersion(), this.wheel.size(), scheduled, previous.size());
+    }
+
+}
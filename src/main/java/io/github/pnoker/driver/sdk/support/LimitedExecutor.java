@@ -0,0 +1,209 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import io.github.pnoker.driver.sdk.entity.property.ExecutorProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 限制并发数的执行器，超出并发数的任务在有界队列中排队，不阻塞提交线程
+ * <p>
+ * 队列满时按拒绝策略处理，与线程池模式的 {@link CountingRejectedHandler} 行为一致，被丢弃的 {@link DroppableRunnable} 会收到回调。
+ * 关闭后不再接受新任务，已排队的任务继续执行，全部完成后关闭底层执行器
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public class LimitedExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final int maxConcurrency;
+    private final String name;
+    private final ExecutorProperty.RejectPolicy policy;
+    private final BlockingQueue<Runnable> queue;
+    private final AtomicInteger active = new AtomicInteger(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+    private final Object termination = new Object();
+    private volatile boolean shutdown;
+
+    public LimitedExecutor(ExecutorService delegate, int maxConcurrency, String name, int queueCapacity, ExecutorProperty.RejectPolicy policy) {
+        this.delegate = delegate;
+        this.maxConcurrency = Math.max(maxConcurrency, 1);
+        this.name = name;
+        this.policy = policy;
+        this.queue = new LinkedBlockingQueue<>(Math.max(queueCapacity, 1));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (this.shutdown) {
+            this.rejectedCount.incrementAndGet();
+            throw new RejectedExecutionException(this.name + " executor has been shut down");
+        }
+        if (!this.queue.offer(command)) {
+            reject(command);
+        }
+        drain();
+    }
+
+    @Override
+    public void shutdown() {
+        this.shutdown = true;
+        signalIfTerminated();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        this.shutdown = true;
+        List<Runnable> pending = new ArrayList<>(this.queue.size());
+        this.queue.drainTo(pending);
+        this.delegate.shutdownNow();
+        signalIfTerminated();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return this.shutdown && this.queue.isEmpty() && this.active.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this.termination) {
+            while (!isTerminated()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                // Wake up periodically, a task may finish between the check and the wait
+                this.termination.wait(Math.min(TimeUnit.NANOSECONDS.toMillis(remaining) + 1, 100L));
+            }
+        }
+
+        // Queued tasks are done, nothing is dispatched to the delegate any more
+        this.delegate.shutdown();
+        return this.delegate.awaitTermination(Math.max(deadline - System.nanoTime(), 0L), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 获取正在执行的任务数量
+     *
+     * @return 任务数量
+     */
+    public int getActiveCount() {
+        return this.active.get();
+    }
+
+    /**
+     * 获取排队中的任务数量
+     *
+     * @return 任务数量
+     */
+    public int getQueueSize() {
+        return this.queue.size();
+    }
+
+    /**
+     * 获取拒绝次数
+     *
+     * @return 拒绝次数
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * 队列已满时按拒绝策略处理任务
+     *
+     * @param command 任务
+     */
+    private void reject(Runnable command) {
+        this.rejectedCount.incrementAndGet();
+        switch (this.policy) {
+            case DROP_OLDEST:
+                while (!this.queue.offer(command)) {
+                    Runnable oldest = this.queue.poll();
+                    if (oldest != null) {
+                        DroppableRunnable.drop(oldest);
+                    }
+                }
+                break;
+            case CALLER_RUNS:
+                command.run();
+                break;
+            default:
+                throw new RejectedExecutionException(this.name + " executor is saturated, queue size: " + this.queue.size());
+        }
+    }
+
+    private void drain() {
+        while (!this.queue.isEmpty()) {
+            int current = this.active.get();
+            if (current >= this.maxConcurrency) {
+                return;
+            }
+            if (!this.active.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            Runnable task = this.queue.poll();
+            if (task == null) {
+                this.active.decrementAndGet();
+                continue;
+            }
+
+            try {
+                this.delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        this.active.decrementAndGet();
+                        drain();
+                        signalIfTerminated();
+                    }
+                });
+            } catch (RuntimeException e) {
+                this.active.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    private void signalIfTerminated() {
+        if (isTerminated()) {
+            synchronized (this.termination) {
+                this.termination.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.ObjectUtil;
+import io.github.pnoker.common.dto.DriverMetadataDTO;
+import io.github.pnoker.common.dto.DriverSyncDownDTO;
+import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
+import io.github.pnoker.driver.sdk.entity.property.MetadataProperty;
+import io.github.pnoker.driver.sdk.entity.sync.MetadataSync;
+import io.github.pnoker.driver.sdk.service.DriverMetadataService;
+import io.github.pnoker.driver.sdk.service.DriverMetadataTempService;
+import io.github.pnoker.driver.sdk.service.DriverSyncService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 元数据变更批量应用
+ * <p>
+ * 元数据变更先进入队列，由单个线程成批取出后在一个批次内应用，设备位号索引和读计划每批只重建一次，
+ * 导入模板等场景下平台端连续下发的大量变更不再逐条触发重建。
+ * 应用时按元数据版本检查变更：过期和重复的变更直接丢弃，版本不连续时丢弃其后的变更并请求全量同步。
+ * 全量同步、增量同步与变更批次由同一个线程按到达顺序串行应用，版本检查、应用和版本推进在同一次元数据写锁内完成。
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+@Component
+public class MetadataBatchApplier {
+
+    @Resource
+    private DriverProperty driverProperty;
+    @Resource
+    private DriverMetadataService driverMetadataService;
+    @Resource
+    private DriverMetadataTempService driverMetadataTempService;
+    @Resource
+    private DriverSyncService driverSyncService;
+    @Resource
+    private MetadataSnapshotStore metadataSnapshotStore;
+    @Resource
+    private DriverMeterBinder driverMeterBinder;
+
+    private final BlockingQueue<MetadataEvent> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private volatile boolean running;
+    private Thread worker;
+
+    @PostConstruct
+    public void initial() {
+        running = true;
+        worker = ThreadUtil.newThread(this::work, "dc3-driver-metadata", true);
+        worker.start();
+        driverMeterBinder.register(registry -> {
+            Gauge.builder("dc3.driver.metadata.pending", queue, BlockingQueue::size)
+                    .description("Metadata changes waiting to be applied")
+                    .register(registry);
+            FunctionCounter.builder("dc3.driver.metadata.dropped", droppedCount, AtomicLong::get)
+                    .description("Stale, duplicate or out-of-order metadata changes dropped before applying")
+                    .register(registry);
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        if (ObjectUtil.isNotNull(worker)) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * 提交元数据变更，变更按提交顺序应用
+     *
+     * @param entityDTO DriverMetadataDTO
+     * @param sync      MetadataSync
+     */
+    public void submit(DriverMetadataDTO entityDTO, MetadataSync sync) {
+        queue.offer(new MetadataEvent(entityDTO, null, sync));
+    }
+
+    /**
+     * 提交平台端下发的全量或增量元数据，与元数据变更按提交顺序串行应用
+     *
+     * @param entityDTO DriverSyncDownDTO
+     * @param sync      MetadataSync
+     */
+    public void submit(DriverSyncDownDTO entityDTO, MetadataSync sync) {
+        queue.offer(new MetadataEvent(null, entityDTO, sync));
+    }
+
+    private void work() {
+        List<MetadataEvent> batch = new ArrayList<>();
+        while (running) {
+            try {
+                drain(batch);
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Apply metadata changes error: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 阻塞等待第一条变更，再在等待时间内尽量取满一批
+     *
+     * @param batch 批次
+     * @throws InterruptedException 线程被中断
+     */
+    private void drain(List<MetadataEvent> batch) throws InterruptedException {
+        MetadataProperty property = driverProperty.getMetadata();
+        int batchSize = Math.max(property.getBatchSize(), 1);
+        batch.add(queue.take());
+        queue.drainTo(batch, batchSize - batch.size());
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(property.getLinger(), 0L));
+        while (batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+
+            MetadataEvent event = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (ObjectUtil.isNull(event)) {
+                return;
+            }
+            batch.add(event);
+            queue.drainTo(batch, batchSize - batch.size());
+        }
+    }
+
+    private void apply(List<MetadataEvent> batch) {
+        int from = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            MetadataEvent event = batch.get(i);
+            if (ObjectUtil.isNull(event.getSyncDownDTO())) {
+                continue;
+            }
+
+            // Changes received before the sync are applied first
+            applyChanges(batch.subList(from, i));
+            from = i + 1;
+            try {
+                driverSyncService.down(event.getSyncDownDTO(), event.getSync());
+            } catch (Exception e) {
+                log.error("Apply metadata sync error: {}", e.getMessage(), e);
+            }
+        }
+        applyChanges(batch.subList(from, batch.size()));
+    }
+
+    /**
+     * 在一次元数据写锁内检查版本并应用变更
+     *
+     * @param events 元数据变更
+     */
+    private void applyChanges(List<MetadataEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicInteger appliedCount = new AtomicInteger(0);
+        AtomicBoolean gap = new AtomicBoolean(false);
+        driverMetadataTempService.batch(applied -> {
+            long version = applied;
+            for (int i = 0; i < events.size(); i++) {
+                MetadataEvent event = events.get(i);
+                Long eventVersion = event.getSync().getVersion();
+                // Unversioned changes and changes before the first full sync are applied as they come
+                if (ObjectUtil.isNull(eventVersion) || applied == 0) {
+                    apply(event);
+                    appliedCount.incrementAndGet();
+                    continue;
+                }
+                if (eventVersion <= version) {
+                    droppedCount.incrementAndGet();
+                    log.debug("Drop stale metadata change, version: {}, applied: {}", eventVersion, version);
+                    continue;
+                }
+                if (eventVersion > version + 1) {
+                    // Changes after the gap are covered by the full sync
+                    gap.set(true);
+                    droppedCount.addAndGet(events.size() - i);
+                    log.warn("Metadata version jumped from {} to {}, some changes were missed, request a full sync", version, eventVersion);
+                    break;
+                }
+                apply(event);
+                appliedCount.incrementAndGet();
+                version = eventVersion;
+            }
+            // The version is published together with the changes it covers
+            return version;
+        });
+
+        if (appliedCount.get() > 0) {
+            metadataSnapshotStore.markDirty();
+        }
+        if (gap.get()) {
+            driverSyncService.resync();
+        }
+        log.debug("The metadata changes applied, events: {}, applied: {}, cost: {}ms", events.size(), appliedCount.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void apply(MetadataEvent event) {
+        DriverMetadataDTO entityDTO = event.getEntityDTO();
+        try {
+            switch (entityDTO.getType()) {
+                case PROFILE:
+                    driverMetadataService.profileMetadata(entityDTO);
+                    break;
+                case POINT:
+                    driverMetadataService.pointMetadata(entityDTO);
+                    break;
+                case DEVICE:
+                    driverMetadataService.deviceMetadata(entityDTO);
+                    break;
+                case DRIVER_ATTRIBUTE_CONFIG:
+                    driverMetadataService.driverInfoMetadata(entityDTO);
+                    break;
+                case POINT_ATTRIBUTE_CONFIG:
+                    driverMetadataService.pointInfoMetadata(entityDTO);
+                    break;
+                default:
+                    break;
+            }
+        } catch (Exception e) {
+            log.error("Apply {} metadata change error: {}", entityDTO.getType(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 待应用的元数据变更
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class MetadataEvent {
+
+        private final DriverMetadataDTO entityDTO;
+        private final DriverSyncDownDTO syncDownDTO;
+        private final MetadataSync sync;
+    }
+
+}
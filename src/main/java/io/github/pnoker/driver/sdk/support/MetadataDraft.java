@@ -0,0 +1,689 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.ObjectUtil;
+import io.github.pnoker.common.entity.driver.AttributeInfo;
+import io.github.pnoker.common.entity.driver.DriverMetadata;
+import io.github.pnoker.common.model.Device;
+import io.github.pnoker.common.model.DriverAttribute;
+import io.github.pnoker.common.model.DriverAttributeConfig;
+import io.github.pnoker.common.model.Point;
+import io.github.pnoker.common.model.PointAttribute;
+import io.github.pnoker.common.model.PointAttributeConfig;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 驱动元数据草稿
+ * <p>
+ * 元数据和派生索引均以持久化映射保存，单次变更只复制从根到被修改键的路径，代价与设备规模无关。
+ * 草稿在修改元数据的同时维护索引，构建出的 {@link MetadataSnapshot} 中元数据与索引始终一致；
+ * 变更数量超过重建阈值后停止增量维护，构建时全量重建一次，级联修改在读取索引前按需重建。
+ * 草稿仅由持有元数据写锁的线程使用，非线程安全。
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public class MetadataDraft {
+
+    private static final String[] MAP_PROPERTIES = {"profilePointMap", "deviceMap", "driverInfoMap", "pointInfoMap", "driverAttributeMap", "pointAttributeMap"};
+
+    private final MetadataSnapshot base;
+    private long syncVersion;
+
+    private PersistentMap<String, Device> deviceMap;
+    private PersistentMap<String, DriverAttribute> driverAttributeMap;
+    private PersistentMap<String, PointAttribute> pointAttributeMap;
+    private PersistentMap<String, Map<String, Point>> profilePointMap;
+    private PersistentMap<String, Map<String, AttributeInfo>> driverInfoMap;
+    private PersistentMap<String, Map<String, Map<String, AttributeInfo>>> pointInfoMap;
+
+    private PersistentMap<String, Map<String, Point>> devicePointMap;
+    private PersistentMap<String, Set<String>> profileDeviceMap;
+    private PersistentMap<String, Set<String>> deviceProfileMap;
+    private PersistentMap<String, Set<String>> driverAttributeConfigMap;
+    private PersistentMap<String, Map<String, Set<String>>> pointAttributeConfigMap;
+
+    private int rebuildThreshold = Integer.MAX_VALUE;
+    private int changeCount;
+    private boolean indexStale;
+
+    public MetadataDraft(MetadataSnapshot base) {
+        this.base = base;
+        this.syncVersion = base.getSyncVersion();
+        DriverMetadata metadata = base.getDriverMetadata();
+        this.deviceMap = PersistentMap.copyOf(metadata.getDeviceMap());
+        this.driverAttributeMap = PersistentMap.copyOf(metadata.getDriverAttributeMap());
+        this.pointAttributeMap = PersistentMap.copyOf(metadata.getPointAttributeMap());
+        this.profilePointMap = PersistentMap.copyOf(metadata.getProfilePointMap());
+        this.driverInfoMap = PersistentMap.copyOf(metadata.getDriverInfoMap());
+        this.pointInfoMap = PersistentMap.copyOf(metadata.getPointInfoMap());
+
+        this.devicePointMap = base.getDevicePointMap();
+        this.profileDeviceMap = base.getProfileDeviceMap();
+        this.deviceProfileMap = base.getDeviceProfileMap();
+        this.driverAttributeConfigMap = base.getDriverAttributeConfigMap();
+        this.pointAttributeConfigMap = base.getPointAttributeConfigMap();
+    }
+
+    private MetadataDraft(DriverMetadata source) {
+        this.base = null;
+        this.deviceMap = PersistentMap.copyOf(source.getDeviceMap());
+        this.driverAttributeMap = PersistentMap.copyOf(source.getDriverAttributeMap());
+        this.pointAttributeMap = PersistentMap.copyOf(source.getPointAttributeMap());
+
+        this.profilePointMap = PersistentMap.empty();
+        for (Map.Entry<String, Map<String, Point>> entry : nullToEmpty(source.getProfilePointMap()).entrySet()) {
+            this.profilePointMap = this.profilePointMap.plus(entry.getKey(), PersistentMap.copyOf(entry.getValue()));
+        }
+
+        this.driverInfoMap = PersistentMap.empty();
+        for (Map.Entry<String, Map<String, AttributeInfo>> entry : nullToEmpty(source.getDriverInfoMap()).entrySet()) {
+            this.driverInfoMap = this.driverInfoMap.plus(entry.getKey(), PersistentMap.copyOf(entry.getValue()));
+        }
+
+        this.pointInfoMap = PersistentMap.empty();
+        for (Map.Entry<String, Map<String, Map<String, AttributeInfo>>> entry : nullToEmpty(source.getPointInfoMap()).entrySet()) {
+            PersistentMap<String, Map<String, AttributeInfo>> devicePointInfos = PersistentMap.empty();
+            for (Map.Entry<String, Map<String, AttributeInfo>> pointEntry : nullToEmpty(entry.getValue()).entrySet()) {
+                devicePointInfos = devicePointInfos.plus(pointEntry.getKey(), PersistentMap.copyOf(pointEntry.getValue()));
+            }
+            this.pointInfoMap = this.pointInfoMap.plus(entry.getKey(), devicePointInfos);
+        }
+        rebuildIndex();
+    }
+
+    /**
+     * 由驱动元数据构建不可变快照，全部映射均被复制并全量构建索引
+     *
+     * @param source      DriverMetadata
+     * @param version     快照版本
+     * @param generation  元数据全量替换次数
+     * @param syncVersion 已应用的平台端元数据版本
+     * @return MetadataSnapshot
+     */
+    public static MetadataSnapshot freeze(DriverMetadata source, long version, long generation, long syncVersion) {
+        MetadataDraft draft = new MetadataDraft(source);
+        draft.syncVersion = syncVersion;
+        return draft.snapshot(source, version, generation);
+    }
+
+    /**
+     * 获取草稿中已应用的平台端元数据版本
+     *
+     * @return 版本
+     */
+    public long getSyncVersion() {
+        return syncVersion;
+    }
+
+    /**
+     * 设置已应用的平台端元数据版本，随草稿构建的快照一起发布
+     *
+     * @param syncVersion 版本
+     */
+    public void setSyncVersion(long syncVersion) {
+        this.syncVersion = syncVersion;
+    }
+
+    /**
+     * 草稿是否有修改
+     *
+     * @return boolean
+     */
+    public boolean isChanged() {
+        DriverMetadata metadata = base.getDriverMetadata();
+        return deviceMap != metadata.getDeviceMap() || driverAttributeMap != metadata.getDriverAttributeMap() || pointAttributeMap != metadata.getPointAttributeMap()
+                || profilePointMap != metadata.getProfilePointMap() || driverInfoMap != metadata.getDriverInfoMap() || pointInfoMap != metadata.getPointInfoMap();
+    }
+
+    /**
+     * 构建新的元数据快照，未修改的部分与原快照共享
+     *
+     * @return MetadataSnapshot
+     */
+    public MetadataSnapshot build() {
+        if (!isChanged()) {
+            // Only the sync version moved, the metadata and indexes are shared with the base snapshot
+            return syncVersion == base.getSyncVersion() ? base : snapshot(base.getDriverMetadata(), base.getVersion(), base.getGeneration());
+        }
+
+        ensureIndex();
+        return snapshot(base.getDriverMetadata(), base.getVersion() + 1, base.getGeneration());
+    }
+
+    /**
+     * 设置索引重建阈值，草稿内的变更数量超过该阈值后不再增量维护索引
+     *
+     * @param rebuildThreshold 变更数量
+     */
+    public void setRebuildThreshold(int rebuildThreshold) {
+        this.rebuildThreshold = rebuildThreshold;
+    }
+
+    /**
+     * 新增模板
+     *
+     * @param profileId 模板ID
+     */
+    public void upsertProfile(String profileId) {
+        if (!profilePointMap.containsKey(profileId)) {
+            profilePointMap = profilePointMap.plus(profileId, PersistentMap.empty());
+        }
+    }
+
+    /**
+     * 删除模板，并将模板下的位号从引用该模板的设备索引中移除
+     *
+     * @param profileId 模板ID
+     */
+    public void deleteProfile(String profileId) {
+        Map<String, Point> pointMap = profilePointMap.get(profileId);
+        if (ObjectUtil.isNull(pointMap)) {
+            return;
+        }
+
+        profilePointMap = profilePointMap.minus(profileId);
+        if (indexing()) {
+            unindexPoints(profileId, pointMap.keySet());
+        }
+    }
+
+    /**
+     * 新增或更新设备，并重建该设备的位号索引和模板关联
+     *
+     * @param device Device
+     */
+    public void upsertDevice(Device device) {
+        String deviceId = device.getId();
+        deviceMap = deviceMap.plus(deviceId, device);
+        if (!driverInfoMap.containsKey(deviceId)) {
+            driverInfoMap = driverInfoMap.plus(deviceId, PersistentMap.empty());
+        }
+        if (!pointInfoMap.containsKey(deviceId)) {
+            pointInfoMap = pointInfoMap.plus(deviceId, PersistentMap.empty());
+        }
+        if (indexing()) {
+            indexDevice(device);
+        }
+    }
+
+    /**
+     * 删除设备及其配置，并移除该设备的全部索引
+     *
+     * @param deviceId 设备ID
+     */
+    public void deleteDevice(String deviceId) {
+        deviceMap = deviceMap.minus(deviceId);
+        driverInfoMap = driverInfoMap.minus(deviceId);
+        pointInfoMap = pointInfoMap.minus(deviceId);
+        if (indexing()) {
+            unindexDevice(deviceId);
+        }
+    }
+
+    /**
+     * 新增或更新位号，并将位号加入引用其模板的设备索引中
+     *
+     * @param point Point
+     */
+    public void upsertPoint(Point point) {
+        String profileId = point.getProfileId();
+        profilePointMap = profilePointMap.plus(profileId, map(profilePointMap.get(profileId)).plus(point.getId(), point));
+        if (!indexing()) {
+            return;
+        }
+        for (String deviceId : devices(profileId)) {
+            devicePointMap = devicePointMap.plus(deviceId, map(devicePointMap.get(deviceId)).plus(point.getId(), point));
+        }
+    }
+
+    /**
+     * 删除位号，并将位号从引用其模板的设备索引中移除
+     *
+     * @param profileId 模板ID
+     * @param pointId   位号ID
+     */
+    public void deletePoint(String profileId, String pointId) {
+        Map<String, Point> pointMap = profilePointMap.get(profileId);
+        if (ObjectUtil.isNotNull(pointMap)) {
+            profilePointMap = profilePointMap.plus(profileId, map(pointMap).minus(pointId));
+        }
+        if (indexing()) {
+            unindexPoints(profileId, Collections.singleton(pointId));
+        }
+    }
+
+    /**
+     * 新增或更新驱动属性配置，驱动属性不存在时忽略
+     *
+     * @param config DriverAttributeConfig
+     */
+    public void upsertDriverInfo(DriverAttributeConfig config) {
+        DriverAttribute attribute = driverAttributeMap.get(config.getDriverAttributeId());
+        if (ObjectUtil.isNull(attribute)) {
+            return;
+        }
+
+        String deviceId = config.getDeviceId();
+        AttributeInfo info = new AttributeInfo(config.getConfigValue(), attribute.getAttributeTypeFlag());
+        driverInfoMap = driverInfoMap.plus(deviceId, map(driverInfoMap.get(deviceId)).plus(attribute.getAttributeName(), info));
+        if (indexing()) {
+            driverAttributeConfigMap = driverAttributeConfigMap.plus(attribute.getId(), set(driverAttributeConfigMap.get(attribute.getId())).plus(deviceId));
+        }
+    }
+
+    /**
+     * 删除驱动属性配置，设备已无驱动属性配置时移除设备的配置映射
+     *
+     * @param deviceId    设备ID
+     * @param attributeId 驱动属性ID
+     */
+    public void deleteDriverInfo(String deviceId, String attributeId) {
+        DriverAttribute attribute = driverAttributeMap.get(attributeId);
+        if (ObjectUtil.isNotNull(attribute)) {
+            removeDriverInfo(deviceId, attribute.getAttributeName());
+        }
+
+        Set<String> deviceIds = driverAttributeConfigMap.get(attributeId);
+        if (indexing() && ObjectUtil.isNotNull(deviceIds)) {
+            driverAttributeConfigMap = putSet(driverAttributeConfigMap, attributeId, set(deviceIds).minus(deviceId));
+        }
+    }
+
+    /**
+     * 新增或更新位号属性配置，位号属性不存在时忽略
+     *
+     * @param config PointAttributeConfig
+     */
+    public void upsertPointInfo(PointAttributeConfig config) {
+        PointAttribute attribute = pointAttributeMap.get(config.getPointAttributeId());
+        if (ObjectUtil.isNull(attribute)) {
+            return;
+        }
+
+        String deviceId = config.getDeviceId();
+        String pointId = config.getPointId();
+        AttributeInfo info = new AttributeInfo(config.getConfigValue(), attribute.getAttributeTypeFlag());
+        PersistentMap<String, Map<String, AttributeInfo>> devicePointInfos = map(pointInfoMap.get(deviceId));
+        pointInfoMap = pointInfoMap.plus(deviceId, devicePointInfos.plus(pointId, map(devicePointInfos.get(pointId)).plus(attribute.getAttributeName(), info)));
+        if (indexing()) {
+            indexPointInfo(attribute.getId(), deviceId, pointId);
+        }
+    }
+
+    /**
+     * 删除位号属性配置，位号已无位号属性配置时移除位号的配置映射
+     *
+     * @param deviceId    设备ID
+     * @param pointId     位号ID
+     * @param attributeId 位号属性ID
+     */
+    public void deletePointInfo(String deviceId, String pointId, String attributeId) {
+        PointAttribute attribute = pointAttributeMap.get(attributeId);
+        if (ObjectUtil.isNotNull(attribute)) {
+            removePointInfo(deviceId, pointId, attribute.getAttributeName());
+        }
+
+        if (!indexing()) {
+            return;
+        }
+        Map<String, Set<String>> devicePointIds = pointAttributeConfigMap.get(attributeId);
+        Set<String> pointIds = ObjectUtil.isNull(devicePointIds) ? null : devicePointIds.get(deviceId);
+        if (ObjectUtil.isNotNull(pointIds)) {
+            PersistentMap<String, Set<String>> next = putSet(map(devicePointIds), deviceId, set(pointIds).minus(pointId));
+            pointAttributeConfigMap = putMap(pointAttributeConfigMap, attributeId, next);
+        }
+    }
+
+    /**
+     * 新增或更新驱动属性，属性名称或类型变更时重写引用该属性的设备配置
+     *
+     * @param attribute DriverAttribute
+     * @return 引用该属性的设备ID集合
+     */
+    public Set<String> upsertDriverAttribute(DriverAttribute attribute) {
+        ensureIndex();
+        DriverAttribute previous = driverAttributeMap.get(attribute.getId());
+        driverAttributeMap = driverAttributeMap.plus(attribute.getId(), attribute);
+        // The reverse index limits the re-keying to the devices that reference the attribute
+        Set<String> deviceIds = set(driverAttributeConfigMap.get(attribute.getId()));
+        if (ObjectUtil.isNull(previous)) {
+            return deviceIds;
+        }
+
+        for (String deviceId : deviceIds) {
+            Map<String, AttributeInfo> infoMap = driverInfoMap.get(deviceId);
+            AttributeInfo info = ObjectUtil.isNull(infoMap) ? null : infoMap.get(previous.getAttributeName());
+            if (ObjectUtil.isNotNull(info)) {
+                AttributeInfo rekeyed = new AttributeInfo(info.getValue(), attribute.getAttributeTypeFlag());
+                driverInfoMap = driverInfoMap.plus(deviceId, map(infoMap).minus(previous.getAttributeName()).plus(attribute.getAttributeName(), rekeyed));
+            }
+        }
+        return deviceIds;
+    }
+
+    /**
+     * 删除驱动属性及引用该属性的设备配置
+     *
+     * @param attributeId 驱动属性ID
+     * @return 引用该属性的设备ID集合
+     */
+    public Set<String> deleteDriverAttribute(String attributeId) {
+        ensureIndex();
+        DriverAttribute previous = driverAttributeMap.get(attributeId);
+        Set<String> deviceIds = set(driverAttributeConfigMap.get(attributeId));
+        driverAttributeMap = driverAttributeMap.minus(attributeId);
+        if (ObjectUtil.isNotNull(previous)) {
+            deviceIds.forEach(deviceId -> removeDriverInfo(deviceId, previous.getAttributeName()));
+        }
+        driverAttributeConfigMap = driverAttributeConfigMap.minus(attributeId);
+        return deviceIds;
+    }
+
+    /**
+     * 新增或更新位号属性，属性名称或类型变更时重写引用该属性的位号配置
+     *
+     * @param attribute PointAttribute
+     * @return 引用该属性的设备和位号，Map deviceId:(pointId 集合)
+     */
+    public Map<String, Set<String>> upsertPointAttribute(PointAttribute attribute) {
+        ensureIndex();
+        PointAttribute previous = pointAttributeMap.get(attribute.getId());
+        pointAttributeMap = pointAttributeMap.plus(attribute.getId(), attribute);
+        // The reverse index limits the re-keying to the points that reference the attribute
+        Map<String, Set<String>> devicePointIds = map(pointAttributeConfigMap.get(attribute.getId()));
+        if (ObjectUtil.isNull(previous)) {
+            return devicePointIds;
+        }
+
+        devicePointIds.forEach((deviceId, pointIds) -> {
+            PersistentMap<String, Map<String, AttributeInfo>> devicePointInfos = map(pointInfoMap.get(deviceId));
+            for (String pointId : pointIds) {
+                Map<String, AttributeInfo> infoMap = devicePointInfos.get(pointId);
+                AttributeInfo info = ObjectUtil.isNull(infoMap) ? null : infoMap.get(previous.getAttributeName());
+                if (ObjectUtil.isNotNull(info)) {
+                    AttributeInfo rekeyed = new AttributeInfo(info.getValue(), attribute.getAttributeTypeFlag());
+                    devicePointInfos = devicePointInfos.plus(pointId, map(infoMap).minus(previous.getAttributeName()).plus(attribute.getAttributeName(), rekeyed));
+                }
+            }
+            if (!devicePointInfos.isEmpty()) {
+                pointInfoMap = pointInfoMap.plus(deviceId, devicePointInfos);
+            }
+        });
+        return devicePointIds;
+    }
+
+    /**
+     * 删除位号属性及引用该属性的位号配置
+     *
+     * @param attributeId 位号属性ID
+     * @return 引用该属性的设备和位号，Map deviceId:(pointId 集合)
+     */
+    public Map<String, Set<String>> deletePointAttribute(String attributeId) {
+        ensureIndex();
+        PointAttribute previous = pointAttributeMap.get(attributeId);
+        Map<String, Set<String>> devicePointIds = map(pointAttributeConfigMap.get(attributeId));
+        pointAttributeMap = pointAttributeMap.minus(attributeId);
+        if (ObjectUtil.isNotNull(previous)) {
+            devicePointIds.forEach((deviceId, pointIds) -> pointIds.forEach(pointId -> removePointInfo(deviceId, pointId, previous.getAttributeName())));
+        }
+        pointAttributeConfigMap = pointAttributeConfigMap.minus(attributeId);
+        return devicePointIds;
+    }
+
+    /**
+     * 记录一次变更，返回是否继续增量维护索引
+     *
+     * @return boolean
+     */
+    private boolean indexing() {
+        if (!indexStale && ++changeCount > rebuildThreshold) {
+            // Past the threshold one rebuild is cheaper than keeping every index current
+            indexStale = true;
+        }
+        return !indexStale;
+    }
+
+    /**
+     * 索引已停止增量维护时全量重建，之后恢复增量维护
+     */
+    private void ensureIndex() {
+        if (indexStale) {
+            rebuildIndex();
+            indexStale = false;
+            changeCount = 0;
+        }
+    }
+
+    /**
+     * 根据当前元数据全量重建设备位号索引、模板设备反向索引和属性配置反向索引
+     */
+    private void rebuildIndex() {
+        devicePointMap = PersistentMap.empty();
+        profileDeviceMap = PersistentMap.empty();
+        deviceProfileMap = PersistentMap.empty();
+        driverAttributeConfigMap = PersistentMap.empty();
+        pointAttributeConfigMap = PersistentMap.empty();
+        deviceMap.values().forEach(this::indexDevice);
+
+        Map<String, String> driverAttributeIds = new HashMap<>(16);
+        driverAttributeMap.values().forEach(attribute -> driverAttributeIds.put(attribute.getAttributeName(), attribute.getId()));
+        driverInfoMap.forEach((deviceId, infoMap) -> infoMap.keySet().forEach(name -> {
+            String attributeId = driverAttributeIds.get(name);
+            if (ObjectUtil.isNotNull(attributeId)) {
+                driverAttributeConfigMap = driverAttributeConfigMap.plus(attributeId, set(driverAttributeConfigMap.get(attributeId)).plus(deviceId));
+            }
+        }));
+
+        Map<String, String> pointAttributeIds = new HashMap<>(16);
+        pointAttributeMap.values().forEach(attribute -> pointAttributeIds.put(attribute.getAttributeName(), attribute.getId()));
+        pointInfoMap.forEach((deviceId, devicePointInfos) -> devicePointInfos.forEach((pointId, infoMap) -> infoMap.keySet().forEach(name -> {
+            String attributeId = pointAttributeIds.get(name);
+            if (ObjectUtil.isNotNull(attributeId)) {
+                indexPointInfo(attributeId, deviceId, pointId);
+            }
+        })));
+    }
+
+    /**
+     * 重建设备的位号索引和模板关联
+     *
+     * @param device Device
+     */
+    private void indexDevice(Device device) {
+        String deviceId = device.getId();
+        PersistentSet<String> profileIds = PersistentSet.copyOf(device.getProfileIds());
+        Set<String> previous = deviceProfileMap.get(deviceId);
+        if (ObjectUtil.isNotNull(previous)) {
+            previous.stream().filter(profileId -> !profileIds.contains(profileId)).forEach(profileId -> unlinkProfile(profileId, deviceId));
+        }
+        profileIds.forEach(profileId -> profileDeviceMap = profileDeviceMap.plus(profileId, set(profileDeviceMap.get(profileId)).plus(deviceId)));
+        deviceProfileMap = deviceProfileMap.plus(deviceId, profileIds);
+
+        PersistentMap<String, Point> pointMap = PersistentMap.empty();
+        for (String profileId : profileIds) {
+            Map<String, Point> profilePoints = profilePointMap.get(profileId);
+            if (ObjectUtil.isNull(profilePoints)) {
+                continue;
+            }
+            if (pointMap.isEmpty()) {
+                // A device usually references one profile and then shares its point map as is
+                pointMap = map(profilePoints);
+                continue;
+            }
+            for (Map.Entry<String, Point> entry : profilePoints.entrySet()) {
+                pointMap = pointMap.plus(entry.getKey(), entry.getValue());
+            }
+        }
+        devicePointMap = devicePointMap.plus(deviceId, pointMap);
+    }
+
+    /**
+     * 移除设备的位号索引、模板关联和属性配置索引
+     *
+     * @param deviceId 设备ID
+     */
+    private void unindexDevice(String deviceId) {
+        devicePointMap = devicePointMap.minus(deviceId);
+        Set<String> profileIds = deviceProfileMap.get(deviceId);
+        if (ObjectUtil.isNotNull(profileIds)) {
+            profileIds.forEach(profileId -> unlinkProfile(profileId, deviceId));
+        }
+        deviceProfileMap = deviceProfileMap.minus(deviceId);
+
+        // Attribute counts are small, so sweeping them once per device delete is cheap
+        driverAttributeConfigMap.forEach((attributeId, deviceIds) -> {
+            if (deviceIds.contains(deviceId)) {
+                driverAttributeConfigMap = putSet(driverAttributeConfigMap, attributeId, set(deviceIds).minus(deviceId));
+            }
+        });
+        pointAttributeConfigMap.forEach((attributeId, devicePointIds) -> {
+            if (devicePointIds.containsKey(deviceId)) {
+                pointAttributeConfigMap = putMap(pointAttributeConfigMap, attributeId, map(devicePointIds).minus(deviceId));
+            }
+        });
+    }
+
+    /**
+     * 将模板下的指定位号从引用该模板的设备索引中移除
+     *
+     * @param profileId 模板ID
+     * @param pointIds  位号ID集合
+     */
+    private void unindexPoints(String profileId, Collection<String> pointIds) {
+        for (String deviceId : devices(profileId)) {
+            PersistentMap<String, Point> pointMap = map(devicePointMap.get(deviceId));
+            for (String pointId : pointIds) {
+                pointMap = pointMap.minus(pointId);
+            }
+            devicePointMap = devicePointMap.plus(deviceId, pointMap);
+        }
+    }
+
+    /**
+     * 记录位号属性配置所属的设备和位号
+     *
+     * @param attributeId 位号属性ID
+     * @param deviceId    设备ID
+     * @param pointId     位号ID
+     */
+    private void indexPointInfo(String attributeId, String deviceId, String pointId) {
+        PersistentMap<String, Set<String>> devicePointIds = map(pointAttributeConfigMap.get(attributeId));
+        devicePointIds = devicePointIds.plus(deviceId, set(devicePointIds.get(deviceId)).plus(pointId));
+        pointAttributeConfigMap = pointAttributeConfigMap.plus(attributeId, devicePointIds);
+    }
+
+    /**
+     * 解除设备与模板的关联
+     *
+     * @param profileId 模板ID
+     * @param deviceId  设备ID
+     */
+    private void unlinkProfile(String profileId, String deviceId) {
+        Set<String> deviceIds = profileDeviceMap.get(profileId);
+        if (ObjectUtil.isNotNull(deviceIds)) {
+            profileDeviceMap = putSet(profileDeviceMap, profileId, set(deviceIds).minus(deviceId));
+        }
+    }
+
+    /**
+     * 删除设备的驱动属性配置，设备已无驱动属性配置时移除设备的配置映射
+     *
+     * @param deviceId      设备ID
+     * @param attributeName 属性名称
+     */
+    private void removeDriverInfo(String deviceId, String attributeName) {
+        Map<String, AttributeInfo> infoMap = driverInfoMap.get(deviceId);
+        if (ObjectUtil.isNull(infoMap)) {
+            return;
+        }
+
+        PersistentMap<String, AttributeInfo> next = map(infoMap).minus(attributeName);
+        if (next != infoMap) {
+            driverInfoMap = putMap(driverInfoMap, deviceId, next);
+        }
+    }
+
+    /**
+     * 删除位号的位号属性配置，位号已无位号属性配置时移除位号的配置映射
+     *
+     * @param deviceId      设备ID
+     * @param pointId       位号ID
+     * @param attributeName 属性名称
+     */
+    private void removePointInfo(String deviceId, String pointId, String attributeName) {
+        Map<String, Map<String, AttributeInfo>> devicePointInfos = pointInfoMap.get(deviceId);
+        Map<String, AttributeInfo> infoMap = ObjectUtil.isNull(devicePointInfos) ? null : devicePointInfos.get(pointId);
+        if (ObjectUtil.isNull(infoMap)) {
+            return;
+        }
+
+        PersistentMap<String, AttributeInfo> next = map(infoMap).minus(attributeName);
+        if (next != infoMap) {
+            pointInfoMap = pointInfoMap.plus(deviceId, putMap(map(devicePointInfos), pointId, next));
+        }
+    }
+
+    /**
+     * 引用模板的设备ID集合
+     *
+     * @param profileId 模板ID
+     * @return 设备ID集合
+     */
+    private Set<String> devices(String profileId) {
+        return set(profileDeviceMap.get(profileId));
+    }
+
+    private MetadataSnapshot snapshot(DriverMetadata properties, long version, long generation) {
+        DriverMetadata metadata = BeanUtil.copyProperties(properties, DriverMetadata.class, MAP_PROPERTIES);
+        metadata.setDeviceMap(deviceMap);
+        metadata.setDriverAttributeMap(driverAttributeMap);
+        metadata.setPointAttributeMap(pointAttributeMap);
+        metadata.setProfilePointMap(profilePointMap);
+        metadata.setDriverInfoMap(driverInfoMap);
+        metadata.setPointInfoMap(pointInfoMap);
+        return new MetadataSnapshot(version, generation, syncVersion, metadata, devicePointMap, profileDeviceMap, deviceProfileMap, driverAttributeConfigMap, pointAttributeConfigMap);
+    }
+
+    private static <V> PersistentMap<String, V> map(Map<String, V> map) {
+        return PersistentMap.copyOf(map);
+    }
+
+    private static PersistentSet<String> set(Set<String> set) {
+        return PersistentSet.copyOf(set);
+    }
+
+    private static <V extends Map<?, ?>> PersistentMap<String, V> putMap(PersistentMap<String, V> map, String key, V value) {
+        return value.isEmpty() ? map.minus(key) : map.plus(key, value);
+    }
+
+    private static <V extends Set<?>> PersistentMap<String, V> putSet(PersistentMap<String, V> map, String key, V value) {
+        return value.isEmpty() ? map.minus(key) : map.plus(key, value);
+    }
+
+    private static <V> Map<String, V> nullToEmpty(Map<String, V> map) {
+        return ObjectUtil.isNull(map) ? Collections.emptyMap() : map;
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import io.github.pnoker.common.entity.driver.DriverMetadata;
+import io.github.pnoker.common.model.Point;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 驱动元数据快照
+ * <p>
+ * 驱动元数据与由其派生的全部索引组成一个不可变整体，由 {@link MetadataDraft} 在元数据写锁内构建，
+ * 以一次引用替换发布，读取方拿到的元数据与索引总是同一版本。
+ * 已应用的平台端元数据版本随快照一起发布，版本检查、变更应用和版本推进在同一次写锁内完成。
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class MetadataSnapshot {
+
+    /**
+     * 快照版本，每次发布新快照后递增
+     */
+    private final long version;
+
+    /**
+     * 元数据全量替换次数，依赖元数据的缓存据此判断是否需要整体失效
+     */
+    private final long generation;
+
+    /**
+     * 已应用的平台端元数据版本，0 表示未知，驱动注册时据此请求增量同步
+     */
+    private final long syncVersion;
+
+    /**
+     * 驱动元数据，全部映射均为不可变的持久化映射
+     */
+    private final DriverMetadata driverMetadata;
+
+    /**
+     * 设备位号索引，deviceId -> (pointId -> Point)
+     */
+    private final PersistentMap<String, Map<String, Point>> devicePointMap;
+
+    /**
+     * 模板设备反向索引，profileId -> deviceId 集合
+     */
+    private final PersistentMap<String, Set<String>> profileDeviceMap;
+
+    /**
+     * 设备已建立索引的模板，deviceId -> profileId 集合，设备更新时据此解除旧模板的关联
+     */
+    private final PersistentMap<String, Set<String>> deviceProfileMap;
+
+    /**
+     * 驱动属性配置反向索引，driverAttributeId -> deviceId 集合
+     */
+    private final PersistentMap<String, Set<String>> driverAttributeConfigMap;
+
+    /**
+     * 位号属性配置反向索引，pointAttributeId -> (deviceId -> pointId 集合)
+     */
+    private final PersistentMap<String, Map<String, Set<String>>> pointAttributeConfigMap;
+
+}
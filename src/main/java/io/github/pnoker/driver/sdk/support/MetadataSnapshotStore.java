@@ -0,0 +1,273 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.ObjectUtil;
+import io.github.pnoker.common.entity.driver.DriverMetadata;
+import io.github.pnoker.common.utils.JsonUtil;
+import io.github.pnoker.driver.sdk.DriverContext;
+import io.github.pnoker.driver.sdk.entity.property.DriverProperty;
+import io.github.pnoker.driver.sdk.entity.property.SnapshotProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 元数据本地快照
+ * <p>
+ * 快照格式为 [魔数 int][格式版本 byte][元数据版本 long][保存时间 long][驱动服务名称 UTF][内容长度 int][CRC32 long][GZIP 压缩的 DriverMetadata JSON]，
+ * 先写入临时文件并刷盘，再原子替换快照文件。元数据变更后延迟保存，期间的多次变更合并为一次保存。
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+@Component
+public class MetadataSnapshotStore {
+
+    private static final int MAGIC = 0x44433353;
+    private static final byte FORMAT_VERSION = 1;
+    private static final String SNAPSHOT_FILE = "metadata.snapshot";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    @Resource
+    private DriverProperty driverProperty;
+    @Resource
+    private DriverContext driverContext;
+
+    private ScheduledExecutorService scheduler;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile boolean dirty;
+
+    @PostConstruct
+    public void initial() {
+        if (isEnabled()) {
+            scheduler = new ScheduledThreadPoolExecutor(1, ThreadUtil.newNamedThreadFactory("dc3-driver-snapshot-", true));
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (ObjectUtil.isNull(scheduler)) {
+            return;
+        }
+
+        scheduler.shutdownNow();
+        if (dirty) {
+            flush();
+        }
+    }
+
+    /**
+     * 元数据已变更，延迟保存快照
+     */
+    public void markDirty() {
+        if (ObjectUtil.isNull(scheduler)) {
+            return;
+        }
+
+        dirty = true;
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(this::flush, driverProperty.getSnapshot().getDelay(), TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * 加载本地快照
+     *
+     * @return Snapshot，未启用、不存在或校验失败时返回 null
+     */
+    public Snapshot load() {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        File file = snapshotFile();
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())))) {
+            if (input.readInt() != MAGIC || input.readByte() != FORMAT_VERSION) {
+                log.warn("Ignore metadata snapshot {}, unknown format", file.getAbsolutePath());
+                return null;
+            }
+
+            long version = input.readLong();
+            long savedAt = input.readLong();
+            String service = input.readUTF();
+            if (!service.equals(driverProperty.getService())) {
+                log.warn("Ignore metadata snapshot {}, it belongs to driver service {}", file.getAbsolutePath(), service);
+                return null;
+            }
+
+            byte[] payload = new byte[input.readInt()];
+            long checksum = input.readLong();
+            input.readFully(payload);
+            if (checksum(payload) != checksum) {
+                log.warn("Ignore metadata snapshot {}, checksum mismatch", file.getAbsolutePath());
+                return null;
+            }
+
+            DriverMetadata metadata = JsonUtil.parseObject(new String(gunzip(payload), StandardCharsets.UTF_8), DriverMetadata.class);
+            if (ObjectUtil.isNull(metadata)) {
+                return null;
+            }
+            log.info("Load metadata snapshot, version: {}, saved at: {}, devices: {}", version, savedAt, metadata.getDeviceMap().size());
+            return new Snapshot(version, savedAt, metadata);
+        } catch (Exception e) {
+            log.warn("Ignore metadata snapshot {}, load error: {}", file.getAbsolutePath(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 保存当前元数据到快照
+     */
+    private void flush() {
+        scheduled.set(false);
+        dirty = false;
+        try {
+            // The version and the metadata are published in one immutable snapshot, serialized without any lock
+            MetadataSnapshot snapshot = driverContext.getMetadataSnapshot();
+            save(snapshot.getSyncVersion(), snapshot.getDriverMetadata());
+        } catch (IOException e) {
+            log.error("Save metadata snapshot error: {}", e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // Unexpected serialization failure, retry later
+            log.warn("Save metadata snapshot error, retry later: {}", e.getMessage());
+            markDirty();
+        }
+    }
+
+    private void save(long version, DriverMetadata metadata) throws IOException {
+        byte[] payload = gzip(JsonUtil.toJsonString(metadata).getBytes(StandardCharsets.UTF_8));
+        File file = snapshotFile();
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create snapshot directory: " + directory.getAbsolutePath());
+        }
+
+        Path temp = new File(directory, SNAPSHOT_FILE + TEMP_SUFFIX).toPath();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream output = new DataOutputStream(Channels.newOutputStream(channel))) {
+            output.writeInt(MAGIC);
+            output.writeByte(FORMAT_VERSION);
+            output.writeLong(version);
+            output.writeLong(System.currentTimeMillis());
+            output.writeUTF(String.valueOf(driverProperty.getService()));
+            output.writeInt(payload.length);
+            output.writeLong(checksum(payload));
+            output.write(payload);
+            output.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Save metadata snapshot, version: {}, bytes: {}", version, payload.length);
+    }
+
+    private File snapshotFile() {
+        return new File(driverProperty.getSnapshot().getPath(), SNAPSHOT_FILE);
+    }
+
+    private boolean isEnabled() {
+        SnapshotProperty snapshot = driverProperty.getSnapshot();
+        return ObjectUtil.isNotNull(snapshot) && Boolean.TRUE.equals(snapshot.getEnable());
+    }
+
+    private static long checksum(byte[] bytes) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes, 0, bytes.length);
+        return crc32.getValue();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(bytes.length / 4, 64));
+        try (OutputStream output = new GZIPOutputStream(buffer)) {
+            output.write(bytes);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length * 4);
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = input.read(chunk)) > 0) {
+                buffer.write(chunk, 0, read);
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 本地快照
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+
+        /**
+         * 快照对应的元数据版本
+         */
+        private final long version;
+
+        /**
+         * 保存时间
+         */
+        private final long savedAt;
+
+        /**
+         * 驱动元数据
+         */
+        private final DriverMetadata metadata;
+    }
+
+}
@@ -0,0 +1,576 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 不可变持久化哈希映射
+ * <p>
+ * 基于压缩哈希数组映射前缀树（CHAMP）实现，新增和删除只复制从根到目标节点的路径，复杂度为 O(log32 n)，
+ * 其余节点与原映射共享。修改方法返回新映射，原映射保持不变，可在多个线程间无锁共享。
+ * 键和值均不允许为 null，Map 接口上的修改方法会抛出 UnsupportedOperationException。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int HASH_LENGTH = 32;
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 空映射
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     * @return PersistentMap
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * 由普通映射构建持久化映射，入参已经是持久化映射时直接返回
+     *
+     * @param map Map
+     * @param <K> 键类型
+     * @param <V> 值类型
+     * @return PersistentMap
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap) {
+            return (PersistentMap<K, V>) map;
+        }
+
+        PersistentMap<K, V> result = empty();
+        if (map != null) {
+            for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                result = result.plus(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 返回包含指定键值的新映射，键已映射到同一个值时返回当前映射
+     *
+     * @param key   键
+     * @param value 值
+     * @return PersistentMap
+     */
+    public PersistentMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        Change change = new Change();
+        Node node = root.updated(key, value, hash(key), 0, change);
+        if (node == root) {
+            return this;
+        }
+        return new PersistentMap<>(node, change.added ? size + 1 : size);
+    }
+
+    /**
+     * 返回移除指定键后的新映射，键不存在时返回当前映射
+     *
+     * @param key 键
+     * @return PersistentMap
+     */
+    public PersistentMap<K, V> minus(Object key) {
+        if (key == null) {
+            return this;
+        }
+
+        Node node = root.removed(key, hash(key), 0);
+        if (node == root) {
+            return this;
+        }
+        return node.sizePredicate() == SIZE_EMPTY ? empty() : new PersistentMap<>(node, size - 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        return key == null ? null : (V) root.find(key, hash(key), 0);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Deque<Node> nodes = new ArrayDeque<>();
+        nodes.push(root);
+        while (!nodes.isEmpty()) {
+            Node node = nodes.pop();
+            for (int i = 0; i < node.dataArity(); i++) {
+                action.accept((K) node.keyAt(i), (V) node.valueAt(i));
+            }
+            for (int i = 0; i < node.nodeArity(); i++) {
+                nodes.push(node.nodeAt(i));
+            }
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int mask(int hash, int shift) {
+        return (hash >>> shift) & 31;
+    }
+
+    private static int bitpos(int mask) {
+        return 1 << mask;
+    }
+
+    private static final int SIZE_EMPTY = 0;
+    private static final int SIZE_ONE = 1;
+    private static final int SIZE_MORE = 2;
+
+    /**
+     * 修改结果
+     */
+    private static final class Change {
+
+        private boolean added;
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private abstract static class Node {
+
+        abstract Object find(Object key, int hash, int shift);
+
+        abstract Node updated(Object key, Object value, int hash, int shift, Change change);
+
+        abstract Node removed(Object key, int hash, int shift);
+
+        abstract int dataArity();
+
+        abstract int nodeArity();
+
+        abstract Object keyAt(int index);
+
+        abstract Object valueAt(int index);
+
+        abstract Node nodeAt(int index);
+
+        int sizePredicate() {
+            if (nodeArity() > 0) {
+                return SIZE_MORE;
+            }
+            switch (dataArity()) {
+                case 0:
+                    return SIZE_EMPTY;
+                case 1:
+                    return SIZE_ONE;
+                default:
+                    return SIZE_MORE;
+            }
+        }
+
+        /**
+         * 只包含一个键值的节点，位图按第一层计算，便于作为根节点或被父节点内联
+         */
+        static Node single(Object key, Object value, int hash) {
+            return new BitmapNode(bitpos(mask(hash, 0)), 0, new Object[]{key, value});
+        }
+
+        static Node merge(Object key0, Object value0, int hash0, Object key1, Object value1, int hash1, int shift) {
+            if (shift >= HASH_LENGTH) {
+                return new CollisionNode(hash0, new Object[]{key0, key1}, new Object[]{value0, value1});
+            }
+
+            int mask0 = mask(hash0, shift);
+            int mask1 = mask(hash1, shift);
+            if (mask0 != mask1) {
+                int dataMap = bitpos(mask0) | bitpos(mask1);
+                return mask0 < mask1
+                        ? new BitmapNode(dataMap, 0, new Object[]{key0, value0, key1, value1})
+                        : new BitmapNode(dataMap, 0, new Object[]{key1, value1, key0, value0});
+            }
+            Node node = merge(key0, value0, hash0, key1, value1, hash1, shift + BITS);
+            return new BitmapNode(0, bitpos(mask0), new Object[]{node});
+        }
+    }
+
+    /**
+     * 位图节点，content 前部按位图顺序存放键值对，尾部逆序存放子节点
+     */
+    private static final class BitmapNode extends Node {
+
+        private static final BitmapNode EMPTY = new BitmapNode(0, 0, new Object[0]);
+
+        private final int dataMap;
+        private final int nodeMap;
+        private final Object[] content;
+
+        private BitmapNode(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int bit = bitpos(mask(hash, shift));
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                return key.equals(content[2 * index]) ? content[2 * index + 1] : null;
+            }
+            if ((nodeMap & bit) != 0) {
+                return nodeOf(bit).find(key, hash, shift + BITS);
+            }
+            return null;
+        }
+
+        @Override
+        Node updated(Object key, Object value, int hash, int shift, Change change) {
+            int bit = bitpos(mask(hash, shift));
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                Object currentKey = content[2 * index];
+                if (key.equals(currentKey)) {
+                    if (content[2 * index + 1] == value) {
+                        return this;
+                    }
+                    Object[] copy = content.clone();
+                    copy[2 * index + 1] = value;
+                    return new BitmapNode(dataMap, nodeMap, copy);
+                }
+
+                change.added = true;
+                Node node = merge(currentKey, content[2 * index + 1], PersistentMap.hash(currentKey), key, value, hash, shift + BITS);
+                return migrateToNode(bit, node);
+            }
+            if ((nodeMap & bit) != 0) {
+                Node current = nodeOf(bit);
+                Node node = current.updated(key, value, hash, shift + BITS, change);
+                return node == current ? this : setNode(bit, node);
+            }
+
+            change.added = true;
+            int index = 2 * dataIndex(bit);
+            Object[] copy = new Object[content.length + 2];
+            System.arraycopy(content, 0, copy, 0, index);
+            copy[index] = key;
+            copy[index + 1] = value;
+            System.arraycopy(content, index, copy, index + 2, content.length - index);
+            return new BitmapNode(dataMap | bit, nodeMap, copy);
+        }
+
+        @Override
+        Node removed(Object key, int hash, int shift) {
+            int bit = bitpos(mask(hash, shift));
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                if (!key.equals(content[2 * index])) {
+                    return this;
+                }
+
+                if (dataArity() == 2 && nodeArity() == 0) {
+                    // Keep the remaining entry in a canonical single node, the parent inlines it
+                    int other = index == 0 ? 1 : 0;
+                    Object otherKey = content[2 * other];
+                    return single(otherKey, content[2 * other + 1], PersistentMap.hash(otherKey));
+                }
+
+                Object[] copy = new Object[content.length - 2];
+                System.arraycopy(content, 0, copy, 0, 2 * index);
+                System.arraycopy(content, 2 * index + 2, copy, 2 * index, content.length - 2 * index - 2);
+                return new BitmapNode(dataMap ^ bit, nodeMap, copy);
+            }
+            if ((nodeMap & bit) != 0) {
+                Node current = nodeOf(bit);
+                Node node = current.removed(key, hash, shift + BITS);
+                if (node == current) {
+                    return this;
+                }
+                if (node.sizePredicate() == SIZE_ONE) {
+                    // A lone entry moves up, the whole path collapses when this node holds nothing else
+                    return dataArity() == 0 && nodeArity() == 1 ? node : migrateToInline(bit, node);
+                }
+                return setNode(bit, node);
+            }
+            return this;
+        }
+
+        @Override
+        int dataArity() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        int nodeArity() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Object keyAt(int index) {
+            return content[2 * index];
+        }
+
+        @Override
+        Object valueAt(int index) {
+            return content[2 * index + 1];
+        }
+
+        @Override
+        Node nodeAt(int index) {
+            return (Node) content[content.length - 1 - index];
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        private Node nodeOf(int bit) {
+            return nodeAt(nodeIndex(bit));
+        }
+
+        private Node setNode(int bit, Node node) {
+            Object[] copy = content.clone();
+            copy[content.length - 1 - nodeIndex(bit)] = node;
+            return new BitmapNode(dataMap, nodeMap, copy);
+        }
+
+        private Node migrateToNode(int bit, Node node) {
+            int oldIndex = 2 * dataIndex(bit);
+            int newIndex = content.length - 2 - nodeIndex(bit);
+            Object[] copy = new Object[content.length - 1];
+            System.arraycopy(content, 0, copy, 0, oldIndex);
+            System.arraycopy(content, oldIndex + 2, copy, oldIndex, newIndex - oldIndex);
+            copy[newIndex] = node;
+            System.arraycopy(content, newIndex + 2, copy, newIndex + 1, content.length - newIndex - 2);
+            return new BitmapNode(dataMap ^ bit, nodeMap | bit, copy);
+        }
+
+        private Node migrateToInline(int bit, Node node) {
+            int oldIndex = content.length - 1 - nodeIndex(bit);
+            int newIndex = 2 * dataIndex(bit);
+            Object[] copy = new Object[content.length + 1];
+            System.arraycopy(content, 0, copy, 0, newIndex);
+            copy[newIndex] = node.keyAt(0);
+            copy[newIndex + 1] = node.valueAt(0);
+            System.arraycopy(content, newIndex, copy, newIndex + 2, oldIndex - newIndex);
+            System.arraycopy(content, oldIndex + 1, copy, oldIndex + 2, content.length - oldIndex - 1);
+            return new BitmapNode(dataMap | bit, nodeMap ^ bit, copy);
+        }
+    }
+
+    /**
+     * 哈希完全相同的键值对
+     */
+    private static final class CollisionNode extends Node {
+
+        private final int hash;
+        private final Object[] keys;
+        private final Object[] values;
+
+        private CollisionNode(int hash, Object[] keys, Object[] values) {
+            this.hash = hash;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int index = indexOf(key);
+            return index < 0 ? null : values[index];
+        }
+
+        @Override
+        Node updated(Object key, Object value, int hash, int shift, Change change) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (values[index] == value) {
+                    return this;
+                }
+                Object[] copy = values.clone();
+                copy[index] = value;
+                return new CollisionNode(this.hash, keys, copy);
+            }
+
+            change.added = true;
+            Object[] keyCopy = new Object[keys.length + 1];
+            Object[] valueCopy = new Object[values.length + 1];
+            System.arraycopy(keys, 0, keyCopy, 0, keys.length);
+            System.arraycopy(values, 0, valueCopy, 0, values.length);
+            keyCopy[keys.length] = key;
+            valueCopy[values.length] = value;
+            return new CollisionNode(this.hash, keyCopy, valueCopy);
+        }
+
+        @Override
+        Node removed(Object key, int hash, int shift) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            if (keys.length == 2) {
+                int other = index == 0 ? 1 : 0;
+                return single(keys[other], values[other], this.hash);
+            }
+
+            Object[] keyCopy = new Object[keys.length - 1];
+            Object[] valueCopy = new Object[values.length - 1];
+            System.arraycopy(keys, 0, keyCopy, 0, index);
+            System.arraycopy(keys, index + 1, keyCopy, index, keys.length - index - 1);
+            System.arraycopy(values, 0, valueCopy, 0, index);
+            System.arraycopy(values, index + 1, valueCopy, index, values.length - index - 1);
+            return new CollisionNode(this.hash, keyCopy, valueCopy);
+        }
+
+        @Override
+        int dataArity() {
+            return keys.length;
+        }
+
+        @Override
+        int nodeArity() {
+            return 0;
+        }
+
+        @Override
+        Object keyAt(int index) {
+            return keys[index];
+        }
+
+        @Override
+        Object valueAt(int index) {
+            return values[index];
+        }
+
+        @Override
+        Node nodeAt(int index) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (key.equals(keys[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 深度优先遍历前缀树的键值对
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+        private final Deque<Node> nodes = new ArrayDeque<>();
+        private Node current;
+        private int index;
+
+        private EntryIterator(Node root) {
+            nodes.push(root);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+
+            Map.Entry<K, V> entry = new SimpleImmutableEntry<>((K) current.keyAt(index), (V) current.valueAt(index));
+            index++;
+            if (index >= current.dataArity()) {
+                advance();
+            }
+            return entry;
+        }
+
+        private void advance() {
+            current = null;
+            index = 0;
+            while (!nodes.isEmpty()) {
+                Node node = nodes.pop();
+                for (int i = 0; i < node.nodeArity(); i++) {
+                    nodes.push(node.nodeAt(i));
+                }
+                if (node.dataArity() > 0) {
+                    current = node;
+                    return;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * 不可变持久化集合，基于 {@link PersistentMap} 实现
+ *
+ * @param <E> 元素类型
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public final class PersistentSet<E> extends AbstractSet<E> {
+
+    private static final PersistentSet<?> EMPTY = new PersistentSet<>(PersistentMap.empty());
+
+    private final PersistentMap<E, Boolean> map;
+
+    private PersistentSet(PersistentMap<E, Boolean> map) {
+        this.map = map;
+    }
+
+    /**
+     * 空集合
+     *
+     * @param <E> 元素类型
+     * @return PersistentSet
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentSet<E> empty() {
+        return (PersistentSet<E>) EMPTY;
+    }
+
+    /**
+     * 由普通集合构建持久化集合，入参已经是持久化集合时直接返回
+     *
+     * @param collection Collection
+     * @param <E>        元素类型
+     * @return PersistentSet
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentSet<E> copyOf(Collection<? extends E> collection) {
+        if (collection instanceof PersistentSet) {
+            return (PersistentSet<E>) collection;
+        }
+
+        PersistentSet<E> result = empty();
+        if (collection != null) {
+            for (E element : collection) {
+                result = result.plus(element);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 返回包含指定元素的新集合，元素已存在时返回当前集合
+     *
+     * @param element 元素
+     * @return PersistentSet
+     */
+    public PersistentSet<E> plus(E element) {
+        return wrap(map.plus(element, Boolean.TRUE));
+    }
+
+    /**
+     * 返回移除指定元素后的新集合，元素不存在时返回当前集合
+     *
+     * @param element 元素
+     * @return PersistentSet
+     */
+    public PersistentSet<E> minus(Object element) {
+        return wrap(map.minus(element));
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return map.containsKey(element);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return map.keySet().iterator();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    private PersistentSet<E> wrap(PersistentMap<E, Boolean> next) {
+        if (next == map) {
+            return this;
+        }
+        return next.isEmpty() ? empty() : new PersistentSet<>(next);
+    }
+
+}
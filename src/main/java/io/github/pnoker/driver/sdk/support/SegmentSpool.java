@@ -0,0 +1,427 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 基于内存映射文件的分段追加日志
+ * <p>
+ * 记录按追加顺序写入固定大小的段文件，格式为 [长度 int][时间戳 long][内容]，长度最后写入，未写完的记录长度为 0，重启后视为日志末尾；
+ * 读取位置保存在检查点文件中。总段数超过上限时删除最旧的段，超过保留时长的记录在读取时跳过，内容不驻留在堆中。
+ * 段文件删除和日志关闭前先解除内存映射，避免映射区域在 GC 之前一直占用地址空间和文件句柄。
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+public class SegmentSpool implements AutoCloseable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int RECORD_HEADER = 12;
+    private static final int CHECKPOINT_SIZE = 12;
+    private static final Consumer<MappedByteBuffer> UNMAPPER = unmapper();
+
+    private final File directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final long maxAgeMillis;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final MappedByteBuffer checkpoint;
+    private final RandomAccessFile checkpointFile;
+    private long readSegment;
+    private int readPosition;
+    private boolean closed;
+
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private final AtomicLong expiredCount = new AtomicLong(0);
+
+    /**
+     * 打开或创建分段日志
+     *
+     * @param directory    日志目录
+     * @param segmentBytes 单个段文件大小
+     * @param maxBytes     日志总大小上限
+     * @param maxAgeMillis 记录保留时长，单位毫秒，0 表示不限制
+     * @throws IOException 文件读写异常
+     */
+    public SegmentSpool(File directory, int segmentBytes, long maxBytes, long maxAgeMillis) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create spool directory: " + directory.getAbsolutePath());
+        }
+
+        this.directory = directory;
+        this.segmentBytes = Math.max(segmentBytes, 4096);
+        this.maxSegments = (int) Math.max(2L, Math.min(Integer.MAX_VALUE, maxBytes / this.segmentBytes));
+        this.maxAgeMillis = Math.max(maxAgeMillis, 0L);
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                try {
+                    long id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(id, Segment.open(id, file, this.segmentBytes));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignore unknown spool file: {}", file.getAbsolutePath());
+                }
+            }
+        }
+
+        this.checkpointFile = new RandomAccessFile(new File(directory, CHECKPOINT_FILE), "rw");
+        this.checkpoint = checkpointFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, CHECKPOINT_SIZE);
+        this.readSegment = checkpoint.getLong(0);
+        this.readPosition = checkpoint.getInt(8);
+        if (!segments.containsKey(readSegment)) {
+            this.readSegment = segments.isEmpty() ? 0L : segments.firstKey();
+            this.readPosition = 0;
+        }
+        // Segments before the checkpoint have been replayed already
+        while (!segments.isEmpty() && segments.firstKey() < readSegment) {
+            delete(segments.firstEntry().getValue());
+        }
+        log.info("Open spool: {}, segments: {}", directory.getAbsolutePath(), segments.size());
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param record 记录内容
+     * @return 是否追加成功，记录超过段文件大小时返回 false
+     * @throws IOException 文件读写异常
+     */
+    public synchronized boolean append(byte[] record) throws IOException {
+        if (closed) {
+            throw new IOException("Spool is closed: " + directory.getAbsolutePath());
+        }
+        if (record.length == 0 || record.length + RECORD_HEADER > segmentBytes) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+
+        Segment tail = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if (tail == null || tail.writePosition + RECORD_HEADER + record.length > segmentBytes) {
+            tail = roll(tail);
+        }
+
+        int position = tail.writePosition;
+        long timestamp = System.currentTimeMillis();
+        ByteBuffer buffer = tail.buffer.duplicate();
+        buffer.position(position + RECORD_HEADER);
+        buffer.put(record);
+        tail.buffer.putLong(position + 4, timestamp);
+        // The length is written last, a partially written record reads as the end of the log
+        tail.buffer.putInt(position, record.length);
+        tail.writePosition = position + RECORD_HEADER + record.length;
+        tail.lastTimestamp = timestamp;
+        return true;
+    }
+
+    /**
+     * 读取下一条未确认的记录，不移动读取位置
+     *
+     * @return SpoolRecord，没有记录时返回 null
+     */
+    public synchronized SpoolRecord peek() {
+        if (closed) {
+            return null;
+        }
+
+        long cutoff = maxAgeMillis > 0 ? System.currentTimeMillis() - maxAgeMillis : Long.MIN_VALUE;
+        while (!segments.isEmpty()) {
+            Segment segment = segments.get(readSegment);
+            if (segment == null) {
+                readSegment = segments.firstKey();
+                readPosition = 0;
+                continue;
+            }
+
+            if (readPosition < segment.writePosition) {
+                int length = segment.buffer.getInt(readPosition);
+                long timestamp = segment.buffer.getLong(readPosition + 4);
+                if (timestamp < cutoff) {
+                    expiredCount.incrementAndGet();
+                    move(readSegment, readPosition + RECORD_HEADER + length);
+                    continue;
+                }
+
+                byte[] record = new byte[length];
+                ByteBuffer buffer = segment.buffer.duplicate();
+                buffer.position(readPosition + RECORD_HEADER);
+                buffer.get(record);
+                return new SpoolRecord(readSegment, readPosition + RECORD_HEADER + length, timestamp, record);
+            }
+
+            Map.Entry<Long, Segment> next = segments.higherEntry(readSegment);
+            if (next == null) {
+                return null;
+            }
+            delete(segment);
+            move(next.getKey(), 0);
+        }
+        return null;
+    }
+
+    /**
+     * 确认记录已处理，移动读取位置
+     *
+     * @param record 由 peek 返回的记录
+     */
+    public synchronized void commit(SpoolRecord record) {
+        if (!closed && record.segment == readSegment && record.next > readPosition) {
+            move(record.segment, record.next);
+        }
+    }
+
+    /**
+     * 是否没有未确认的记录
+     *
+     * @return boolean
+     */
+    public synchronized boolean isEmpty() {
+        if (segments.isEmpty()) {
+            return true;
+        }
+
+        Segment tail = segments.lastEntry().getValue();
+        return readSegment == tail.id && readPosition >= tail.writePosition;
+    }
+
+    /**
+     * 获取段文件数量
+     *
+     * @return 数量
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 获取因超过大小上限被删除的段数量与超长被拒绝的记录数量
+     *
+     * @return 数量
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 获取因超过保留时长被跳过的记录数量
+     *
+     * @return 数量
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+            UNMAPPER.accept(segment.buffer);
+            segment.file.close();
+        }
+        segments.clear();
+        checkpoint.force();
+        UNMAPPER.accept(checkpoint);
+        checkpointFile.close();
+    }
+
+    /**
+     * 创建新的段文件，超过段数量上限时删除最旧的段
+     *
+     * @param tail 当前最后一个段
+     * @return 新的段
+     * @throws IOException 文件读写异常
+     */
+    private Segment roll(Segment tail) throws IOException {
+        if (tail != null) {
+            tail.buffer.force();
+        }
+
+        long id = tail == null ? Math.max(readSegment, 0L) : tail.id + 1;
+        Segment segment = Segment.open(id, new File(directory, String.format("%020d%s", id, SEGMENT_SUFFIX)), segmentBytes);
+        segments.put(id, segment);
+        if (tail == null) {
+            move(id, 0);
+        }
+
+        long cutoff = maxAgeMillis > 0 ? System.currentTimeMillis() - maxAgeMillis : Long.MIN_VALUE;
+        while (segments.size() > 1 && segments.firstEntry().getValue().lastTimestamp < cutoff) {
+            Segment expired = segments.firstEntry().getValue();
+            if (expired.id == readSegment) {
+                move(segments.higherKey(expired.id), 0);
+            }
+            delete(expired);
+            log.debug("Spool segment {} exceeds its retention age, delete it", expired.id);
+        }
+
+        while (segments.size() > maxSegments) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest.id == readSegment) {
+                move(segments.higherKey(oldest.id), 0);
+            }
+            delete(oldest);
+            droppedCount.incrementAndGet();
+            log.warn("Spool exceeds its size limit, drop segment: {}", oldest.id);
+        }
+        return segment;
+    }
+
+    private void move(long segment, int position) {
+        readSegment = segment;
+        readPosition = position;
+        checkpoint.putLong(0, segment);
+        checkpoint.putInt(8, position);
+    }
+
+    private void delete(Segment segment) {
+        segments.remove(segment.id);
+        UNMAPPER.accept(segment.buffer);
+        try {
+            segment.file.close();
+        } catch (IOException e) {
+            log.warn("Close spool segment {} error: {}", segment.id, e.getMessage());
+        }
+        File file = new File(directory, String.format("%020d%s", segment.id, SEGMENT_SUFFIX));
+        if (!file.delete()) {
+            log.warn("Failed to delete spool segment: {}", file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * 解除内存映射，映射只在持有日志锁时访问，解除后不会再被读写；当前 JVM 不支持时交由 GC 回收
+     *
+     * @return 解除映射方法
+     */
+    private static Consumer<MappedByteBuffer> unmapper() {
+        try {
+            // Java 9+
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            return buffer -> {
+                try {
+                    invokeCleaner.invoke(unsafe, buffer);
+                } catch (Exception e) {
+                    log.warn("Unmap spool buffer error: {}", e.getMessage());
+                }
+            };
+        } catch (Exception e) {
+            log.debug("Unsafe.invokeCleaner is not available, try the Java 8 cleaner: {}", e.getMessage());
+        }
+
+        try {
+            Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> {
+                try {
+                    Object instance = cleaner.invoke(buffer);
+                    if (instance != null) {
+                        clean.invoke(instance);
+                    }
+                } catch (Exception e) {
+                    log.warn("Unmap spool buffer error: {}", e.getMessage());
+                }
+            };
+        } catch (Exception e) {
+            log.warn("Unmapping is not supported, spool buffers are released by GC: {}", e.getMessage());
+            return buffer -> {
+            };
+        }
+    }
+
+    /**
+     * 日志记录
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SpoolRecord {
+        private final long segment;
+        private final int next;
+
+        /**
+         * 追加时间，毫秒时间戳
+         */
+        private final long timestamp;
+
+        /**
+         * 记录内容
+         */
+        private final byte[] data;
+    }
+
+    /**
+     * 段文件
+     */
+    private static final class Segment {
+        private final long id;
+        private final RandomAccessFile file;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private long lastTimestamp;
+
+        private Segment(long id, RandomAccessFile file, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        /**
+         * 打开段文件，并扫描得到写入位置
+         */
+        private static Segment open(long id, File path, int segmentBytes) throws IOException {
+            RandomAccessFile file = new RandomAccessFile(path, "rw");
+            Segment segment = new Segment(id, file, file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+            int position = 0;
+            while (position + RECORD_HEADER <= segmentBytes) {
+                int length = segment.buffer.getInt(position);
+                if (length <= 0 || position + RECORD_HEADER + length > segmentBytes) {
+                    break;
+                }
+                segment.lastTimestamp = segment.buffer.getLong(position + 4);
+                position += RECORD_HEADER + length;
+            }
+            segment.writePosition = position;
+            return segment;
+        }
+    }
+}
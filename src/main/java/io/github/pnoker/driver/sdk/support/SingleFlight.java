@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 单飞合并，同一个 key 同一时刻最多只有一个在途调用，其余调用共享其结果
+ *
+ * @param <K> Key
+ * @param <V> Value
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>(16);
+
+    /**
+     * 共享在途结果的调用次数
+     */
+    private final AtomicLong sharedCount = new AtomicLong(0);
+
+    /**
+     * 尝试占用 key，占用成功后需调用 complete 或 completeExceptionally 释放
+     *
+     * @param key Key
+     * @return 占用成功返回新的 Future，key 已在途时返回 null
+     */
+    public CompletableFuture<V> tryAcquire(K key) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        return this.flights.putIfAbsent(key, future) == null ? future : null;
+    }
+
+    /**
+     * 完成在途调用并释放 key
+     *
+     * @param key    Key
+     * @param future tryAcquire 返回的 Future
+     * @param value  Value
+     */
+    public void complete(K key, CompletableFuture<V> future, V value) {
+        this.flights.remove(key, future);
+        future.complete(value);
+    }
+
+    /**
+     * 以异常完成在途调用并释放 key
+     *
+     * @param key       Key
+     * @param future    tryAcquire 返回的 Future
+     * @param throwable Throwable
+     */
+    public void completeExceptionally(K key, CompletableFuture<V> future, Throwable throwable) {
+        this.flights.remove(key, future);
+        future.completeExceptionally(throwable);
+    }
+
+    /**
+     * 加入在途调用，共享其结果
+     *
+     * @param key Key
+     * @return 在途调用的 Future，key 未在途时返回 null
+     */
+    public CompletableFuture<V> join(K key) {
+        CompletableFuture<V> inflight = this.flights.get(key);
+        if (inflight != null) {
+            this.sharedCount.incrementAndGet();
+        }
+        return inflight;
+    }
+
+    /**
+     * 执行调用，key 已在途时等待并共享在途结果，否则在当前线程执行
+     *
+     * @param key      Key
+     * @param supplier 实际调用
+     * @return Value
+     */
+    public V execute(K key, Supplier<V> supplier) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inflight = this.flights.putIfAbsent(key, future);
+        if (inflight != null) {
+            this.sharedCount.incrementAndGet();
+            try {
+                return inflight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            V value = supplier.get();
+            complete(key, future, value);
+            return value;
+        } catch (Throwable e) {
+            // Errors must release the key too, otherwise the key stays in flight forever
+            completeExceptionally(key, future, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 获取在途调用数量
+     *
+     * @return 在途数量
+     */
+    public int size() {
+        return this.flights.size();
+    }
+
+    /**
+     * 获取共享在途结果的调用次数
+     *
+     * @return 次数
+     */
+    public long getSharedCount() {
+        return this.sharedCount.get();
+    }
+
+}
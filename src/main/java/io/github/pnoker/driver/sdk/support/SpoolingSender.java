@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 存储转发发送器
+ * <p>
+ * 消息组件可用且没有待补发消息时直接发送；发送失败后消息写入磁盘分段日志，此后的消息也追加到日志中以保证顺序，
+ * 由补发线程在连接恢复后按顺序、按限定速率补发，补发完成后恢复直接发送。
+ * 连接工厂开启 Publisher Confirm 时，补发的消息只有收到 Ack 且未被退回才确认移出日志，否则按退避间隔重新补发。
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+@Slf4j
+public class SpoolingSender implements AutoCloseable {
+
+    private static final long MAX_BACKOFF_MILLIS = 30000L;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final SegmentSpool spool;
+    private final long replayIntervalNanos;
+    private final boolean confirms;
+    private final long confirmTimeoutMillis;
+    private final Thread replayer;
+    private volatile boolean running = true;
+
+    private final AtomicLong spooledCount = new AtomicLong(0);
+    private final AtomicLong replayedCount = new AtomicLong(0);
+
+    /**
+     * 创建存储转发发送器
+     *
+     * @param rabbitTemplate RabbitTemplate
+     * @param spool          分段日志
+     * @param replayRate     每秒最大补发消息数量
+     * @param confirmTimeout 补发消息的确认超时时间，单位毫秒，仅在开启 Publisher Confirm 时生效
+     */
+    public SpoolingSender(RabbitTemplate rabbitTemplate, SegmentSpool spool, int replayRate, long confirmTimeout) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.spool = spool;
+        this.replayIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(replayRate, 1);
+        this.confirms = rabbitTemplate.getConnectionFactory().isPublisherConfirms();
+        this.confirmTimeoutMillis = Math.max(confirmTimeout, 1L);
+        this.replayer = new Thread(this::replayLoop, "dc3-driver-spool-replayer");
+        this.replayer.setDaemon(true);
+        this.replayer.start();
+    }
+
+    /**
+     * 发送消息，消息组件不可用或仍有待补发消息时写入分段日志
+     *
+     * @param exchange      Exchange
+     * @param routingKey    Routing Key
+     * @param payload       消息内容
+     * @param postProcessor 消息后置处理，可为 null
+     */
+    public void send(String exchange, String routingKey, Object payload, MessagePostProcessor postProcessor) {
+        if (spool.isEmpty()) {
+            try {
+                if (postProcessor == null) {
+                    rabbitTemplate.convertAndSend(exchange, routingKey, payload);
+                } else {
+                    rabbitTemplate.convertAndSend(exchange, routingKey, payload, postProcessor);
+                }
+                return;
+            } catch (AmqpException e) {
+                log.warn("Send message to {} failed, spool it: {}", routingKey, e.getMessage());
+            }
+        }
+
+        spool(exchange, routingKey, payload, postProcessor);
+    }
+
+    /**
+     * 将消息写入分段日志，等待补发
+     *
+     * @param exchange      Exchange
+     * @param routingKey    Routing Key
+     * @param payload       消息内容
+     * @param postProcessor 消息后置处理，可为 null
+     */
+    public void spool(String exchange, String routingKey, Object payload, MessagePostProcessor postProcessor) {
+        try {
+            Message message = rabbitTemplate.getMessageConverter().toMessage(payload, new MessageProperties());
+            if (postProcessor != null) {
+                message = postProcessor.postProcessMessage(message);
+            }
+            if (spool.append(encode(exchange, routingKey, message))) {
+                spooledCount.incrementAndGet();
+                LockSupport.unpark(replayer);
+            } else {
+                log.warn("Message to {} is too large to spool, drop it", routingKey);
+            }
+        } catch (Exception e) {
+            log.error("Spool message to {} error: {}", routingKey, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 是否仍有待补发消息，此时新消息需写入分段日志排在其后以保证顺序
+     *
+     * @return boolean
+     */
+    public boolean isBacklogged() {
+        return !spool.isEmpty();
+    }
+
+    public long getSpooledCount() {
+        return spooledCount.get();
+    }
+
+    public long getReplayedCount() {
+        return replayedCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        replayer.interrupt();
+        try {
+            replayer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        spool.close();
+    }
+
+    private void replayLoop() {
+        long backoff = 1000L;
+        while (running) {
+            SegmentSpool.SpoolRecord record = spool.peek();
+            if (record == null) {
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+                continue;
+            }
+
+            long start = System.nanoTime();
+            String failure;
+            try {
+                failure = replay(record.getData());
+            } catch (IOException e) {
+                log.error("Skip corrupted spooled message: {}", e.getMessage());
+                spool.commit(record);
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (AmqpException | ExecutionException | TimeoutException e) {
+                failure = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+
+            if (failure != null) {
+                // Keep the record at the head of the spool until the broker confirms it
+                log.warn("Replay spooled message failed, retry in {} ms: {}", backoff, failure);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoff));
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                continue;
+            }
+
+            spool.commit(record);
+            replayedCount.incrementAndGet();
+            backoff = 1000L;
+
+            long remaining = replayIntervalNanos - (System.nanoTime() - start);
+            if (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+
+    /**
+     * 补发一条消息，开启 Publisher Confirm 时等待确认结果
+     *
+     * @param data 记录内容
+     * @return 失败原因，补发成功时返回 null
+     */
+    private String replay(byte[] data) throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        String exchange = input.readUTF();
+        String routingKey = input.readUTF();
+        MessageProperties properties = new MessageProperties();
+        String contentType = input.readUTF();
+        if (!contentType.isEmpty()) {
+            properties.setContentType(contentType);
+        }
+        String contentEncoding = input.readUTF();
+        if (!contentEncoding.isEmpty()) {
+            properties.setContentEncoding(contentEncoding);
+        }
+        int headers = input.readInt();
+        for (int i = 0; i < headers; i++) {
+            String key = input.readUTF();
+            byte type = input.readByte();
+            if (type == 'I') {
+                properties.setHeader(key, input.readInt());
+            } else if (type == 'L') {
+                properties.setHeader(key, input.readLong());
+            } else {
+                properties.setHeader(key, input.readUTF());
+            }
+        }
+        byte[] body = new byte[input.readInt()];
+        input.readFully(body);
+        if (!confirms) {
+            rabbitTemplate.send(exchange, routingKey, new Message(body, properties));
+            return null;
+        }
+
+        CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
+        rabbitTemplate.send(exchange, routingKey, new Message(body, properties), correlationData);
+        CorrelationData.Confirm confirm = correlationData.getFuture().get(confirmTimeoutMillis, TimeUnit.MILLISECONDS);
+        if (correlationData.getReturned() != null) {
+            return "returned: " + correlationData.getReturned().getReplyText();
+        }
+        return confirm.isAck() ? null : "nacked: " + confirm.getReason();
+    }
+
+    /**
+     * 编码消息，保留 Exchange、Routing Key、Content-Type 和消息头
+     */
+    private byte[] encode(String exchange, String routingKey, Message message) throws IOException {
+        MessageProperties properties = message.getMessageProperties();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(message.getBody().length + 128);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeUTF(exchange);
+        output.writeUTF(routingKey);
+        output.writeUTF(properties.getContentType() == null ? "" : properties.getContentType());
+        output.writeUTF(properties.getContentEncoding() == null ? "" : properties.getContentEncoding());
+        Map<String, Object> headers = properties.getHeaders();
+        output.writeInt(headers.size());
+        for (Map.Entry<String, Object> header : headers.entrySet()) {
+            output.writeUTF(header.getKey());
+            Object value = header.getValue();
+            if (value instanceof Integer) {
+                output.writeByte('I');
+                output.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                output.writeByte('L');
+                output.writeLong((Long) value);
+            } else {
+                output.writeByte('S');
+                output.writeUTF(String.valueOf(value));
+            }
+        }
+        output.writeInt(message.getBody().length);
+        output.write(message.getBody());
+        output.flush();
+        return bytes.toByteArray();
+    }
+}
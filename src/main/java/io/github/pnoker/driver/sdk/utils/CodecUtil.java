@@ -0,0 +1,284 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pnoker.driver.sdk.utils;
+
+import io.github.pnoker.common.constant.common.ExceptionConstant;
+import io.github.pnoker.driver.sdk.enums.ByteOrderEnum;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 无分配的字节编解码工具类
+ * <p>
+ * 直接在 byte[] + 偏移量或 ByteBuffer 绝对位置上读写 16/32/64 位整数、无符号整数和单双精度浮点数，
+ * 支持 {@link ByteOrderEnum} 中的全部字节序，不创建临时数组，也不改变 ByteBuffer 的 position 和 order
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+public class CodecUtil {
+
+    private CodecUtil() {
+        throw new IllegalStateException(ExceptionConstant.UTILITY_CLASS);
+    }
+
+    /*
+     * byte[] decoder
+     */
+
+    public static short getInt16(byte[] bytes, int offset, ByteOrderEnum order) {
+        int m = order.mask(2);
+        return (short) ((bytes[offset + m] & 0xFF) << 8 | (bytes[offset + (1 ^ m)] & 0xFF));
+    }
+
+    public static int getUInt16(byte[] bytes, int offset, ByteOrderEnum order) {
+        return getInt16(bytes, offset, order) & 0xFFFF;
+    }
+
+    public static int getInt32(byte[] bytes, int offset, ByteOrderEnum order) {
+        int m = order.mask(4);
+        return (bytes[offset + m] & 0xFF) << 24
+                | (bytes[offset + (1 ^ m)] & 0xFF) << 16
+                | (bytes[offset + (2 ^ m)] & 0xFF) << 8
+                | (bytes[offset + (3 ^ m)] & 0xFF);
+    }
+
+    public static long getUInt32(byte[] bytes, int offset, ByteOrderEnum order) {
+        return getInt32(bytes, offset, order) & 0xFFFFFFFFL;
+    }
+
+    public static long getInt64(byte[] bytes, int offset, ByteOrderEnum order) {
+        int m = order.mask(8);
+        return (bytes[offset + m] & 0xFFL) << 56
+                | (bytes[offset + (1 ^ m)] & 0xFFL) << 48
+                | (bytes[offset + (2 ^ m)] & 0xFFL) << 40
+                | (bytes[offset + (3 ^ m)] & 0xFFL) << 32
+                | (bytes[offset + (4 ^ m)] & 0xFFL) << 24
+                | (bytes[offset + (5 ^ m)] & 0xFFL) << 16
+                | (bytes[offset + (6 ^ m)] & 0xFFL) << 8
+                | (bytes[offset + (7 ^ m)] & 0xFFL);
+    }
+
+    public static float getFloat32(byte[] bytes, int offset, ByteOrderEnum order) {
+        return Float.intBitsToFloat(getInt32(bytes, offset, order));
+    }
+
+    public static double getFloat64(byte[] bytes, int offset, ByteOrderEnum order) {
+        return Double.longBitsToDouble(getInt64(bytes, offset, order));
+    }
+
+    /*
+     * byte[] encoder
+     */
+
+    public static void putInt16(byte[] bytes, int offset, int value, ByteOrderEnum order) {
+        int m = order.mask(2);
+        bytes[offset + m] = (byte) (value >>> 8);
+        bytes[offset + (1 ^ m)] = (byte) value;
+    }
+
+    public static void putInt32(byte[] bytes, int offset, int value, ByteOrderEnum order) {
+        int m = order.mask(4);
+        bytes[offset + m] = (byte) (value >>> 24);
+        bytes[offset + (1 ^ m)] = (byte) (value >>> 16);
+        bytes[offset + (2 ^ m)] = (byte) (value >>> 8);
+        bytes[offset + (3 ^ m)] = (byte) value;
+    }
+
+    public static void putUInt32(byte[] bytes, int offset, long value, ByteOrderEnum order) {
+        putInt32(bytes, offset, (int) value, order);
+    }
+
+    public static void putInt64(byte[] bytes, int offset, long value, ByteOrderEnum order) {
+        int m = order.mask(8);
+        for (int i = 0; i < 8; i++) {
+            bytes[offset + (i ^ m)] = (byte) (value >>> (56 - (i << 3)));
+        }
+    }
+
+    public static void putFloat32(byte[] bytes, int offset, float value, ByteOrderEnum order) {
+        putInt32(bytes, offset, Float.floatToRawIntBits(value), order);
+    }
+
+    public static void putFloat64(byte[] bytes, int offset, double value, ByteOrderEnum order) {
+        putInt64(bytes, offset, Double.doubleToRawLongBits(value), order);
+    }
+
+    /*
+     * ByteBuffer decoder, absolute index
+     */
+
+    public static short getInt16(ByteBuffer buffer, int index, ByteOrderEnum order) {
+        int m = order.mask(2);
+        return (short) ((buffer.get(index + m) & 0xFF) << 8 | (buffer.get(index + (1 ^ m)) & 0xFF));
+    }
+
+    public static int getUInt16(ByteBuffer buffer, int index, ByteOrderEnum order) {
+        return getInt16(buffer, index, order) & 0xFFFF;
+    }
+
+    public static int getInt32(ByteBuffer buffer, int index, ByteOrderEnum order) {
+        if (buffer.hasArray()) {
+            return getInt32(buffer.array(), buffer.arrayOffset() + checkIndex(buffer, index, 4), order);
+        }
+
+        int m = order.mask(4);
+        return (buffer.get(index + m) & 0xFF) << 24
+                | (buffer.get(index + (1 ^ m)) & 0xFF) << 16
+                | (buffer.get(index + (2 ^ m)) & 0xFF) << 8
+                | (buffer.get(index + (3 ^ m)) & 0xFF);
+    }
+
+    public static long getUInt32(ByteBuffer buffer, int index, ByteOrderEnum order) {
+        return getInt32(buffer, index, order) & 0xFFFFFFFFL;
+    }
+
+    public static long getInt64(ByteBuffer buffer, int index, ByteOrderEnum order) {
+        if (buffer.hasArray()) {
+            return getInt64(buffer.array(), buffer.arrayOffset() + checkIndex(buffer, index, 8), order);
+        }
+
+        int m = order.mask(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (buffer.get(index + (i ^ m)) & 0xFFL);
+        }
+        return value;
+    }
+
+    public static float getFloat32(ByteBuffer buffer, int index, ByteOrderEnum order) {
+        return Float.intBitsToFloat(getInt32(buffer, index, order));
+    }
+
+    public static double getFloat64(ByteBuffer buffer, int index, ByteOrderEnum order) {
+        return Double.longBitsToDouble(getInt64(buffer, index, order));
+    }
+
+    /*
+     * ByteBuffer encoder, absolute index
+     */
+
+    public static void putInt16(ByteBuffer buffer, int index, int value, ByteOrderEnum order) {
+        int m = order.mask(2);
+        buffer.put(index + m, (byte) (value >>> 8));
+        buffer.put(index + (1 ^ m), (byte) value);
+    }
+
+    public static void putInt32(ByteBuffer buffer, int index, int value, ByteOrderEnum order) {
+        int m = order.mask(4);
+        buffer.put(index + m, (byte) (value >>> 24));
+        buffer.put(index + (1 ^ m), (byte) (value >>> 16));
+        buffer.put(index + (2 ^ m), (byte) (value >>> 8));
+        buffer.put(index + (3 ^ m), (byte) value);
+    }
+
+    public static void putUInt32(ByteBuffer buffer, int index, long value, ByteOrderEnum order) {
+        putInt32(buffer, index, (int) value, order);
+    }
+
+    public static void putInt64(ByteBuffer buffer, int index, long value, ByteOrderEnum order) {
+        int m = order.mask(8);
+        for (int i = 0; i < 8; i++) {
+            buffer.put(index + (i ^ m), (byte) (value >>> (56 - (i << 3))));
+        }
+    }
+
+    public static void putFloat32(ByteBuffer buffer, int index, float value, ByteOrderEnum order) {
+        putInt32(buffer, index, Float.floatToRawIntBits(value), order);
+    }
+
+    public static void putFloat64(ByteBuffer buffer, int index, double value, ByteOrderEnum order) {
+        putInt64(buffer, index, Double.doubleToRawLongBits(value), order);
+    }
+
+    /*
+     * In-place helpers
+     */
+
+    /**
+     * 原地颠倒 byte[] 中的指定区间
+     *
+     * @param bytes  Byte Array
+     * @param offset 起始位置
+     * @param length 长度
+     */
+    public static void reverse(byte[] bytes, int offset, int length) {
+        for (int i = offset, j = offset + length - 1; i < j; i++, j--) {
+            byte temp = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = temp;
+        }
+    }
+
+    /**
+     * 将多个 byte[] 依次写入目标数组
+     *
+     * @param target 目标数组
+     * @param offset 起始位置
+     * @param bytes  Byte Array
+     * @return 写入后的下一个位置
+     */
+    public static int merge(byte[] target, int offset, byte[]... bytes) {
+        for (byte[] value : bytes) {
+            System.arraycopy(value, 0, target, offset, value.length);
+            offset += value.length;
+        }
+        return offset;
+    }
+
+    /**
+     * 获取 byte[] 指定区间的异或值
+     *
+     * @param bytes  Byte Array
+     * @param offset 起始位置
+     * @param length 长度
+     * @return Byte
+     */
+    public static byte xor(byte[] bytes, int offset, int length) {
+        byte xor = 0x00;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            xor ^= bytes[i];
+        }
+        return xor;
+    }
+
+    /**
+     * 获取 byte[] 指定区间的累加值
+     *
+     * @param bytes  Byte Array
+     * @param offset 起始位置
+     * @param length 长度
+     * @return Byte
+     */
+    public static byte sum(byte[] bytes, int offset, int length) {
+        byte sum = 0x00;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            sum += bytes[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 检查 ByteBuffer 绝对位置，与 ByteBuffer.get(int) 的越界行为一致
+     */
+    private static int checkIndex(ByteBuffer buffer, int index, int size) {
+        if (index < 0 || size > buffer.limit() - index) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size + ", limit: " + buffer.limit());
+        }
+        return index;
+    }
+}
@@ -26,7 +26,9 @@ import io.github.pnoker.common.utils.ArithmeticUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigDecimal;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 类型转换相关工具类集合
@@ -44,6 +46,11 @@ public class ConvertUtil {
     private static final BigDecimal defaultBase = new BigDecimal(0);
     private static final BigDecimal defaultMultiple = new BigDecimal(1);
 
+    /**
+     * 位号转换器缓存，pointId -> PointConverter
+     */
+    private static final Map<String, PointConverter> converterMap = new ConcurrentHashMap<>(16);
+
     /**
      * 位号数据处理
      * 当出现精度问题，向上调整
@@ -58,39 +65,44 @@ public class ConvertUtil {
             throw new EmptyException("Point is empty");
         }
 
-        PointTypeFlagEnum valueType = Optional.ofNullable(point.getPointTypeFlag()).orElse(PointTypeFlagEnum.STRING);
-        BigDecimal base = Optional.ofNullable(point.getBaseValue()).orElse(defaultBase);
-        BigDecimal multiple = Optional.ofNullable(point.getMultiple()).orElse(defaultMultiple);
-        byte decimal = Optional.ofNullable(point.getValueDecimal()).orElse((byte) 6);
-
-        Object value;
-        switch (valueType) {
-            case BYTE:
-                value = convertByte(rawValue, base, multiple);
-                break;
-            case SHORT:
-                value = convertShort(rawValue, base, multiple);
-                break;
-            case INT:
-                value = convertInteger(rawValue, base, multiple);
-                break;
-            case LONG:
-                value = convertLong(rawValue, base, multiple);
-                break;
-            case FLOAT:
-                value = convertFloat(rawValue, base, multiple, decimal);
-                break;
-            case DOUBLE:
-                value = convertDouble(rawValue, base, multiple, decimal);
-                break;
-            case BOOLEAN:
-                value = convertBoolean(rawValue);
-                break;
-            default:
-                return rawValue;
-        }
-
-        return String.valueOf(value);
+        return getConverter(point).convert(rawValue);
+    }
+
+    /**
+     * 位号新增、更新或删除后，移除位号的转换器缓存
+     *
+     * @param pointId 位号ID
+     */
+    public static void invalidate(String pointId) {
+        if (ObjectUtil.isNotNull(pointId)) {
+            converterMap.remove(pointId);
+        }
+    }
+
+    /**
+     * 清空全部位号转换器缓存
+     */
+    public static void invalidateAll() {
+        converterMap.clear();
+    }
+
+    /**
+     * 获取位号转换器，位号对象变化后重新编译
+     *
+     * @param point Point
+     * @return PointConverter
+     */
+    private static PointConverter getConverter(Point point) {
+        if (ObjectUtil.isNull(point.getId())) {
+            return new PointConverter(point);
+        }
+
+        PointConverter converter = converterMap.get(point.getId());
+        if (ObjectUtil.isNull(converter) || converter.point != point) {
+            converter = new PointConverter(point);
+            converterMap.put(point.getId(), converter);
+        }
+        return converter;
     }
 
     /**
@@ -225,4 +237,213 @@ public class ConvertUtil {
         BigDecimal multiply = a.multiply(bigDecimal);
         return multiply.add(b);
     }
+
+    /**
+     * 由位号预编译的转换器
+     * <p>
+     * 类型、基值、倍数和小数位在编译时解析一次；整数类型在基值和倍数均为整数时使用 long 运算，
+     * 浮点类型在小数位不超过 9 位时使用 double 运算并直接舍入，仅在溢出、非常规格式或舍入位恰好接近中点时回退到 BigDecimal
+     */
+    private static final class PointConverter {
+
+        private static final int MAX_FAST_DECIMAL = 9;
+        private static final int MAX_LONG_DIGITS = 18;
+        private static final double MAX_FAST_SCALED = 1e12;
+        private static final double DOUBLE_TOLERANCE = 1e-13;
+        private static final double FLOAT_TOLERANCE = 1e-6;
+
+        private final Point point;
+        private final PointTypeFlagEnum valueType;
+        private final BigDecimal base;
+        private final BigDecimal multiple;
+        private final byte decimal;
+
+        private final boolean identity;
+        private final boolean integral;
+        private final long baseLong;
+        private final long multipleLong;
+        private final double baseDouble;
+        private final double multipleDouble;
+        private final double power;
+
+        private PointConverter(Point point) {
+            this.point = point;
+            this.valueType = Optional.ofNullable(point.getPointTypeFlag()).orElse(PointTypeFlagEnum.STRING);
+            this.base = Optional.ofNullable(point.getBaseValue()).orElse(defaultBase);
+            this.multiple = Optional.ofNullable(point.getMultiple()).orElse(defaultMultiple);
+            this.decimal = Optional.ofNullable(point.getValueDecimal()).orElse((byte) 6);
+
+            this.identity = defaultMultiple.compareTo(multiple) == 0 && defaultBase.compareTo(base) == 0;
+            this.integral = isLong(base) && isLong(multiple);
+            this.baseLong = integral ? base.longValue() : 0L;
+            this.multipleLong = integral ? multiple.longValue() : 1L;
+            this.baseDouble = base.doubleValue();
+            this.multipleDouble = multiple.doubleValue();
+            this.power = decimal >= 0 && decimal <= MAX_FAST_DECIMAL ? Math.pow(10, decimal) : 0D;
+        }
+
+        private String convert(String rawValue) {
+            switch (valueType) {
+                case BYTE:
+                    return String.valueOf((byte) convertInteger(rawValue));
+                case SHORT:
+                    return String.valueOf((short) convertInteger(rawValue));
+                case INT:
+                    return String.valueOf((int) convertInteger(rawValue));
+                case LONG:
+                    return String.valueOf(convertInteger(rawValue));
+                case FLOAT:
+                    return String.valueOf(convertFloat(rawValue));
+                case DOUBLE:
+                    return String.valueOf(convertDouble(rawValue));
+                case BOOLEAN:
+                    return String.valueOf(convertBoolean(rawValue));
+                default:
+                    return rawValue;
+            }
+        }
+
+        /**
+         * 整数类型转换，long 运算结果的低位即为目标类型的值，与 BigDecimal 的窄化转换一致
+         */
+        private long convertInteger(String rawValue) {
+            if (integral && isPlainLong(rawValue)) {
+                try {
+                    long value = Long.parseLong(rawValue);
+                    return identity ? value : Math.addExact(Math.multiplyExact(value, multipleLong), baseLong);
+                } catch (ArithmeticException | NumberFormatException e) {
+                    // Fall back to BigDecimal below
+                }
+            }
+
+            switch (valueType) {
+                case BYTE:
+                    return ConvertUtil.convertByte(rawValue, base, multiple);
+                case SHORT:
+                    return ConvertUtil.convertShort(rawValue, base, multiple);
+                case INT:
+                    return ConvertUtil.convertInteger(rawValue, base, multiple);
+                default:
+                    return ConvertUtil.convertLong(rawValue, base, multiple);
+            }
+        }
+
+        private float convertFloat(String rawValue) {
+            if (power > 0 && isPlainDecimal(rawValue)) {
+                float value = (float) (Double.parseDouble(rawValue) * multipleDouble + baseDouble);
+                if (!Float.isInfinite(value)) {
+                    double rounded = round(value, FLOAT_TOLERANCE);
+                    if (!Double.isNaN(rounded)) {
+                        return (float) rounded;
+                    }
+                }
+            }
+            return ConvertUtil.convertFloat(rawValue, base, multiple, decimal);
+        }
+
+        private double convertDouble(String rawValue) {
+            if (power > 0 && isPlainDecimal(rawValue)) {
+                double value = Double.parseDouble(rawValue) * multipleDouble + baseDouble;
+                if (!Double.isInfinite(value)) {
+                    double rounded = round(value, DOUBLE_TOLERANCE);
+                    if (!Double.isNaN(rounded)) {
+                        return rounded;
+                    }
+                }
+            }
+            return ConvertUtil.convertDouble(rawValue, base, multiple, decimal);
+        }
+
+        /**
+         * 四舍五入到指定小数位
+         *
+         * @param value     值
+         * @param tolerance 相对误差容限
+         * @return 舍入结果，舍入位接近中点或超出快速计算范围时返回 NaN
+         */
+        private double round(double value, double tolerance) {
+            double scaled = Math.abs(value * power);
+            if (scaled >= MAX_FAST_SCALED) {
+                return Double.NaN;
+            }
+
+            double floor = Math.floor(scaled);
+            double fraction = scaled - floor;
+            if (Math.abs(fraction - 0.5D) <= Math.max(scaled, 1D) * tolerance) {
+                return Double.NaN;
+            }
+
+            double rounded = fraction > 0.5D ? floor + 1 : floor;
+            return rounded == 0 ? 0D : Math.copySign(rounded / power, value);
+        }
+
+        private static boolean isLong(BigDecimal value) {
+            try {
+                value.longValueExact();
+                return true;
+            } catch (ArithmeticException e) {
+                return false;
+            }
+        }
+
+        /**
+         * 是否为不超过 18 位的十进制整数
+         */
+        private static boolean isPlainLong(String value) {
+            int length = value == null ? 0 : value.length();
+            int start = length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+            if (length == start || length - start > MAX_LONG_DIGITS) {
+                return false;
+            }
+            for (int i = start; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 是否为 BigDecimal 与 Double 解析结果一致的十进制数，形如 -12.34 或 1.5e3
+         */
+        private static boolean isPlainDecimal(String value) {
+            int length = value == null ? 0 : value.length();
+            int i = length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+            int digits = 0;
+            boolean dot = false;
+            for (; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    digits++;
+                } else if (c == '.' && !dot) {
+                    dot = true;
+                } else {
+                    break;
+                }
+            }
+            if (digits == 0) {
+                return false;
+            }
+            if (i == length) {
+                return true;
+            }
+
+            char e = value.charAt(i++);
+            if (e != 'e' && e != 'E') {
+                return false;
+            }
+            if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+                i++;
+            }
+            int exponent = 0;
+            for (; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9' || ++exponent > 3) {
+                    return false;
+                }
+            }
+            return exponent > 0;
+        }
+    }
 }
@@ -22,6 +22,7 @@ import io.github.pnoker.common.constant.common.ExceptionConstant;
 import io.github.pnoker.common.entity.driver.AttributeInfo;
 import io.github.pnoker.common.enums.PointTypeFlagEnum;
 import io.github.pnoker.common.utils.DecodeUtil;
+import io.github.pnoker.driver.sdk.enums.ByteOrderEnum;
 import lombok.extern.slf4j.Slf4j;
 
 import java.nio.charset.StandardCharsets;
@@ -41,6 +42,8 @@ public class DriverUtil {
 
     /**
      * 获取 属性值
+     * <p>
+     * 每次调用都会查找并转换属性值，读写路径上建议使用 DriverAttributeService 绑定为配置对象
      *
      * @param infoMap   Attribute Info
      * @param attribute String Attribute Name
@@ -166,18 +169,7 @@ public class DriverUtil {
      * @return Integer
      */
     public static int bytesToInt(byte[] bytes) {
-        byte[] temp = new byte[4];
-        int length = bytes.length;
-        System.arraycopy(bytes, 0, temp, 0, length);
-        for (int i = length; i < 4; i++) {
-            temp[i] = 0x00;
-        }
-        int int1 = temp[3] & 0xff;
-        int int2 = (temp[2] & 0xff) << 8;
-        int int3 = (temp[1] & 0xff) << 16;
-        int int4 = (temp[0] & 0xff) << 24;
-
-        return int1 | int2 | int3 | int4;
+        return bytesToInt(bytes, ByteOrderEnum.ABCD);
     }
 
     /**
@@ -187,17 +179,32 @@ public class DriverUtil {
      * @return Integer
      */
     public static int bytesToIntLE(byte[] bytes) {
-        byte[] temp = new byte[4];
+        return bytesToInt(bytes, ByteOrderEnum.DCBA);
+    }
+
+    /**
+     * byte数组到int的转换，不足4字节时在末尾补0
+     *
+     * @param bytes Byte Array
+     * @param order ByteOrderEnum
+     * @return Integer
+     */
+    private static int bytesToInt(byte[] bytes, ByteOrderEnum order) {
         int length = bytes.length;
-        System.arraycopy(bytes, 0, temp, 0, length);
-        for (int i = length; i < 4; i++) {
-            temp[i] = 0x00;
+        if (length == 4) {
+            return CodecUtil.getInt32(bytes, 0, order);
+        }
+        if (length > 4) {
+            throw new ArrayIndexOutOfBoundsException("Bytes length must not be greater than 4: " + length);
+        }
+
+        int mask = order.mask(4);
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int index = i ^ mask;
+            value = value << 8 | (index < length ? bytes[index] & 0xff : 0);
         }
-        int int1 = temp[0] & 0xff;
-        int int2 = (temp[1] & 0xff) << 8;
-        int int3 = (temp[2] & 0xff) << 16;
-        int int4 = (temp[3] & 0xff) << 24;
-        return int1 | int2 | int3 | int4;
+        return value;
     }
 
     /**
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pnoker.driver.sdk;
+
+import io.github.pnoker.common.entity.driver.DriverMetadata;
+import io.github.pnoker.common.exception.NotFoundException;
+import io.github.pnoker.common.model.Device;
+import io.github.pnoker.common.model.Point;
+import io.github.pnoker.driver.sdk.entity.read.ReadPlan;
+import io.github.pnoker.driver.sdk.support.MetadataSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DriverContext 测试
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+class DriverContextTest {
+
+    @Test
+    void updatePublishesMetadataAndIndexesTogether() {
+        DriverContext context = new DriverContext();
+        MetadataSnapshot before = context.getMetadataSnapshot();
+
+        context.updateDriverMetadata(draft -> {
+            draft.upsertProfile("pr1");
+            draft.upsertPoint(point("p1", "pr1"));
+            draft.upsertDevice(device("d1", "pr1"));
+        });
+
+        MetadataSnapshot after = context.getMetadataSnapshot();
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals("p1", context.getPointByDeviceIdAndPointId("d1", "p1").getId());
+        assertEquals(Collections.singleton("d1"), context.getDeviceIdsByProfileId("pr1"));
+        // The snapshot held by a reader is never changed afterwards
+        assertTrue(before.getDriverMetadata().getDeviceMap().isEmpty());
+        assertTrue(before.getDevicePointMap().isEmpty());
+    }
+
+    @Test
+    void updateWithoutChangesKeepsSnapshot() {
+        DriverContext context = new DriverContext();
+        MetadataSnapshot before = context.getMetadataSnapshot();
+
+        context.updateDriverMetadata(draft -> draft.deleteDevice("missing"));
+
+        assertSame(before, context.getMetadataSnapshot());
+    }
+
+    @Test
+    void setDriverMetadataReplacesSnapshot() {
+        DriverContext context = new DriverContext();
+        context.updateDriverMetadata(draft -> draft.upsertDevice(device("d1")));
+        MetadataSnapshot before = context.getMetadataSnapshot();
+
+        DriverMetadata metadata = new DriverMetadata();
+        Map<String, Device> deviceMap = new HashMap<>();
+        deviceMap.put("d2", device("d2"));
+        metadata.setDeviceMap(deviceMap);
+        context.setDriverMetadata(metadata);
+
+        MetadataSnapshot after = context.getMetadataSnapshot();
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(before.getGeneration() + 1, after.getGeneration());
+        assertEquals(Collections.singleton("d2"), context.getDriverMetadata().getDeviceMap().keySet());
+        // The published snapshot does not follow later changes of the source
+        deviceMap.put("d3", device("d3"));
+        assertEquals(1, context.getDriverMetadata().getDeviceMap().size());
+    }
+
+    @Test
+    void syncVersionIsPublishedWithTheSnapshot() {
+        DriverContext context = new DriverContext();
+        context.setDriverMetadata(new DriverMetadata(), 5L);
+        MetadataSnapshot full = context.getMetadataSnapshot();
+        assertEquals(5L, context.getMetadataSyncVersion());
+
+        // A version-only change shares the metadata and keeps the read plan version
+        context.setMetadataSyncVersion(6L);
+        MetadataSnapshot advanced = context.getMetadataSnapshot();
+        assertEquals(6L, advanced.getSyncVersion());
+        assertEquals(full.getVersion(), advanced.getVersion());
+        assertSame(full.getDevicePointMap(), advanced.getDevicePointMap());
+
+        context.updateDriverMetadata(draft -> {
+            draft.upsertDevice(device("d1"));
+            draft.setSyncVersion(draft.getSyncVersion() + 1);
+        });
+        MetadataSnapshot changed = context.getMetadataSnapshot();
+        assertEquals(7L, changed.getSyncVersion());
+        assertEquals(advanced.getVersion() + 1, changed.getVersion());
+
+        // A full replacement without a version keeps the applied one
+        context.setDriverMetadata(new DriverMetadata());
+        assertEquals(7L, context.getMetadataSyncVersion());
+    }
+
+    @Test
+    void readPlanFollowsSnapshotVersion() {
+        DriverContext context = new DriverContext();
+        ReadPlan plan = context.getReadPlan();
+        assertEquals(context.getMetadataSnapshot().getVersion(), plan.getVersion());
+        assertSame(plan, context.getReadPlan());
+
+        context.updateDriverMetadata(draft -> draft.upsertDevice(device("d1")));
+
+        ReadPlan rebuilt = context.getReadPlan();
+        assertNotSame(plan, rebuilt);
+        assertEquals(context.getMetadataSnapshot().getVersion(), rebuilt.getVersion());
+    }
+
+    @Test
+    void missingDeviceOrPointIsNotFound() {
+        DriverContext context = new DriverContext();
+        context.updateDriverMetadata(draft -> draft.upsertDevice(device("d1")));
+
+        assertThrows(NotFoundException.class, () -> context.getDeviceByDeviceId("d2"));
+        assertThrows(NotFoundException.class, () -> context.getPointByDeviceIdAndPointId("d1", "p1"));
+        assertTrue(context.getPointByDeviceId("d1").isEmpty());
+        assertTrue(context.getDeviceIdsByProfileId("pr1").isEmpty());
+    }
+
+    private static Device device(String id, String... profileIds) {
+        Device device = new Device();
+        device.setId(id);
+        device.setProfileIds(new HashSet<>(Arrays.asList(profileIds)));
+        return device;
+    }
+
+    private static Point point(String id, String profileId) {
+        Point point = new Point();
+        point.setId(id);
+        point.setProfileId(profileId);
+        return point;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pnoker.driver.sdk.codec;
+
+import io.github.pnoker.common.constant.driver.EventConstant;
+import io.github.pnoker.common.dto.DriverEventDTO;
+import io.github.pnoker.common.entity.DeviceEvent;
+import io.github.pnoker.common.entity.point.PointValue;
+import io.github.pnoker.common.enums.DriverEventTypeEnum;
+import io.github.pnoker.common.enums.DriverStatusEnum;
+import io.github.pnoker.driver.sdk.entity.event.DriverStatusEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BinaryWireCodec 测试
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+class BinaryWireCodecTest {
+
+    private final BinaryWireCodec codec = new BinaryWireCodec();
+
+    @Test
+    void valuesRoundTripExactly() {
+        String[] values = {
+                "0", "1", "-1", "42", "9223372036854775807", "123456789012345678", "1234567890123456789",
+                "0.5", "-0.5", "3.14", "3.140", "0.001", "-12.0", "100.25",
+                "007", "-0", "-0.0", ".5", "5.", "1e3", "+1", "-", "",
+                "true", "false", "TRUE", "hello", "温度"
+        };
+        Date originTime = new Date(1_600_000_000_123L);
+        Date createTime = new Date(1_600_000_000_456L);
+        for (String value : values) {
+            PointValue pointValue = new PointValue("device", "point", value, value);
+            pointValue.setOriginTime(originTime);
+            pointValue.setCreateTime(createTime);
+
+            PointValue decoded = roundTrip(pointValue);
+            assertEquals(value, decoded.getRawValue(), value);
+            assertEquals(value, decoded.getValue(), value);
+            assertEquals(originTime, decoded.getOriginTime(), value);
+            assertEquals(createTime, decoded.getCreateTime(), value);
+        }
+    }
+
+    @Test
+    void nullFieldsRoundTrip() {
+        PointValue pointValue = new PointValue("device", null, null, null);
+        pointValue.setOriginTime(null);
+        PointValue decoded = roundTrip(pointValue);
+
+        assertEquals("device", decoded.getDeviceId());
+        assertNull(decoded.getPointId());
+        assertNull(decoded.getRawValue());
+        assertNull(decoded.getValue());
+        assertNull(decoded.getOriginTime());
+        assertNull(decoded.getCreateTime());
+    }
+
+    @Test
+    void versionWithoutTimeIsDecoded() {
+        PointValue pointValue = new PointValue("device", "point", "1", "0.5");
+        pointValue.setOriginTime(null);
+        byte[] body = codec.encode(pointValue);
+
+        // Version 1 has no trailing timestamps, both are null here and encoded as one byte each
+        byte[] legacy = Arrays.copyOf(body, body.length - 2);
+        legacy[1] = 1;
+        PointValue decoded = (PointValue) codec.decode(legacy);
+
+        assertEquals("point", decoded.getPointId());
+        assertEquals("0.5", decoded.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pointValueBatchRoundTrips() {
+        List<PointValue> pointValues = Arrays.asList(
+                new PointValue("d1", "p1", "1", "0.1"),
+                new PointValue("d2", "p2", "on", "true"));
+
+        List<PointValue> decoded = (List<PointValue>) codec.decode(codec.encode(pointValues));
+
+        assertEquals(2, decoded.size());
+        assertEquals("d2", decoded.get(1).getDeviceId());
+        assertEquals("p2", decoded.get(1).getPointId());
+        assertEquals("0.1", decoded.get(0).getValue());
+        assertEquals(pointValues.get(0).getOriginTime(), decoded.get(0).getOriginTime());
+        assertEquals("on", decoded.get(1).getRawValue());
+    }
+
+    @Test
+    void eventsRoundTrip() {
+        DeviceEvent deviceEvent = (DeviceEvent) codec.decode(codec.encode(
+                new DeviceEvent("device", EventConstant.Device.STATUS, DriverStatusEnum.ONLINE)));
+        assertEquals("device", deviceEvent.getDeviceId());
+        assertEquals(EventConstant.Device.STATUS, deviceEvent.getType());
+        assertEquals(DriverStatusEnum.ONLINE.name(), deviceEvent.getContent());
+
+        DriverEventDTO driverEvent = (DriverEventDTO) codec.decode(codec.encode(
+                new DriverEventDTO(DriverEventTypeEnum.HEARTBEAT, "{}")));
+        assertEquals(DriverEventTypeEnum.HEARTBEAT, driverEvent.getType());
+        assertEquals("{}", driverEvent.getContent());
+
+        DriverStatusEvent statusEvent = (DriverStatusEvent) codec.decode(codec.encode(
+                new DriverStatusEvent("driver", DriverStatusEnum.ONLINE)));
+        assertEquals("driver", statusEvent.getDriverId());
+        assertEquals(DriverStatusEnum.ONLINE, statusEvent.getStatus());
+    }
+
+    @Test
+    void supportsOnlyKnownPayloads() {
+        assertTrue(codec.supports(new PointValue("d", "p", "1", "1")));
+        assertTrue(codec.supports(Arrays.asList(new PointValue("d", "p", "1", "1"))));
+        assertFalse(codec.supports(Arrays.asList("text")));
+        assertFalse(codec.supports(new DeviceEvent("d", EventConstant.Device.STATUS, new Object())));
+        assertFalse(codec.supports("text"));
+        assertFalse(codec.supports(null));
+        assertThrows(IllegalArgumentException.class, () -> codec.encode("text"));
+    }
+
+    @Test
+    void invalidHeaderIsRejected() {
+        byte[] body = codec.encode(new PointValue("d", "p", "1", "1"));
+
+        byte[] badMagic = body.clone();
+        badMagic[0] = 0;
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(badMagic));
+
+        byte[] badVersion = body.clone();
+        badVersion[1] = BinaryWireCodec.VERSION + 1;
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(badVersion));
+    }
+
+    private PointValue roundTrip(PointValue pointValue) {
+        return (PointValue) codec.decode(codec.encode(pointValue));
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pnoker.driver.sdk.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ConfirmPublisher 测试
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+class ConfirmPublisherTest {
+
+    private final CachingConnectionFactory connectionFactory = new CachingConnectionFactory();
+    private final RecordingTemplate template = new RecordingTemplate(connectionFactory);
+    private final BlockingQueue<Object> fallback = new LinkedBlockingQueue<>();
+    private ConfirmPublisher publisher;
+
+    ConfirmPublisherTest() {
+        connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.close();
+        }
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void ackConfirmsMessage() throws InterruptedException {
+        publisher = publisher(4, 3, 5000L, 10L);
+        publisher.publish("ex", "rk", "a", null);
+
+        Sent sent = next();
+        assertEquals("a", sent.payload);
+        ack(sent);
+
+        eventually(() -> publisher.getConfirmedCount() == 1);
+        assertEquals(0, publisher.getPendingCount());
+        assertEquals(0, publisher.getRetriedCount());
+    }
+
+    @Test
+    void nackRetriesAtTheHeadAfterBackoff() throws InterruptedException {
+        publisher = publisher(1, 3, 5000L, 100L);
+        publisher.publish("ex", "rk", "a", null);
+        publisher.publish("ex", "rk", "b", null);
+
+        Sent first = next();
+        assertEquals("a", first.payload);
+        long failedAt = System.nanoTime();
+        nack(first);
+
+        // The failed message goes before the newer one, and only after the backoff
+        Sent retry = next();
+        assertEquals("a", retry.payload);
+        assertTrue(retry.nanos - failedAt >= TimeUnit.MILLISECONDS.toNanos(90), "retried without backoff");
+        ack(retry);
+
+        Sent second = next();
+        assertEquals("b", second.payload);
+        ack(second);
+
+        eventually(() -> publisher.getConfirmedCount() == 2);
+        assertEquals(1, publisher.getRetriedCount());
+    }
+
+    @Test
+    void returnedAndNackedMessageFallsBackAfterRetries() throws InterruptedException {
+        publisher = publisher(4, 1, 5000L, 10L);
+        publisher.publish("ex", "rk", "a", null);
+
+        Sent first = next();
+        first.correlationData.setReturned(new ReturnedMessage(new Message(new byte[0], new MessageProperties()), 312, "NO_ROUTE", "ex", "rk"));
+        ack(first);
+        nack(next());
+
+        assertEquals("a", fallback.poll(2, TimeUnit.SECONDS));
+        assertEquals(1, publisher.getRetriedCount());
+        assertEquals(0, publisher.getConfirmedCount());
+        assertEquals(0, publisher.getPendingCount());
+    }
+
+    @Test
+    void confirmTimeoutRetries() throws InterruptedException {
+        publisher = publisher(4, 1, 50L, 10L);
+        publisher.publish("ex", "rk", "a", null);
+
+        // Never confirmed, the sweeper times both attempts out
+        assertNotNull(next());
+        assertNotNull(next());
+
+        assertEquals("a", fallback.poll(2, TimeUnit.SECONDS));
+        assertNull(template.sent.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, publisher.getRetriedCount());
+    }
+
+    private ConfirmPublisher publisher(int window, int retries, long timeout, long backoff) {
+        ConfirmPublisher confirmPublisher = new ConfirmPublisher(template, 16, window, retries, timeout, backoff, backoff * 10);
+        confirmPublisher.setFallback((exchange, routingKey, payload, postProcessor) -> fallback.add(payload));
+        return confirmPublisher;
+    }
+
+    /**
+     * 确认回调可能在发送线程注册时才执行，等待结果可见
+     */
+    private static void eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private Sent next() throws InterruptedException {
+        Sent sent = template.sent.poll(2, TimeUnit.SECONDS);
+        assertNotNull(sent, "no message sent");
+        return sent;
+    }
+
+    private static void ack(Sent sent) {
+        sent.correlationData.getFuture().set(new CorrelationData.Confirm(true, null));
+    }
+
+    private static void nack(Sent sent) {
+        sent.correlationData.getFuture().set(new CorrelationData.Confirm(false, "nacked"));
+    }
+
+    private static final class Sent {
+        private final Object payload;
+        private final CorrelationData correlationData;
+        private final long nanos;
+
+        private Sent(Object payload, CorrelationData correlationData) {
+            this.payload = payload;
+            this.correlationData = correlationData;
+            this.nanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 记录发送的消息，由测试手动确认
+     */
+    private static final class RecordingTemplate extends RabbitTemplate {
+        private final BlockingQueue<Sent> sent = new LinkedBlockingQueue<>();
+
+        private RecordingTemplate(ConnectionFactory connectionFactory) {
+            super(connectionFactory);
+        }
+
+        @Override
+        public void convertAndSend(String exchange, String routingKey, Object object, CorrelationData correlationData) {
+            sent.add(new Sent(object, correlationData));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pnoker.driver.sdk.support;
+
+import io.github.pnoker.common.entity.point.PointValue;
+import io.github.pnoker.driver.sdk.entity.read.Deadband;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DeadbandFilter 测试
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+class DeadbandFilterTest {
+
+    private final DeadbandFilter filter = new DeadbandFilter();
+
+    @Test
+    void withoutDeadbandEveryValueIsReported() {
+        assertTrue(filter.report(null, value("p1", "1")));
+        assertTrue(filter.report(null, value("p1", "1")));
+        assertEquals(0, filter.getSuppressedCount());
+    }
+
+    @Test
+    void absoluteDeadbandSuppressesSmallChanges() {
+        Deadband deadband = new Deadband(0.5, 0, 0);
+
+        assertTrue(filter.report(deadband, value("p1", "10")));
+        assertFalse(filter.report(deadband, value("p1", "10.4")));
+        assertTrue(filter.report(deadband, value("p1", "10.6")));
+        assertFalse(filter.report(deadband, value("p1", "10.2")));
+        assertEquals(2, filter.getSuppressedCount());
+    }
+
+    @Test
+    void percentDeadbandIsRelativeToLastReport() {
+        Deadband deadband = new Deadband(0, 10, 0);
+
+        assertTrue(filter.report(deadband, value("p1", "100")));
+        assertFalse(filter.report(deadband, value("p1", "109")));
+        assertTrue(filter.report(deadband, value("p1", "111")));
+    }
+
+    @Test
+    void nonNumericValuesReportOnChange() {
+        Deadband deadband = new Deadband(1, 0, 0);
+
+        assertTrue(filter.report(deadband, value("p1", "on")));
+        assertFalse(filter.report(deadband, value("p1", "on")));
+        assertTrue(filter.report(deadband, value("p1", "off")));
+    }
+
+    @Test
+    void maxSilenceForcesReport() throws InterruptedException {
+        Deadband deadband = new Deadband(100, 0, 1);
+
+        assertTrue(filter.report(deadband, value("p1", "1")));
+        Thread.sleep(5);
+        assertTrue(filter.report(deadband, value("p1", "1")));
+    }
+
+    @Test
+    void recordUpdatesLastReportedValue() {
+        Deadband deadband = new Deadband(0.5, 0, 0);
+        assertTrue(filter.report(deadband, value("p1", "10")));
+
+        // A command read reports 20 outside the filter
+        filter.record(deadband, value("p1", "20"));
+
+        assertFalse(filter.report(deadband, value("p1", "20.1")));
+        assertTrue(filter.report(deadband, value("p1", "10")));
+    }
+
+    @Test
+    void removedPointStartsOver() {
+        Deadband deadband = new Deadband(0.5, 0, 0);
+        assertTrue(filter.report(deadband, value("p1", "10")));
+
+        filter.removePoint("p1");
+        assertTrue(filter.report(deadband, value("p1", "10")));
+
+        filter.removeDevice("d1");
+        assertTrue(filter.report(deadband, value("p1", "10")));
+    }
+
+    private static PointValue value(String pointId, String value) {
+        return new PointValue("d1", pointId, value, value);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pnoker.driver.sdk.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * DeviceBulkhead 测试，执行器只收集任务，由测试按需运行
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+class DeviceBulkheadTest {
+
+    private final Deque<Runnable> submitted = new ArrayDeque<>();
+    private final Executor executor = submitted::add;
+
+    @Test
+    void limitsConcurrencyPerDevice() {
+        DeviceBulkhead bulkhead = new DeviceBulkhead(executor, 1, 8);
+        List<String> ran = new ArrayList<>();
+        bulkhead.execute("d1", null, () -> ran.add("a"));
+        bulkhead.execute("d1", null, () -> ran.add("b"));
+
+        assertEquals(1, submitted.size());
+        assertEquals(1, bulkhead.getQueueDepth("d1"));
+
+        runAll();
+
+        assertEquals(Arrays.asList("a", "b"), ran);
+        assertEquals(0, bulkhead.getActiveCount());
+        assertEquals(0, bulkhead.getQueueSize());
+    }
+
+    @Test
+    void limitsConcurrencyPerHost() {
+        DeviceBulkhead bulkhead = new DeviceBulkhead(executor, 1, 1);
+        bulkhead.execute("d1", "h1", () -> {
+        });
+        bulkhead.execute("d2", "h1", () -> {
+        });
+
+        assertEquals(1, submitted.size());
+        assertEquals(1, bulkhead.getQueueDepth("d2"));
+
+        runAll();
+
+        assertEquals(0, bulkhead.getQueueSize());
+    }
+
+    @Test
+    void commandsRunBeforeQueuedReads() {
+        DeviceBulkhead bulkhead = new DeviceBulkhead(executor, 1, 8);
+        List<String> ran = new ArrayList<>();
+        bulkhead.execute("d1", null, () -> ran.add("read1"));
+        bulkhead.execute("d1", null, () -> ran.add("read2"));
+        bulkhead.executeCommand("d1", null, () -> ran.add("command"));
+
+        runAll();
+
+        assertEquals(Arrays.asList("read1", "command", "read2"), ran);
+    }
+
+    @Test
+    void deviceMovesToItsCurrentHost() {
+        DeviceBulkhead bulkhead = new DeviceBulkhead(executor, 1, 1);
+        bulkhead.execute("d1", "h1", () -> {
+        });
+        bulkhead.execute("d2", "h1", () -> {
+        });
+        assertEquals(1, submitted.size());
+
+        // d2 was waiting for h1, its host changed to h2 so it no longer waits
+        bulkhead.execute("d2", "h2", () -> {
+        });
+
+        assertEquals(2, submitted.size());
+        assertEquals(2, bulkhead.getActiveCount());
+        runAll();
+        assertEquals(0, bulkhead.getActiveCount());
+        assertEquals(0, bulkhead.getQueueSize());
+    }
+
+    @Test
+    void fullDeviceQueueRejects() {
+        DeviceBulkhead bulkhead = new DeviceBulkhead(executor, executor, 1, 8, 1);
+        bulkhead.execute("d1", null, () -> {
+        });
+        bulkhead.execute("d1", null, () -> {
+        });
+
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.execute("d1", null, () -> {
+        }));
+        assertEquals(1, bulkhead.getRejectedCount());
+        // Other devices are not affected
+        bulkhead.execute("d2", null, () -> {
+        });
+
+        runAll();
+        assertEquals(0, bulkhead.getQueueSize());
+    }
+
+    @Test
+    void executorRejectionDropsAndReleases() {
+        AtomicInteger dropped = new AtomicInteger();
+        DeviceBulkhead bulkhead = new DeviceBulkhead(command -> {
+            throw new RejectedExecutionException("saturated");
+        }, 1, 1);
+
+        bulkhead.execute("d1", "h1", DroppableRunnable.of(() -> {
+        }, dropped::incrementAndGet));
+        bulkhead.execute("d1", "h1", DroppableRunnable.of(() -> {
+        }, dropped::incrementAndGet));
+
+        assertEquals(2, dropped.get());
+        assertEquals(0, bulkhead.getActiveCount());
+        assertEquals(0, bulkhead.getQueueSize());
+    }
+
+    private void runAll() {
+        Runnable task;
+        while ((task = submitted.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pnoker.driver.sdk.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HashedTimingWheel 测试
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+class HashedTimingWheelTest {
+
+    @Test
+    void firesAfterDelayThenEveryInterval() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(8);
+        wheel.schedule("a", 3, 2);
+
+        assertEquals(Arrays.asList(2, 5, 8, 11), fireTicks(wheel, "a", 12));
+    }
+
+    @Test
+    void intervalLongerThanWheelWaitsFullRounds() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(4);
+        wheel.schedule("a", 10, 10);
+
+        assertEquals(Arrays.asList(10, 20), fireTicks(wheel, "a", 25));
+    }
+
+    @Test
+    void cancelStopsFiring() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(8);
+        HashedTimingWheel.Timeout<String> timeout = wheel.schedule("a", 2, 1);
+        wheel.schedule("b", 2, 1);
+        wheel.cancel(timeout);
+        wheel.cancel(timeout);
+
+        assertTrue(timeout.isCancelled());
+        assertEquals(1, wheel.size());
+        assertEquals(Collections.emptyList(), fireTicks(wheel, "a", 10));
+    }
+
+    @Test
+    void replacedTaskKeepsDeadline() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(8);
+        HashedTimingWheel.Timeout<String> timeout = wheel.schedule("a", 4, 3);
+        wheel.advance(task -> {
+        });
+        long deadline = timeout.getDeadline();
+
+        timeout.setTask("b");
+
+        assertEquals(deadline, timeout.getDeadline());
+        List<String> fired = new ArrayList<>();
+        wheel.advance(fired::add);
+        wheel.advance(fired::add);
+        assertEquals(Collections.singletonList("b"), fired);
+    }
+
+    @Test
+    void clearCancelsEverything() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(8);
+        HashedTimingWheel.Timeout<String> timeout = wheel.schedule("a", 1, 1);
+        wheel.schedule("b", 5, 3);
+
+        wheel.clear();
+
+        assertEquals(0, wheel.size());
+        assertTrue(timeout.isCancelled());
+        List<String> fired = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            wheel.advance(fired::add);
+        }
+        assertTrue(fired.isEmpty());
+    }
+
+    private static List<Integer> fireTicks(HashedTimingWheel<String> wheel, String task, int ticks) {
+        List<Integer> fired = new ArrayList<>();
+        for (int tick = 1; tick <= ticks; tick++) {
+            int current = tick;
+            wheel.advance(t -> {
+                if (task.equals(t)) {
+                    fired.add(current);
+                }
+            });
+        }
+        return fired;
+    }
+}
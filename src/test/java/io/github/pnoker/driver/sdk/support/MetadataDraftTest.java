@@ -0,0 +1,261 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pnoker.driver.sdk.support;
+
+import io.github.pnoker.common.entity.driver.AttributeInfo;
+import io.github.pnoker.common.entity.driver.DriverMetadata;
+import io.github.pnoker.common.enums.AttributeTypeFlagEnum;
+import io.github.pnoker.common.model.Device;
+import io.github.pnoker.common.model.DriverAttribute;
+import io.github.pnoker.common.model.DriverAttributeConfig;
+import io.github.pnoker.common.model.Point;
+import io.github.pnoker.common.model.PointAttribute;
+import io.github.pnoker.common.model.PointAttributeConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MetadataDraft 测试
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+class MetadataDraftTest {
+
+    @Test
+    void upsertDeviceIndexesProfilePoints() {
+        MetadataDraft draft = new MetadataDraft(empty());
+        draft.upsertProfile("pr1");
+        draft.upsertPoint(point("p1", "pr1"));
+        draft.upsertPoint(point("p2", "pr1"));
+        draft.upsertDevice(device("d1", "pr1"));
+        MetadataSnapshot snapshot = draft.build();
+
+        assertEquals(new HashSet<>(Arrays.asList("p1", "p2")), snapshot.getDevicePointMap().get("d1").keySet());
+        assertEquals(Collections.singleton("d1"), snapshot.getProfileDeviceMap().get("pr1"));
+        assertEquals(Collections.singleton("pr1"), snapshot.getDeviceProfileMap().get("d1"));
+    }
+
+    @Test
+    void upsertPointReachesReferencingDevices() {
+        MetadataSnapshot base = build(draft -> {
+            draft.upsertProfile("pr1");
+            draft.upsertDevice(device("d1", "pr1"));
+            draft.upsertDevice(device("d2", "pr1"));
+        });
+
+        MetadataSnapshot snapshot = build(base, draft -> draft.upsertPoint(point("p1", "pr1")));
+
+        assertTrue(snapshot.getDevicePointMap().get("d1").containsKey("p1"));
+        assertTrue(snapshot.getDevicePointMap().get("d2").containsKey("p1"));
+    }
+
+    @Test
+    void deleteProfileRemovesItsPointsFromDevices() {
+        MetadataSnapshot base = build(draft -> {
+            draft.upsertProfile("pr1");
+            draft.upsertProfile("pr2");
+            draft.upsertPoint(point("p1", "pr1"));
+            draft.upsertPoint(point("p2", "pr2"));
+            draft.upsertDevice(device("d1", "pr1", "pr2"));
+        });
+
+        MetadataSnapshot snapshot = build(base, draft -> draft.deleteProfile("pr1"));
+
+        assertEquals(Collections.singleton("p2"), snapshot.getDevicePointMap().get("d1").keySet());
+        assertNull(snapshot.getDriverMetadata().getProfilePointMap().get("pr1"));
+    }
+
+    @Test
+    void deleteDeviceRemovesItsIndexes() {
+        MetadataSnapshot base = build(draft -> {
+            draft.upsertProfile("pr1");
+            draft.upsertPoint(point("p1", "pr1"));
+            draft.upsertDevice(device("d1", "pr1"));
+        });
+
+        MetadataSnapshot snapshot = build(base, draft -> draft.deleteDevice("d1"));
+
+        assertNull(snapshot.getDevicePointMap().get("d1"));
+        assertNull(snapshot.getDeviceProfileMap().get("d1"));
+        assertFalse(snapshot.getProfileDeviceMap().getOrDefault("pr1", Collections.emptySet()).contains("d1"));
+        assertNull(snapshot.getDriverMetadata().getDeviceMap().get("d1"));
+    }
+
+    @Test
+    void buildLeavesBaseSnapshotUntouched() {
+        MetadataSnapshot base = build(draft -> {
+            draft.upsertProfile("pr1");
+            draft.upsertDevice(device("d1", "pr1"));
+        });
+
+        MetadataSnapshot snapshot = build(base, draft -> draft.upsertPoint(point("p1", "pr1")));
+
+        assertEquals(base.getVersion() + 1, snapshot.getVersion());
+        assertEquals(base.getGeneration(), snapshot.getGeneration());
+        assertTrue(base.getDriverMetadata().getProfilePointMap().get("pr1").isEmpty());
+        assertTrue(base.getDevicePointMap().get("d1").isEmpty());
+    }
+
+    @Test
+    void buildWithoutChangesReturnsBase() {
+        MetadataSnapshot base = build(draft -> draft.upsertProfile("pr1"));
+        MetadataDraft draft = new MetadataDraft(base);
+        draft.upsertProfile("pr1");
+
+        assertFalse(draft.isChanged());
+        assertSame(base, draft.build());
+    }
+
+    @Test
+    void publishedMapsAreImmutable() {
+        MetadataSnapshot snapshot = build(draft -> draft.upsertDevice(device("d1")));
+        Map<String, Device> deviceMap = snapshot.getDriverMetadata().getDeviceMap();
+
+        assertThrows(UnsupportedOperationException.class, () -> deviceMap.put("d2", device("d2")));
+        assertThrows(UnsupportedOperationException.class, () -> deviceMap.remove("d1"));
+    }
+
+    @Test
+    void rebuildThresholdMatchesIncrementalIndex() {
+        MetadataSnapshot base = build(draft -> {
+            draft.upsertProfile("pr1");
+            draft.upsertProfile("pr2");
+            draft.upsertDevice(device("d1", "pr1"));
+        });
+
+        MetadataDraft draft = new MetadataDraft(base);
+        draft.setRebuildThreshold(0);
+        draft.upsertPoint(point("p1", "pr1"));
+        draft.upsertPoint(point("p2", "pr2"));
+        draft.upsertDevice(device("d2", "pr1", "pr2"));
+        draft.deletePoint("pr1", "p1");
+        MetadataSnapshot snapshot = draft.build();
+
+        MetadataSnapshot rebuilt = MetadataDraft.freeze(snapshot.getDriverMetadata(), 0L, 0L, 0L);
+        assertEquals(rebuilt.getDevicePointMap(), snapshot.getDevicePointMap());
+        assertEquals(rebuilt.getProfileDeviceMap(), snapshot.getProfileDeviceMap());
+        assertEquals(Collections.singleton("p2"), snapshot.getDevicePointMap().get("d2").keySet());
+    }
+
+    @Test
+    void renameDriverAttributeRekeysDeviceConfigs() {
+        MetadataSnapshot base = build(draft -> {
+            draft.upsertDriverAttribute(driverAttribute("da1", "host"));
+            draft.upsertDevice(device("d1"));
+            draft.upsertDriverInfo(driverInfo("d1", "da1", "127.0.0.1"));
+        });
+
+        MetadataDraft draft = new MetadataDraft(base);
+        Set<String> deviceIds = draft.upsertDriverAttribute(driverAttribute("da1", "ip"));
+        MetadataSnapshot snapshot = draft.build();
+
+        assertEquals(Collections.singleton("d1"), deviceIds);
+        Map<String, AttributeInfo> infoMap = snapshot.getDriverMetadata().getDriverInfoMap().get("d1");
+        assertNull(infoMap.get("host"));
+        assertEquals("127.0.0.1", infoMap.get("ip").getValue());
+    }
+
+    @Test
+    void deletePointAttributeReturnsAffectedPoints() {
+        MetadataSnapshot base = build(draft -> {
+            PointAttribute attribute = new PointAttribute();
+            attribute.setId("pa1");
+            attribute.setAttributeName("address");
+            attribute.setAttributeTypeFlag(AttributeTypeFlagEnum.INT);
+            draft.upsertPointAttribute(attribute);
+            draft.upsertDevice(device("d1"));
+            draft.upsertPointInfo(pointInfo("d1", "p1", "pa1", "40001"));
+            draft.upsertPointInfo(pointInfo("d1", "p2", "pa1", "40002"));
+        });
+
+        MetadataDraft draft = new MetadataDraft(base);
+        Map<String, Set<String>> devicePointIds = draft.deletePointAttribute("pa1");
+        MetadataSnapshot snapshot = draft.build();
+
+        assertEquals(new HashSet<>(Arrays.asList("p1", "p2")), devicePointIds.get("d1"));
+        assertNull(snapshot.getPointAttributeConfigMap().get("pa1"));
+        assertNull(snapshot.getDriverMetadata().getPointAttributeMap().get("pa1"));
+    }
+
+    private static MetadataSnapshot empty() {
+        return MetadataDraft.freeze(new DriverMetadata(), 0L, 0L, 0L);
+    }
+
+    private static MetadataSnapshot build(Consumer<MetadataDraft> changes) {
+        return build(empty(), changes);
+    }
+
+    private static MetadataSnapshot build(MetadataSnapshot base, Consumer<MetadataDraft> changes) {
+        MetadataDraft draft = new MetadataDraft(base);
+        changes.accept(draft);
+        return draft.build();
+    }
+
+    private static Device device(String id, String... profileIds) {
+        Device device = new Device();
+        device.setId(id);
+        device.setProfileIds(new HashSet<>(Arrays.asList(profileIds)));
+        return device;
+    }
+
+    private static Point point(String id, String profileId) {
+        Point point = new Point();
+        point.setId(id);
+        point.setProfileId(profileId);
+        return point;
+    }
+
+    private static DriverAttribute driverAttribute(String id, String name) {
+        DriverAttribute attribute = new DriverAttribute();
+        attribute.setId(id);
+        attribute.setAttributeName(name);
+        attribute.setAttributeTypeFlag(AttributeTypeFlagEnum.STRING);
+        return attribute;
+    }
+
+    private static DriverAttributeConfig driverInfo(String deviceId, String attributeId, String value) {
+        DriverAttributeConfig config = new DriverAttributeConfig();
+        config.setDeviceId(deviceId);
+        config.setDriverAttributeId(attributeId);
+        config.setConfigValue(value);
+        return config;
+    }
+
+    private static PointAttributeConfig pointInfo(String deviceId, String pointId, String attributeId, String value) {
+        PointAttributeConfig config = new PointAttributeConfig();
+        config.setDeviceId(deviceId);
+        config.setPointId(pointId);
+        config.setPointAttributeId(attributeId);
+        config.setConfigValue(value);
+        return config;
+    }
+}
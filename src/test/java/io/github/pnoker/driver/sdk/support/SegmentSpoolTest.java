@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pnoker.driver.sdk.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SegmentSpool 测试
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+class SegmentSpoolTest {
+
+    private static final int SEGMENT = 4096;
+
+    @TempDir
+    File directory;
+
+    @Test
+    void peekAndCommitInAppendOrder() throws IOException {
+        try (SegmentSpool spool = new SegmentSpool(directory, SEGMENT, SEGMENT * 16L, 0)) {
+            assertTrue(spool.isEmpty());
+            spool.append(bytes("a"));
+            spool.append(bytes("b"));
+
+            SegmentSpool.SpoolRecord first = spool.peek();
+            assertEquals("a", text(first));
+            // Peek does not move the read position until commit
+            assertEquals("a", text(spool.peek()));
+            spool.commit(first);
+            SegmentSpool.SpoolRecord second = spool.peek();
+            assertEquals("b", text(second));
+            spool.commit(second);
+
+            assertNull(spool.peek());
+            assertTrue(spool.isEmpty());
+        }
+    }
+
+    @Test
+    void reopenResumesFromCheckpoint() throws IOException {
+        try (SegmentSpool spool = new SegmentSpool(directory, SEGMENT, SEGMENT * 16L, 0)) {
+            spool.append(bytes("a"));
+            spool.append(bytes("b"));
+            spool.append(bytes("c"));
+            spool.commit(spool.peek());
+        }
+
+        try (SegmentSpool spool = new SegmentSpool(directory, SEGMENT, SEGMENT * 16L, 0)) {
+            assertEquals("b", text(spool.peek()));
+            spool.commit(spool.peek());
+            assertEquals("c", text(spool.peek()));
+        }
+    }
+
+    @Test
+    void replayedSegmentsAreDeleted() throws IOException {
+        try (SegmentSpool spool = new SegmentSpool(directory, SEGMENT, SEGMENT * 64L, 0)) {
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(spool.append(bytes("message-" + i)));
+            }
+            assertTrue(spool.getSegmentCount() > 1);
+
+            int read = 0;
+            SegmentSpool.SpoolRecord record;
+            while ((record = spool.peek()) != null) {
+                assertEquals("message-" + read++, text(record));
+                spool.commit(record);
+            }
+
+            assertEquals(1000, read);
+            assertEquals(1, spool.getSegmentCount());
+            assertEquals(1, segmentFiles());
+        }
+    }
+
+    @Test
+    void sizeLimitDropsOldestSegments() throws IOException {
+        try (SegmentSpool spool = new SegmentSpool(directory, SEGMENT, SEGMENT * 2L, 0)) {
+            for (int i = 0; i < 1000; i++) {
+                spool.append(bytes("message-" + i));
+            }
+
+            assertEquals(2, spool.getSegmentCount());
+            assertTrue(spool.getDroppedCount() > 0);
+            assertNotEquals("message-0", text(spool.peek()));
+            assertEquals(2, segmentFiles());
+        }
+    }
+
+    @Test
+    void expiredRecordsAreSkipped() throws IOException, InterruptedException {
+        try (SegmentSpool spool = new SegmentSpool(directory, SEGMENT, SEGMENT * 16L, 1)) {
+            spool.append(bytes("a"));
+            Thread.sleep(10);
+
+            assertNull(spool.peek());
+            assertEquals(1, spool.getExpiredCount());
+        }
+    }
+
+    @Test
+    void oversizedRecordIsRejected() throws IOException {
+        try (SegmentSpool spool = new SegmentSpool(directory, SEGMENT, SEGMENT * 16L, 0)) {
+            assertFalse(spool.append(new byte[SEGMENT]));
+            assertFalse(spool.append(new byte[0]));
+            assertEquals(2, spool.getDroppedCount());
+            assertTrue(spool.isEmpty());
+        }
+    }
+
+    @Test
+    void closedSpoolRejectsAppend() throws IOException {
+        SegmentSpool spool = new SegmentSpool(directory, SEGMENT, SEGMENT * 16L, 0);
+        spool.append(bytes("a"));
+        spool.close();
+        spool.close();
+
+        assertThrows(IOException.class, () -> spool.append(bytes("b")));
+        assertNull(spool.peek());
+    }
+
+    private int segmentFiles() {
+        String[] names = directory.list((dir, name) -> name.endsWith(".seg"));
+        return names == null ? 0 : names.length;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(SegmentSpool.SpoolRecord record) {
+        return record == null ? null : new String(record.getData(), StandardCharsets.UTF_8);
+    }
+}
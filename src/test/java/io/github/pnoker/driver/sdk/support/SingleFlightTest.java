@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pnoker.driver.sdk.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SingleFlight 测试
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+class SingleFlightTest {
+
+    @Test
+    void tryAcquireClaimsKeyOnce() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> future = flight.tryAcquire("k");
+
+        assertNotNull(future);
+        assertNull(flight.tryAcquire("k"));
+        assertSame(future, flight.join("k"));
+        assertEquals(1, flight.getSharedCount());
+
+        flight.complete("k", future, "v");
+
+        assertEquals("v", future.join());
+        assertEquals(0, flight.size());
+        assertNull(flight.join("k"));
+    }
+
+    @Test
+    void completeExceptionallyReleasesKey() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> future = flight.tryAcquire("k");
+
+        flight.completeExceptionally("k", future, new IllegalStateException("read failed"));
+
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(0, flight.size());
+        assertNotNull(flight.tryAcquire("k"));
+    }
+
+    @Test
+    void executeSharesInFlightResult() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> flight.execute("k", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "v";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> follower = executor.submit(() -> flight.execute("k", () -> {
+                calls.incrementAndGet();
+                return "other";
+            }));
+            while (flight.getSharedCount() == 0) {
+                Thread.yield();
+            }
+            release.countDown();
+
+            assertEquals("v", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("v", follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+            assertEquals(0, flight.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void executeRethrowsFailureAndReleasesKey() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> flight.execute("k", () -> {
+            throw new IllegalStateException("read failed");
+        }));
+        assertEquals(0, flight.size());
+        assertEquals("v", flight.execute("k", () -> "v"));
+    }
+
+    @Test
+    void executeReleasesKeyOnError() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+
+        assertThrows(NoClassDefFoundError.class, () -> flight.execute("k", () -> {
+            throw new NoClassDefFoundError("driver class");
+        }));
+        assertEquals(0, flight.size());
+        assertNull(flight.join("k"));
+        assertEquals("v", flight.execute("k", () -> "v"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pnoker.driver.sdk.utils;
+
+import io.github.pnoker.driver.sdk.enums.ByteOrderEnum;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * CodecUtil 测试，以固定报文校验各字节序的编解码结果
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+class CodecUtilTest {
+
+    private static final long INT64 = 0x0102030405060708L;
+    private static final int INT32 = 0x01020304;
+    private static final int INT16 = 0x0102;
+
+    /**
+     * 按 ByteOrderEnum 声明顺序 ABCD、CDAB、BADC、DCBA 排列的期望报文
+     */
+    private static final byte[][] INT64_FRAMES = {
+            frame(0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08),
+            frame(0x07, 0x08, 0x05, 0x06, 0x03, 0x04, 0x01, 0x02),
+            frame(0x02, 0x01, 0x04, 0x03, 0x06, 0x05, 0x08, 0x07),
+            frame(0x08, 0x07, 0x06, 0x05, 0x04, 0x03, 0x02, 0x01)
+    };
+    private static final byte[][] INT32_FRAMES = {
+            frame(0x01, 0x02, 0x03, 0x04),
+            frame(0x03, 0x04, 0x01, 0x02),
+            frame(0x02, 0x01, 0x04, 0x03),
+            frame(0x04, 0x03, 0x02, 0x01)
+    };
+    private static final byte[][] INT16_FRAMES = {
+            frame(0x01, 0x02),
+            frame(0x01, 0x02),
+            frame(0x02, 0x01),
+            frame(0x02, 0x01)
+    };
+
+    private static final int OFFSET = 3;
+
+    @Test
+    void maskMatchesGoldenFrames() {
+        for (ByteOrderEnum order : ByteOrderEnum.values()) {
+            assertMask(INT64_FRAMES[order.ordinal()], order.mask(8));
+            assertMask(INT32_FRAMES[order.ordinal()], order.mask(4));
+            assertMask(INT16_FRAMES[order.ordinal()], order.mask(2));
+        }
+    }
+
+    @Test
+    void byteArrayMatchesGoldenFrames() {
+        for (ByteOrderEnum order : ByteOrderEnum.values()) {
+            byte[] bytes = new byte[OFFSET + 8];
+
+            CodecUtil.putInt64(bytes, OFFSET, INT64, order);
+            assertFrame(INT64_FRAMES[order.ordinal()], bytes, order);
+            assertEquals(INT64, CodecUtil.getInt64(bytes, OFFSET, order), order.name());
+
+            CodecUtil.putInt32(bytes, OFFSET, INT32, order);
+            assertFrame(INT32_FRAMES[order.ordinal()], bytes, order);
+            assertEquals(INT32, CodecUtil.getInt32(bytes, OFFSET, order), order.name());
+
+            CodecUtil.putInt16(bytes, OFFSET, INT16, order);
+            assertFrame(INT16_FRAMES[order.ordinal()], bytes, order);
+            assertEquals(INT16, CodecUtil.getInt16(bytes, OFFSET, order), order.name());
+        }
+    }
+
+    @Test
+    void heapBufferMatchesGoldenFrames() {
+        assertBuffer(ByteBuffer.allocate(OFFSET + 8));
+    }
+
+    @Test
+    void directBufferMatchesGoldenFrames() {
+        // The buffer order must not affect the result
+        assertBuffer(ByteBuffer.allocateDirect(OFFSET + 8).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test
+    void unsignedEdgeValues() {
+        for (ByteOrderEnum order : ByteOrderEnum.values()) {
+            byte[] bytes = new byte[OFFSET + 4];
+            ByteBuffer buffer = ByteBuffer.allocate(OFFSET + 4);
+
+            CodecUtil.putInt16(bytes, OFFSET, 0xFFFF, order);
+            assertEquals(0xFFFF, CodecUtil.getUInt16(bytes, OFFSET, order), order.name());
+            assertEquals(-1, CodecUtil.getInt16(bytes, OFFSET, order), order.name());
+            CodecUtil.putInt16(buffer, OFFSET, 0xFFFF, order);
+            assertEquals(0xFFFF, CodecUtil.getUInt16(buffer, OFFSET, order), order.name());
+
+            CodecUtil.putUInt32(bytes, OFFSET, 0xFFFFFFFFL, order);
+            assertEquals(0xFFFFFFFFL, CodecUtil.getUInt32(bytes, OFFSET, order), order.name());
+            assertEquals(-1, CodecUtil.getInt32(bytes, OFFSET, order), order.name());
+            CodecUtil.putUInt32(buffer, OFFSET, 0xFFFFFFFFL, order);
+            assertEquals(0xFFFFFFFFL, CodecUtil.getUInt32(buffer, OFFSET, order), order.name());
+
+            CodecUtil.putUInt32(bytes, OFFSET, 0x80000000L, order);
+            assertEquals(0x80000000L, CodecUtil.getUInt32(bytes, OFFSET, order), order.name());
+        }
+    }
+
+    @Test
+    void floatSpecialValuesRoundTrip() {
+        float[] floats = {Float.NaN, Float.intBitsToFloat(0x7FC00001), -0.0f, Float.NEGATIVE_INFINITY, Float.MIN_VALUE};
+        double[] doubles = {Double.NaN, Double.longBitsToDouble(0x7FF8000000000001L), -0.0d, Double.POSITIVE_INFINITY, Double.MIN_VALUE};
+        for (ByteOrderEnum order : ByteOrderEnum.values()) {
+            byte[] bytes = new byte[OFFSET + 8];
+            ByteBuffer buffer = ByteBuffer.allocateDirect(OFFSET + 8);
+            for (float value : floats) {
+                int bits = Float.floatToRawIntBits(value);
+                CodecUtil.putFloat32(bytes, OFFSET, value, order);
+                assertEquals(bits, Float.floatToRawIntBits(CodecUtil.getFloat32(bytes, OFFSET, order)), order.name());
+                CodecUtil.putFloat32(buffer, OFFSET, value, order);
+                assertEquals(bits, Float.floatToRawIntBits(CodecUtil.getFloat32(buffer, OFFSET, order)), order.name());
+            }
+            for (double value : doubles) {
+                long bits = Double.doubleToRawLongBits(value);
+                CodecUtil.putFloat64(bytes, OFFSET, value, order);
+                assertEquals(bits, Double.doubleToRawLongBits(CodecUtil.getFloat64(bytes, OFFSET, order)), order.name());
+                CodecUtil.putFloat64(buffer, OFFSET, value, order);
+                assertEquals(bits, Double.doubleToRawLongBits(CodecUtil.getFloat64(buffer, OFFSET, order)), order.name());
+            }
+        }
+    }
+
+    private static void assertBuffer(ByteBuffer buffer) {
+        ByteOrder bufferOrder = buffer.order();
+        buffer.position(1);
+        for (ByteOrderEnum order : ByteOrderEnum.values()) {
+            CodecUtil.putInt64(buffer, OFFSET, INT64, order);
+            assertFrame(INT64_FRAMES[order.ordinal()], buffer, order);
+            assertEquals(INT64, CodecUtil.getInt64(buffer, OFFSET, order), order.name());
+
+            CodecUtil.putInt32(buffer, OFFSET, INT32, order);
+            assertFrame(INT32_FRAMES[order.ordinal()], buffer, order);
+            assertEquals(INT32, CodecUtil.getInt32(buffer, OFFSET, order), order.name());
+
+            CodecUtil.putInt16(buffer, OFFSET, INT16, order);
+            assertFrame(INT16_FRAMES[order.ordinal()], buffer, order);
+            assertEquals(INT16, CodecUtil.getInt16(buffer, OFFSET, order), order.name());
+        }
+        assertEquals(1, buffer.position());
+        assertSame(bufferOrder, buffer.order());
+    }
+
+    /**
+     * 大端顺序的第 i 个字节应位于报文的 i ^ mask 处
+     */
+    private static void assertMask(byte[] frame, int mask) {
+        for (int i = 0; i < frame.length; i++) {
+            assertEquals(i + 1, frame[i ^ mask], "mask " + mask + " byte " + i);
+        }
+    }
+
+    private static void assertFrame(byte[] expected, byte[] bytes, ByteOrderEnum order) {
+        assertArrayEquals(expected, Arrays.copyOfRange(bytes, OFFSET, OFFSET + expected.length), order.name());
+    }
+
+    private static void assertFrame(byte[] expected, ByteBuffer buffer, ByteOrderEnum order) {
+        byte[] actual = new byte[expected.length];
+        for (int i = 0; i < actual.length; i++) {
+            actual[i] = buffer.get(OFFSET + i);
+        }
+        assertArrayEquals(expected, actual, order.name());
+    }
+
+    private static byte[] frame(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+}
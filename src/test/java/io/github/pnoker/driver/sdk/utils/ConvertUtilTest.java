@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.pnoker.driver.sdk.utils;
+
+import io.github.pnoker.common.enums.PointTypeFlagEnum;
+import io.github.pnoker.common.exception.EmptyException;
+import io.github.pnoker.common.exception.OutRangeException;
+import io.github.pnoker.common.model.Point;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * ConvertUtil 测试
+ *
+ * @author pnoker
+ * @since 2023.4.5
+ */
+class ConvertUtilTest {
+
+    @AfterEach
+    void tearDown() {
+        ConvertUtil.invalidateAll();
+    }
+
+    @Test
+    void integerTypesApplyBaseAndMultiple() {
+        assertEquals("20", ConvertUtil.convertValue(point("int", PointTypeFlagEnum.INT, "10", "2", 6), "5"));
+        assertEquals("-10", ConvertUtil.convertValue(point("long", PointTypeFlagEnum.LONG, "-20", "2", 6), "+5"));
+        assertEquals("12", ConvertUtil.convertValue(point("decimal", PointTypeFlagEnum.INT, "0", "1", 6), "12.7"));
+        assertEquals("3", ConvertUtil.convertValue(point("fraction", PointTypeFlagEnum.INT, "0", "0.5", 6), "7"));
+    }
+
+    @Test
+    void integerTypesNarrowLikeBigDecimal() {
+        assertEquals("-56", ConvertUtil.convertValue(point("byte", PointTypeFlagEnum.BYTE, "0", "1", 6), "200"));
+        assertEquals("-32768", ConvertUtil.convertValue(point("short", PointTypeFlagEnum.SHORT, "0", "1", 6), "32768"));
+
+        // Overflows long arithmetic and falls back to BigDecimal
+        String rawValue = "922337203685477580";
+        long expected = new BigDecimal(rawValue).multiply(BigDecimal.TEN).longValue();
+        assertEquals(String.valueOf(expected), ConvertUtil.convertValue(point("overflow", PointTypeFlagEnum.LONG, "0", "10", 6), rawValue));
+    }
+
+    @Test
+    void floatingTypesRoundToDecimal() {
+        assertEquals("123.4", ConvertUtil.convertValue(point("scale", PointTypeFlagEnum.DOUBLE, "0", "0.1", 2), "1234"));
+        assertEquals("3.142", ConvertUtil.convertValue(point("pi", PointTypeFlagEnum.DOUBLE, "0", "1", 3), "3.14159"));
+        assertEquals("-2.72", ConvertUtil.convertValue(point("negative", PointTypeFlagEnum.DOUBLE, "0", "1", 2), "-2.71828"));
+        assertEquals("1500.0", ConvertUtil.convertValue(point("exponent", PointTypeFlagEnum.DOUBLE, "0", "1", 2), "1.5e3"));
+        assertEquals("0.0", ConvertUtil.convertValue(point("zero", PointTypeFlagEnum.DOUBLE, "0", "1", 2), "-0.0001"));
+        assertEquals("22.3", ConvertUtil.convertValue(point("float", PointTypeFlagEnum.FLOAT, "10", "1", 1), "12.34"));
+    }
+
+    @Test
+    void invalidNumberIsOutOfRange() {
+        assertThrows(OutRangeException.class, () -> ConvertUtil.convertValue(point("int", PointTypeFlagEnum.INT, "0", "1", 6), "abc"));
+        assertThrows(OutRangeException.class, () -> ConvertUtil.convertValue(point("double", PointTypeFlagEnum.DOUBLE, "0", "1", 2), "1e999"));
+        assertThrows(EmptyException.class, () -> ConvertUtil.convertValue(null, "1"));
+    }
+
+    @Test
+    void booleanAndStringTypes() {
+        assertEquals("true", ConvertUtil.convertValue(point("bool", PointTypeFlagEnum.BOOLEAN, null, null, null), "TRUE"));
+        assertEquals("false", ConvertUtil.convertValue(point("bool", PointTypeFlagEnum.BOOLEAN, null, null, null), "1"));
+        assertEquals("raw", ConvertUtil.convertValue(point("string", PointTypeFlagEnum.STRING, "1", "2", 6), "raw"));
+        assertEquals("raw", ConvertUtil.convertValue(point("untyped", null, null, null, null), "raw"));
+    }
+
+    @Test
+    void converterFollowsPointChanges() {
+        Point point = point("point", PointTypeFlagEnum.INT, "0", "2", 6);
+        assertEquals("10", ConvertUtil.convertValue(point, "5"));
+
+        // A replaced point object recompiles the converter
+        assertEquals("15", ConvertUtil.convertValue(point("point", PointTypeFlagEnum.INT, "0", "3", 6), "5"));
+
+        // An in-place update is picked up after invalidation
+        point.setMultiple(new BigDecimal("4"));
+        ConvertUtil.convertValue(point, "5");
+        point.setMultiple(new BigDecimal("5"));
+        ConvertUtil.invalidate("point");
+        assertEquals("25", ConvertUtil.convertValue(point, "5"));
+    }
+
+    private static Point point(String id, PointTypeFlagEnum type, String base, String multiple, Integer decimal) {
+        Point point = new Point();
+        point.setId(id);
+        point.setPointTypeFlag(type);
+        point.setBaseValue(base == null ? null : new BigDecimal(base));
+        point.setMultiple(multiple == null ? null : new BigDecimal(multiple));
+        point.setValueDecimal(decimal == null ? null : decimal.byteValue());
+        return point;
+    }
+}